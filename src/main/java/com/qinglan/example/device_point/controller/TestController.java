@@ -1,16 +1,35 @@
 package com.qinglan.example.device_point.controller;
 
+import com.qinglan.example.device_point.server.activity.ActivityAggregator;
+import com.qinglan.example.device_point.server.activity.ActivitySummary;
+import com.qinglan.example.device_point.server.area.AreaOccupancyTracker;
+import com.qinglan.example.device_point.server.area.HeatmapAccumulator;
+import com.qinglan.example.device_point.server.area.HeatmapSnapshot;
+import com.qinglan.example.device_point.server.area.OccupancyTimelineStore;
+import com.qinglan.example.device_point.server.event.DeviceEventLog;
+import com.qinglan.example.device_point.server.handle.ProItemsHandler;
 import com.qinglan.example.device_point.server.msg.DeviceInfo;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournalReader;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryStore;
+import com.qinglan.example.device_point.server.vital.SleepSessionTracker;
+import com.qinglan.example.device_point.server.vital.VitalRollup;
+import com.qinglan.example.device_point.server.vital.VitalRollupEngine;
+import com.qinglan.example.device_point.server.vital.VitalSpectrumEngine;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -49,33 +68,17 @@ public class TestController {
 
     /**
      * 获取设备属性
+     * 与界面和巡检共用ProItemsHandler的合并查询，同一设备的并发请求只询问设备一次
      * @param uid
      * @return Device prop
-     * @throws InterruptedException
      */
     @GetMapping("/get/prop")
-    public String getProp(@RequestParam("uid") String uid) throws InterruptedException {
-        Channel channel = deviceRegSession.isReg(uid);
-        if (channel == null){
+    public String getProp(@RequestParam("uid") String uid) {
+        if (deviceRegSession.isReg(uid) == null){
             return null;
         }
-        String channelId = channel.id().asLongText();
-        int type = 11;
-        String key = type + channelId;
-        ByteBuf buffer = channel.alloc().buffer();
-        System.out.println("before write and flush, buf.refCnt(): " + buffer.refCnt());
-        buffer.writeByte(type);
-        deviceRegSession.initReceiveMsg(key);
-        ChannelFuture channelFuture = channel.writeAndFlush(buffer);
-        channelFuture.addListener(new ChannelFutureListener() {
-            @Override
-            public void operationComplete(ChannelFuture future) {
-                // 发送数据成功以后，再看看引用计数
-                System.out.println("after write and flush completed, buf.refCnt(): " + buffer.refCnt());
-            }
-        });
-        String s = deviceRegSession.waitReceiveMsg(key);
-        return s;
+        Map<String, String> properties = ProItemsHandler.queryDeviceProperties(uid);
+        return DeviceRegSession.toJsonString(properties);
     }
 
     /**
@@ -151,4 +154,169 @@ public class TestController {
         String s = deviceRegSession.waitReceiveMsg(channelKey);
         return s;
     }
+
+    /**
+     * 导出设备内存中的轨迹点（TelemetryCodec压缩格式）
+     * @param uid
+     * @param from 起始时间(毫秒)，包含
+     * @param to 结束时间(毫秒)，包含
+     * @return Encoded trajectory
+     */
+    @GetMapping(value = "/export/trajectory", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] exportTrajectory(@RequestParam("uid") String uid, @RequestParam("from") long from,
+                                   @RequestParam("to") long to) {
+        return TrajectoryStore.getInstance().exportCompressed(uid, from, to);
+    }
+
+    /**
+     * 从遥测日志导出设备的实时呼吸心率（TelemetryCodec压缩格式）
+     * @param uid
+     * @param from 起始接收时间(毫秒)，包含
+     * @param to 结束接收时间(毫秒)，包含
+     * @return Encoded vital samples
+     * @throws IOException
+     */
+    @GetMapping(value = "/export/vitals", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] exportVitals(@RequestParam("uid") String uid, @RequestParam("from") long from,
+                               @RequestParam("to") long to) throws IOException {
+        return new TelemetryJournalReader(TelemetryJournal.getInstance().getDirectory()).exportVitals(uid, from, to);
+    }
+
+    /**
+     * 导出设备的活动热力图（边界、网格尺寸与衰减后的计数）
+     * @param uid
+     * @return Heatmap snapshot as JSON, null if the device has no heatmap
+     */
+    @GetMapping("/export/heatmap")
+    public String exportHeatmap(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(HeatmapAccumulator.getInstance().getSnapshot(uid));
+    }
+
+    /**
+     * 导出热力图的界面色阶，每格一个字节(0-255)，按行存储，第0行为最小y
+     * @param uid
+     * @return Cell levels, empty if the device has no heatmap
+     */
+    @GetMapping(value = "/export/heatmap/levels", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] exportHeatmapLevels(@RequestParam("uid") String uid) {
+        HeatmapSnapshot snapshot = HeatmapAccumulator.getInstance().getSnapshot(uid);
+        return snapshot != null ? snapshot.toLevels() : new byte[0];
+    }
+
+    /**
+     * 查询设备已结束的呼吸心率聚合桶
+     * @param uid
+     * @param resolution 桶长度，MINUTE或HOUR
+     * @param from 起始桶时间(毫秒)，包含
+     * @param to 结束桶时间(毫秒)，包含
+     * @return Rollups as JSON, in time order
+     */
+    @GetMapping("/vital/series")
+    public String vitalSeries(@RequestParam("uid") String uid, @RequestParam("resolution") VitalRollup.Resolution resolution,
+                              @RequestParam("from") long from, @RequestParam("to") long to) {
+        return DeviceRegSession.toJsonString(VitalRollupEngine.getInstance().getSeriesStore().query(uid, resolution, from, to));
+    }
+
+    /**
+     * 获取设备进行中的睡眠会话摘要
+     * @param uid
+     * @return Partial summary as JSON, null if the device is not asleep
+     */
+    @GetMapping("/sleep/current")
+    public String sleepCurrent(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(SleepSessionTracker.getInstance().getCurrent(uid));
+    }
+
+    /**
+     * 获取设备已结束的睡眠会话摘要，最早的在前
+     * @param uid
+     * @return Summaries as JSON
+     */
+    @GetMapping("/sleep/summaries")
+    public String sleepSummaries(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(SleepSessionTracker.getInstance().getSummaries(uid));
+    }
+
+    /**
+     * 获取设备所有有人的区域及区域内的目标
+     * @param uid
+     * @return Area ID -> target IDs as JSON
+     */
+    @GetMapping("/area/occupancy")
+    public String areaOccupancy(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(AreaOccupancyTracker.getInstance().getOccupiedAreas(uid));
+    }
+
+    /**
+     * 获取设备某个区域内的目标及累计停留时长
+     * @param uid
+     * @param areaId 区域ID
+     * @return Targets and dwell milliseconds as JSON
+     */
+    @GetMapping("/area/targets")
+    public String areaTargets(@RequestParam("uid") String uid, @RequestParam("areaId") int areaId) {
+        AreaOccupancyTracker tracker = AreaOccupancyTracker.getInstance();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targets", tracker.getTargetsInArea(uid, areaId));
+        result.put("dwellMillis", tracker.getDwellMillis(uid, areaId));
+        return DeviceRegSession.toJsonString(result);
+    }
+
+    /**
+     * 获取设备在某一时刻的人数
+     * @param uid
+     * @param at 查询时间(毫秒)
+     * @return People count, -1 if unknown
+     */
+    @GetMapping("/people/count")
+    public int peopleCount(@RequestParam("uid") String uid, @RequestParam("at") long at) {
+        return OccupancyTimelineStore.getInstance().countAt(uid, at);
+    }
+
+    /**
+     * 获取设备在时间段内有人的总时长
+     * @param uid
+     * @param from 起始时间(毫秒)，包含
+     * @param to 结束时间(毫秒)
+     * @return Occupied milliseconds
+     */
+    @GetMapping("/people/occupied")
+    public long peopleOccupied(@RequestParam("uid") String uid, @RequestParam("from") long from,
+                               @RequestParam("to") long to) {
+        return OccupancyTimelineStore.getInstance().occupiedMillis(uid, from, to);
+    }
+
+    /**
+     * 查询设备已结束的小时或天活动统计
+     * @param uid
+     * @param period 统计周期，HOUR或DAY
+     * @param from 起始周期时间(毫秒)，包含
+     * @param to 结束周期时间(毫秒)，包含
+     * @return Summaries as JSON, in time order
+     */
+    @GetMapping("/activity")
+    public String activity(@RequestParam("uid") String uid, @RequestParam("period") ActivitySummary.Period period,
+                           @RequestParam("from") long from, @RequestParam("to") long to) {
+        return DeviceRegSession.toJsonString(ActivityAggregator.getInstance().query(uid, period, from, to));
+    }
+
+    /**
+     * 获取设备最近一次呼吸心率频谱分析结果
+     * @param uid
+     * @return Spectrum as JSON, null if no full window was analyzed yet
+     */
+    @GetMapping("/vital/spectrum")
+    public String vitalSpectrum(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(VitalSpectrumEngine.getInstance().getSpectrum(uid));
+    }
+
+    /**
+     * 获取设备最近的服务端事件（跌倒告警、区域进出、生命体征异常），最早的在前
+     * @param uid
+     * @return Events as JSON
+     */
+    @GetMapping("/events")
+    public String events(@RequestParam("uid") String uid) {
+        return DeviceRegSession.toJsonString(DeviceEventLog.getInstance().getRecent(uid));
+    }
 }
@@ -1,10 +1,24 @@
 package com.qinglan.example.device_point.server;
 
+import com.qinglan.example.device_point.server.activity.ActivityAggregator;
+import com.qinglan.example.device_point.server.alert.FallAlertDispatcher;
+import com.qinglan.example.device_point.server.alert.FallAlertTracker;
+import com.qinglan.example.device_point.server.area.AreaOccupancyTracker;
+import com.qinglan.example.device_point.server.area.GeofenceEngine;
+import com.qinglan.example.device_point.server.area.HeatmapAccumulator;
+import com.qinglan.example.device_point.server.event.DeviceEventLog;
 import com.qinglan.example.device_point.server.handle.*;
+import com.qinglan.example.device_point.server.property.PropertySweepScheduler;
 import com.qinglan.example.device_point.server.protocol.DebugHandler;
 import com.qinglan.example.device_point.server.protocol.ProcotolFrameDecoder;
 import com.qinglan.example.device_point.server.protocol.ProtoBufCodecSharable;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryStore;
+import com.qinglan.example.device_point.server.vital.SleepSessionTracker;
+import com.qinglan.example.device_point.server.vital.VitalAnomalyMonitor;
+import com.qinglan.example.device_point.server.vital.VitalRollupEngine;
+import com.qinglan.example.device_point.server.vital.VitalSpectrumEngine;
 import com.qinglan.example.device_point.ui.DeviceSessionListener;
 import com.qinglan.example.device_point.ui.EventBus;
 import com.qinglan.example.device_point.ui.RadarDebugUI;
@@ -154,6 +168,29 @@ public class QlIotServer {
         StopVoipHandler VOIP_STOP_REC = new StopVoipHandler();
         NotifyMessageHandler NOTIFY_MSG_REC = new NotifyMessageHandler();
         HeartMsgHandler HEART_REC = new HeartMsgHandler();
+        
+        // Keep recent trajectory history of connected devices
+        PositionDateHandler.addFrameListener(TrajectoryStore.getInstance());
+        // Classify trajectory points into the configured areas
+        PositionDateHandler.addFrameListener(GeofenceEngine.getInstance());
+        // Accumulate where people spend time in each room
+        PositionDateHandler.addFrameListener(HeatmapAccumulator.getInstance());
+        // Roll breath / heart rate frames up into minute and hour series
+        BreathDateHandler.addFrameListener(VitalRollupEngine.getInstance());
+        // Detect sleep sessions and summarize each night
+        BreathDateHandler.addFrameListener(SleepSessionTracker.getInstance());
+        // Window breath / heart rate for spectral analysis off the event loop
+        BreathDateHandler.addFrameListener(VitalSpectrumEngine.getInstance());
+        // Flag breath / heart rate drifting outside each sleeper's baseline
+        BreathDateHandler.addFrameListener(VitalAnomalyMonitor.getInstance());
+        // Turn repeated fall reports into one alert per incident change
+        FallAlertDispatcher.getInstance().addListener(FallAlertTracker.getInstance());
+        // Keep recent fall alerts for the REST API
+        FallAlertTracker.getInstance().addListener(DeviceEventLog.getInstance());
+        // Keep recent area enter / leave events for the REST API
+        GeofenceEngine.getInstance().addListener(DeviceEventLog.getInstance());
+        // Keep recent vital sign anomalies for the REST API
+        VitalAnomalyMonitor.getInstance().addListener(DeviceEventLog.getInstance());
 
         LoggingHandler LOGGING_HANDLER = new LoggingHandler(LogLevel.INFO);
         
@@ -190,12 +227,13 @@ public class QlIotServer {
                             }
                         }
                     });
+                    // Falls first, ahead of the high-rate telemetry handlers
+                    ch.pipeline().addLast(FALL_DOWN_REC);
                     ch.pipeline().addLast(HEART_REC);
                     ch.pipeline().addLast(BREATH_MESSAGE_REC);
                     ch.pipeline().addLast(POSITION_MESSAGE_REC);
                     ch.pipeline().addLast(POSITION_EVENT_REC);
                     ch.pipeline().addLast(POSITION_STATISTIC_REC);
-                    ch.pipeline().addLast(FALL_DOWN_REC);
                     ch.pipeline().addLast(SET_PROP_REC);
                     ch.pipeline().addLast(GET_PROP_REC);
                     ch.pipeline().addLast(NUMBER_PEOPLE_REC);
@@ -213,12 +251,28 @@ public class QlIotServer {
             // Notify UI of server start
             notifyServerStarted(inetPort);
             
+            // Start the periodic property inventory of connected devices
+            PropertySweepScheduler.getInstance().start();
+            VitalRollupEngine.getInstance().start();
+            VitalSpectrumEngine.getInstance().start();
+            AreaOccupancyTracker.getInstance().start();
+            HeatmapAccumulator.getInstance().start();
+            ActivityAggregator.getInstance().start();
+            
             channel.closeFuture().sync();
         } catch (InterruptedException e) {
             log.error("Server error", e);
         } finally {
             // Update server state
             isRunning.set(false);
+            PropertySweepScheduler.getInstance().stop();
+            VitalRollupEngine.getInstance().stop();
+            VitalSpectrumEngine.getInstance().stop();
+            AreaOccupancyTracker.getInstance().stop();
+            HeatmapAccumulator.getInstance().stop();
+            ActivityAggregator.getInstance().stop();
+            FallAlertDispatcher.getInstance().shutdown();
+            TelemetryJournal.getInstance().close();
             boss.shutdownGracefully();
             worker.shutdownGracefully();
             
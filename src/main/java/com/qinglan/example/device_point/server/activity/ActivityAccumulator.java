@@ -0,0 +1,86 @@
+package com.qinglan.example.device_point.server.activity;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Open activity period of one device, updated in O(1) per minute frame without allocation
+ */
+final class ActivityAccumulator {
+
+    private final ActivitySummary.Period period;
+    private final ZoneId zone;
+    private long start;
+    private long end;
+    private int minutes;
+    private int occupiedMinutes;
+    private int maxPeople;
+    private long walkingDistance;
+    private long walkingSeconds;
+    private long standingSeconds;
+    private long multiPersonSeconds;
+
+    ActivityAccumulator(ActivitySummary.Period period, ZoneId zone) {
+        this.period = period;
+        this.zone = zone;
+    }
+
+    boolean isOpen() {
+        return minutes > 0;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Whether the timestamp falls past the end of the open period
+     */
+    boolean isPastEnd(long timestamp) {
+        return isOpen() && timestamp >= end;
+    }
+
+    void add(ActivityFrame frame) {
+        if (!isOpen()) {
+            open(frame.getTimestamp());
+        }
+        minutes++;
+        int people = frame.peopleCount();
+        if (people > 0) {
+            occupiedMinutes++;
+        }
+        maxPeople = Math.max(maxPeople, people);
+        walkingDistance += frame.walkingDistance();
+        walkingSeconds += frame.walkingSeconds();
+        standingSeconds += frame.standingSeconds();
+        multiPersonSeconds += frame.multiPersonSeconds();
+    }
+
+    // Boundaries are computed once per period, not per frame
+    private void open(long timestamp) {
+        ZonedDateTime time = Instant.ofEpochMilli(timestamp).atZone(zone);
+        ZonedDateTime periodStart = period == ActivitySummary.Period.HOUR
+            ? time.truncatedTo(ChronoUnit.HOURS) : time.toLocalDate().atStartOfDay(zone);
+        start = periodStart.toInstant().toEpochMilli();
+        end = (period == ActivitySummary.Period.HOUR ? periodStart.plusHours(1) : periodStart.plusDays(1))
+            .toInstant().toEpochMilli();
+    }
+
+    /**
+     * Close the open period and reset for the next one
+     */
+    ActivitySummary close(String deviceId) {
+        ActivitySummary summary = new ActivitySummary(deviceId, period, start, minutes, occupiedMinutes, maxPeople,
+            walkingDistance, walkingSeconds, standingSeconds, multiPersonSeconds);
+        minutes = 0;
+        occupiedMinutes = 0;
+        maxPeople = 0;
+        walkingDistance = 0;
+        walkingSeconds = 0;
+        standingSeconds = 0;
+        multiPersonSeconds = 0;
+        return summary;
+    }
+}
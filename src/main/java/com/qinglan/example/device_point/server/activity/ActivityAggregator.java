@@ -0,0 +1,157 @@
+package com.qinglan.example.device_point.server.activity;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hourly and daily activity summaries folded from the per-minute trajectory statistics (type 19)
+ * - Every device owns one open accumulator per period, updated in O(1) per minute frame
+ * - A period closes when a frame falls past its end, or a grace time after its end when frames stop;
+ *   closed periods go to the ActivitySummaryStore, which persists them
+ * - Open periods survive disconnects, so a reconnect within the hour does not split it
+ * Periods follow the device report time, days start at local midnight
+ */
+@Slf4j
+public class ActivityAggregator {
+
+    // Time past a period end before it is closed without a newer frame
+    private static final long CLOSE_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static ActivityAggregator instance;
+
+    private static final class DeviceActivity {
+        final ActivityAccumulator hour;
+        final ActivityAccumulator day;
+
+        DeviceActivity(ZoneId zone) {
+            hour = new ActivityAccumulator(ActivitySummary.Period.HOUR, zone);
+            day = new ActivityAccumulator(ActivitySummary.Period.DAY, zone);
+        }
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, DeviceActivity> devices = new ConcurrentHashMap<>();
+
+    private final ActivitySummaryStore store;
+
+    private ScheduledExecutorService executor;
+
+    private ActivityAggregator(File directory) {
+        this.store = new ActivitySummaryStore(directory, zone);
+    }
+
+    /**
+     * Get singleton instance, persisting to the directory given by the
+     * activity.summary.dir system property (default "activity")
+     */
+    public static synchronized ActivityAggregator getInstance() {
+        if (instance == null) {
+            instance = new ActivityAggregator(new File(System.getProperty("activity.summary.dir", "activity")));
+        }
+        return instance;
+    }
+
+    /**
+     * Reload persisted summaries and start closing expired periods, has no effect if already running
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        store.open();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ActivityAggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::closeExpired, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Close every open period, persist it and stop
+     * Partial periods are merged with the rest of the period after a restart
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        for (Map.Entry<String, DeviceActivity> entry : devices.entrySet()) {
+            DeviceActivity activity = entry.getValue();
+            synchronized (activity) {
+                closeIf(entry.getKey(), activity.hour, true);
+                closeIf(entry.getKey(), activity.day, true);
+            }
+        }
+        store.close();
+    }
+
+    /**
+     * Fold in one minute frame
+     *
+     * @param deviceId The device ID
+     * @param frame Decoded frame, read during the call only
+     */
+    public void onFrame(String deviceId, ActivityFrame frame) {
+        if (!frame.isValid()) {
+            return;
+        }
+        DeviceActivity activity = devices.computeIfAbsent(deviceId, k -> new DeviceActivity(zone));
+        long timestamp = frame.getTimestamp();
+        synchronized (activity) {
+            closeIf(deviceId, activity.hour, activity.hour.isPastEnd(timestamp));
+            closeIf(deviceId, activity.day, activity.day.isPastEnd(timestamp));
+            activity.hour.add(frame);
+            activity.day.add(frame);
+        }
+    }
+
+    private void closeIf(String deviceId, ActivityAccumulator accumulator, boolean close) {
+        if (close && accumulator.isOpen()) {
+            ActivitySummary summary = accumulator.close(deviceId);
+            log.debug("Activity period closed: {}", summary);
+            store.save(summary);
+        }
+    }
+
+    private void closeExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, DeviceActivity> entry : devices.entrySet()) {
+                DeviceActivity activity = entry.getValue();
+                synchronized (activity) {
+                    closeIf(entry.getKey(), activity.hour, now >= activity.hour.getEnd() + CLOSE_GRACE_MILLIS);
+                    closeIf(entry.getKey(), activity.day, now >= activity.day.getEnd() + CLOSE_GRACE_MILLIS);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Activity period check failed", e);
+        }
+    }
+
+    /**
+     * Get the closed hourly or daily summaries of a device
+     *
+     * @param deviceId The device ID
+     * @param period Period length
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return Summaries in time order, empty if none
+     */
+    public List<ActivitySummary> query(String deviceId, ActivitySummary.Period period, long fromMillis, long toMillis) {
+        return store.query(deviceId, period, fromMillis, toMillis);
+    }
+}
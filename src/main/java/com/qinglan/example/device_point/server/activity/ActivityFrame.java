@@ -0,0 +1,83 @@
+package com.qinglan.example.device_point.server.activity;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Flyweight view over a trajectory statistics frame (type 19), one per minute
+ * See readme/radarDataIndex.txt section 7:
+ * - byte 0: version, byte 1: people count
+ * - bytes 2-3: walking distance of the past minute in meters (little-endian, like the frame header)
+ * - byte 4: walking time, byte 7: standing time, byte 8: multi-person time, seconds of the past minute
+ * A frame instance is re-wrapped for every message and must not be retained after the call
+ */
+public final class ActivityFrame {
+
+    public static final int MIN_SIZE = 9;
+
+    private ByteString data = ByteString.EMPTY;
+    private long timestamp;
+
+    /**
+     * Point this view at a new payload
+     *
+     * @param data Frame payload
+     * @param seconds Report time, seconds since 1970-01-01, 0 if the device clock is unset
+     * @param mseconds Milliseconds part
+     * @return This frame
+     */
+    public ActivityFrame wrap(ByteString data, int seconds, int mseconds) {
+        this.data = data;
+        // Fall back to the receive time, a zero device clock would put every minute in the 1970 period
+        this.timestamp = seconds != 0 ? (seconds & 0xFFFFFFFFL) * 1000L + mseconds : System.currentTimeMillis();
+        return this;
+    }
+
+    public boolean isValid() {
+        return data.size() >= MIN_SIZE;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int version() {
+        return unsigned(0);
+    }
+
+    public int peopleCount() {
+        return unsigned(1);
+    }
+
+    public int walkingDistance() {
+        return unsigned(2) | unsigned(3) << 8;
+    }
+
+    public int walkingSeconds() {
+        return unsigned(4);
+    }
+
+    public int standingSeconds() {
+        return unsigned(7);
+    }
+
+    public int multiPersonSeconds() {
+        return unsigned(8);
+    }
+
+    private int unsigned(int offset) {
+        return data.byteAt(offset) & 0xFF;
+    }
+
+    /**
+     * Human readable frame content, for debug logging only
+     */
+    @Override
+    public String toString() {
+        if (!isValid()) {
+            return "ActivityFrame{invalid, " + data.size() + " bytes}";
+        }
+        return "ActivityFrame{ts=" + timestamp + ", v" + version() + ", people=" + peopleCount()
+            + ", walk=" + walkingDistance() + "m/" + walkingSeconds() + "s, stand=" + standingSeconds()
+            + "s, multi=" + multiPersonSeconds() + "s}";
+    }
+}
@@ -0,0 +1,106 @@
+package com.qinglan.example.device_point.server.activity;
+
+/**
+ * Closed, immutable activity totals of one device over an hour or a day
+ */
+public final class ActivitySummary {
+
+    public enum Period {
+        HOUR,
+        DAY
+    }
+
+    private final String deviceId;
+    private final Period period;
+    private final long start;
+    private final int minutes;
+    private final int occupiedMinutes;
+    private final int maxPeople;
+    private final long walkingDistance;
+    private final long walkingSeconds;
+    private final long standingSeconds;
+    private final long multiPersonSeconds;
+
+    public ActivitySummary(String deviceId, Period period, long start, int minutes, int occupiedMinutes, int maxPeople,
+                           long walkingDistance, long walkingSeconds, long standingSeconds, long multiPersonSeconds) {
+        this.deviceId = deviceId;
+        this.period = period;
+        this.start = start;
+        this.minutes = minutes;
+        this.occupiedMinutes = occupiedMinutes;
+        this.maxPeople = maxPeople;
+        this.walkingDistance = walkingDistance;
+        this.walkingSeconds = walkingSeconds;
+        this.standingSeconds = standingSeconds;
+        this.multiPersonSeconds = multiPersonSeconds;
+    }
+
+    /**
+     * Combine two summaries of the same period, e.g. one closed before and one after a restart
+     */
+    ActivitySummary merge(ActivitySummary other) {
+        return new ActivitySummary(deviceId, period, start, minutes + other.minutes,
+            occupiedMinutes + other.occupiedMinutes, Math.max(maxPeople, other.maxPeople),
+            walkingDistance + other.walkingDistance, walkingSeconds + other.walkingSeconds,
+            standingSeconds + other.standingSeconds, multiPersonSeconds + other.multiPersonSeconds);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    /**
+     * Period start, milliseconds since 1970-01-01; days start at local midnight
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Statistics frames folded in, one per reported minute
+     */
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Minutes with at least one person present
+     */
+    public int getOccupiedMinutes() {
+        return occupiedMinutes;
+    }
+
+    public int getMaxPeople() {
+        return maxPeople;
+    }
+
+    /**
+     * Walking distance in meters
+     */
+    public long getWalkingDistance() {
+        return walkingDistance;
+    }
+
+    public long getWalkingSeconds() {
+        return walkingSeconds;
+    }
+
+    public long getStandingSeconds() {
+        return standingSeconds;
+    }
+
+    public long getMultiPersonSeconds() {
+        return multiPersonSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "ActivitySummary{" + deviceId + " " + period + "@" + start + ", minutes=" + minutes
+            + ", occupied=" + occupiedMinutes + ", maxPeople=" + maxPeople + ", walk=" + walkingDistance + "m/"
+            + walkingSeconds + "s, stand=" + standingSeconds + "s, multi=" + multiPersonSeconds + "s}";
+    }
+}
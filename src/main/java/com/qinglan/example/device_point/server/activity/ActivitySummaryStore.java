@@ -0,0 +1,247 @@
+package com.qinglan.example.device_point.server.activity;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed activity periods of all devices, kept in memory for queries and persisted as JSON lines
+ * - Files: hourly-yyyyMM.jsonl and daily-yyyy.jsonl in the directory given by the
+ *   activity.summary.dir system property (default "activity")
+ * - Writes happen on a background thread; the previous and current month / year are reloaded on start
+ * - A period stored twice (closed before and after a restart) is merged
+ */
+@Slf4j
+public class ActivitySummaryStore {
+
+    public static final int HOUR_RETENTION = 62 * 24;
+    public static final int DAY_RETENTION = 2 * 366;
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter YEAR_FORMAT = DateTimeFormatter.ofPattern("yyyy");
+
+    private static final class Series {
+        final ArrayDeque<ActivitySummary> hours = new ArrayDeque<>();
+        final ArrayDeque<ActivitySummary> days = new ArrayDeque<>();
+
+        ArrayDeque<ActivitySummary> of(ActivitySummary.Period period) {
+            return period == ActivitySummary.Period.HOUR ? hours : days;
+        }
+    }
+
+    private final File directory;
+    private final ZoneId zone;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private ExecutorService writer;
+
+    public ActivitySummaryStore(File directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    /**
+     * Reload the persisted periods still within retention and start the writer
+     */
+    public synchronized void open() {
+        if (writer != null) {
+            return;
+        }
+        LocalDate today = LocalDate.now(zone);
+        load(new File(directory, "hourly-" + today.minusMonths(1).format(MONTH_FORMAT) + ".jsonl"));
+        load(new File(directory, "hourly-" + today.format(MONTH_FORMAT) + ".jsonl"));
+        load(new File(directory, "daily-" + today.minusYears(1).format(YEAR_FORMAT) + ".jsonl"));
+        load(new File(directory, "daily-" + today.format(YEAR_FORMAT) + ".jsonl"));
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ActivitySummaryWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Write everything still queued, then stop the writer
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    private void load(File file) {
+        if (!file.isFile()) {
+            return;
+        }
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    add(fromJson(JSON.parseObject(line)));
+                    count++;
+                } catch (RuntimeException e) {
+                    log.warn("Skipping unreadable activity summary in {}: {}", file, line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error loading activity summaries from {}", file, e);
+        }
+        log.info("Loaded {} activity summaries from {}", count, file);
+    }
+
+    private static ActivitySummary fromJson(JSONObject json) {
+        return new ActivitySummary(json.getString("deviceId"),
+            ActivitySummary.Period.valueOf(json.getString("period")), json.getLongValue("start"),
+            json.getIntValue("minutes"), json.getIntValue("occupiedMinutes"), json.getIntValue("maxPeople"),
+            json.getLongValue("walkingDistance"), json.getLongValue("walkingSeconds"),
+            json.getLongValue("standingSeconds"), json.getLongValue("multiPersonSeconds"));
+    }
+
+    private static JSONObject toJson(ActivitySummary summary) {
+        JSONObject json = new JSONObject();
+        json.put("deviceId", summary.getDeviceId());
+        json.put("period", summary.getPeriod().name());
+        json.put("start", summary.getStart());
+        json.put("minutes", summary.getMinutes());
+        json.put("occupiedMinutes", summary.getOccupiedMinutes());
+        json.put("maxPeople", summary.getMaxPeople());
+        json.put("walkingDistance", summary.getWalkingDistance());
+        json.put("walkingSeconds", summary.getWalkingSeconds());
+        json.put("standingSeconds", summary.getStandingSeconds());
+        json.put("multiPersonSeconds", summary.getMultiPersonSeconds());
+        return json;
+    }
+
+    /**
+     * Store a closed period and queue it for persistence
+     */
+    public void save(ActivitySummary summary) {
+        add(summary);
+        ExecutorService current;
+        synchronized (this) {
+            current = writer;
+        }
+        if (current != null) {
+            current.execute(() -> write(summary));
+        }
+    }
+
+    private void add(ActivitySummary summary) {
+        Series deviceSeries = series.computeIfAbsent(summary.getDeviceId(), k -> new Series());
+        int retention = summary.getPeriod() == ActivitySummary.Period.HOUR ? HOUR_RETENTION : DAY_RETENTION;
+        synchronized (deviceSeries) {
+            ArrayDeque<ActivitySummary> periods = deviceSeries.of(summary.getPeriod());
+            ActivitySummary last = periods.peekLast();
+            if (last != null && last.getStart() == summary.getStart()) {
+                periods.pollLast();
+                periods.addLast(last.merge(summary));
+            } else if (last != null && last.getStart() > summary.getStart()) {
+                // Only happens while loading files out of order
+                insertSorted(periods, summary);
+            } else {
+                periods.addLast(summary);
+            }
+            while (periods.size() > retention) {
+                periods.removeFirst();
+            }
+        }
+    }
+
+    private static void insertSorted(ArrayDeque<ActivitySummary> periods, ActivitySummary summary) {
+        List<ActivitySummary> sorted = new ArrayList<>(periods);
+        int i = 0;
+        while (i < sorted.size() && sorted.get(i).getStart() < summary.getStart()) {
+            i++;
+        }
+        if (i < sorted.size() && sorted.get(i).getStart() == summary.getStart()) {
+            sorted.set(i, sorted.get(i).merge(summary));
+        } else {
+            sorted.add(i, summary);
+        }
+        periods.clear();
+        periods.addAll(sorted);
+    }
+
+    private void write(ActivitySummary summary) {
+        LocalDate day = Instant.ofEpochMilli(summary.getStart()).atZone(zone).toLocalDate();
+        String name = summary.getPeriod() == ActivitySummary.Period.HOUR
+            ? "hourly-" + day.format(MONTH_FORMAT) + ".jsonl"
+            : "daily-" + day.format(YEAR_FORMAT) + ".jsonl";
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            log.error("Cannot create activity summary directory {}", directory.getAbsolutePath());
+            return;
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(directory, name), true),
+                                                 StandardCharsets.UTF_8)) {
+            out.write(toJson(summary).toJSONString());
+            out.write('\n');
+        } catch (IOException e) {
+            log.error("Error persisting activity summary {}", summary, e);
+        }
+    }
+
+    /**
+     * Get the closed periods of a device starting within a time window
+     *
+     * @param deviceId The device ID
+     * @param period Period length
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return Periods in time order, empty if none
+     */
+    public List<ActivitySummary> query(String deviceId, ActivitySummary.Period period, long fromMillis, long toMillis) {
+        Series deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return Collections.emptyList();
+        }
+        List<ActivitySummary> result = new ArrayList<>();
+        synchronized (deviceSeries) {
+            Iterator<ActivitySummary> iterator = deviceSeries.of(period).descendingIterator();
+            while (iterator.hasNext()) {
+                ActivitySummary summary = iterator.next();
+                if (summary.getStart() < fromMillis) {
+                    break;
+                }
+                if (summary.getStart() <= toMillis) {
+                    result.add(summary);
+                }
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
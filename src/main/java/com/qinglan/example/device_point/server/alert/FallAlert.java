@@ -0,0 +1,119 @@
+package com.qinglan.example.device_point.server.alert;
+
+/**
+ * Notification of a change in a fall incident of one target
+ */
+public final class FallAlert {
+
+    public enum Kind {
+        // A target left the normal status
+        RAISED,
+        // Suspicion confirmed, e.g. SUSPECTED_FALL -> FALLDOWN
+        ESCALATED,
+        // Any other status change within an incident
+        UPDATED,
+        // The device reported the target normal again
+        RESOLVED,
+        // The device stopped reporting the target
+        EXPIRED
+    }
+
+    private final Kind kind;
+    private final String deviceId;
+    private final int targetId;
+    private final FallStatus status;
+    private final FallStatus previousStatus;
+    private final long incidentStart;
+    private final long timestamp;
+    private final int suppressedReports;
+    private final byte[] trajectoryContext;
+
+    FallAlert(Kind kind, String deviceId, int targetId, FallStatus status, FallStatus previousStatus,
+              long incidentStart, long timestamp, int suppressedReports) {
+        this(kind, deviceId, targetId, status, previousStatus, incidentStart, timestamp, suppressedReports, null);
+    }
+
+    private FallAlert(Kind kind, String deviceId, int targetId, FallStatus status, FallStatus previousStatus,
+                      long incidentStart, long timestamp, int suppressedReports, byte[] trajectoryContext) {
+        this.kind = kind;
+        this.deviceId = deviceId;
+        this.targetId = targetId;
+        this.status = status;
+        this.previousStatus = previousStatus;
+        this.incidentStart = incidentStart;
+        this.timestamp = timestamp;
+        this.suppressedReports = suppressedReports;
+        this.trajectoryContext = trajectoryContext;
+    }
+
+    FallAlert withTrajectoryContext(byte[] trajectoryContext) {
+        return new FallAlert(kind, deviceId, targetId, status, previousStatus,
+                             incidentStart, timestamp, suppressedReports, trajectoryContext);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public int getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * Status after the change, the last reported status for EXPIRED
+     */
+    public FallStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Status before the change, NORMAL for RAISED
+     */
+    public FallStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * Report time that raised the incident, milliseconds since 1970-01-01
+     */
+    public long getIncidentStart() {
+        return incidentStart;
+    }
+
+    /**
+     * Report time of the change, or server time for EXPIRED
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Duplicate reports suppressed since the previous alert of the incident
+     */
+    public int getSuppressedReports() {
+        return suppressedReports;
+    }
+
+    /**
+     * Movement of the target before the fall, in the TelemetryCodec trajectory format
+     * (decode with TelemetryCodec.decodeTrajectory, postures included)
+     * Only set on FALLDOWN alerts passed to FallIncidentListener.onTrajectoryContext; the array is shared
+     * and must not be modified
+     *
+     * @return The encoded points, or null
+     */
+    public byte[] getTrajectoryContext() {
+        return trajectoryContext;
+    }
+
+    @Override
+    public String toString() {
+        return "FallAlert{" + kind + " " + deviceId + ", target=" + targetId + ", " + previousStatus + " -> " + status
+            + ", since=" + incidentStart + ", suppressed=" + suppressedReports
+            + (trajectoryContext != null ? ", context=" + trajectoryContext.length + " bytes" : "") + "}";
+    }
+}
@@ -0,0 +1,144 @@
+package com.qinglan.example.device_point.server.alert;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated dispatch path for fall events (type 5)
+ * - FallDownHandler only decodes and enqueues; listeners run on a separate max-priority thread
+ *   that no telemetry work is ever scheduled on, so a telemetry backlog cannot delay an alert
+ * - Ingest-to-dispatch latency (socket read in the frame decoder to listener call) is recorded in a
+ *   histogram and checked against the SLO; the histogram is reported periodically
+ * - After shutdown() events are dropped, the alert thread is never restarted
+ */
+@Slf4j
+public class FallAlertDispatcher {
+
+    // Target ingest-to-dispatch latency
+    public static final long SLO_MICROS = TimeUnit.MILLISECONDS.toMicros(10);
+
+    private static final long REPORT_INTERVAL_SECONDS = 60;
+
+    private static FallAlertDispatcher instance;
+
+    private final CopyOnWriteArrayList<FallAlertListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private volatile ScheduledThreadPoolExecutor executor;
+
+    private volatile boolean shutdown;
+
+    private long lastReportedCount;
+
+    private FallAlertDispatcher() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized FallAlertDispatcher getInstance() {
+        if (instance == null) {
+            instance = new FallAlertDispatcher();
+        }
+        return instance;
+    }
+
+    public void addListener(FallAlertListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(FallAlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    /**
+     * Hand a fall event to the alert thread, never blocks
+     * The thread is started on first use
+     *
+     * @param event The event
+     */
+    public void dispatch(FallEvent event) {
+        ScheduledThreadPoolExecutor current = executor;
+        if (current == null) {
+            current = start();
+        }
+        if (current == null) {
+            log.warn("Fall alert dispatcher shut down, event dropped: {}", event);
+            return;
+        }
+        try {
+            current.execute(() -> deliver(event));
+        } catch (RejectedExecutionException e) {
+            log.warn("Fall alert dispatcher stopped, event dropped: {}", event);
+        }
+    }
+
+    /**
+     * @return The executor, or null after shutdown
+     */
+    private synchronized ScheduledThreadPoolExecutor start() {
+        if (executor == null && !shutdown) {
+            ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "FallAlert");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                return thread;
+            });
+            created.scheduleAtFixedRate(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            executor = created;
+        }
+        return executor;
+    }
+
+    /**
+     * Deliver queued events, then stop the alert thread
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor == null) {
+            return;
+        }
+        executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        report();
+    }
+
+    private void deliver(FallEvent event) {
+        long nanos = System.nanoTime() - event.getIngestNanos();
+        latency.record(nanos);
+        if (TimeUnit.NANOSECONDS.toMicros(nanos) > SLO_MICROS) {
+            log.warn("Fall alert dispatch exceeded SLO: {}us, {}", TimeUnit.NANOSECONDS.toMicros(nanos), event);
+        }
+        log.debug("Fall event: {}", event);
+        for (FallAlertListener listener : listeners) {
+            try {
+                listener.onFallEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Fall alert listener failed: {}", event, e);
+            }
+        }
+    }
+
+    private void report() {
+        long count = latency.getCount();
+        if (count != lastReportedCount) {
+            lastReportedCount = count;
+            log.info("Fall alert dispatch latency: {}, over SLO={}", latency, latency.getCountAbove(SLO_MICROS));
+        }
+    }
+}
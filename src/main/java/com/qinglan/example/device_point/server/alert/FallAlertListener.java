@@ -0,0 +1,10 @@
+package com.qinglan.example.device_point.server.alert;
+
+/**
+ * Consumer of fall events
+ * Called on the fall alert thread, implementations must not block
+ */
+public interface FallAlertListener {
+
+    void onFallEvent(FallEvent event);
+}
@@ -0,0 +1,256 @@
+package com.qinglan.example.device_point.server.alert;
+
+import com.qinglan.example.device_point.server.telemetry.TelemetryCodec;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryStore;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryWindow;
+import com.qinglan.example.device_point.ui.EventBus;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-device, per-target fall incident state machine
+ * - NORMAL -> any other status raises an incident, a return to NORMAL resolves it
+ * - Repeated reports of the current status are suppressed and only counted
+ * - A suspicion turning into FALLDOWN / LOW_SITTING escalates, any other change updates
+ * - An incident without reports for STALE_MILLIS expires; all expiries share one timer wheel
+ * Listeners therefore see one notification per state change, not one per frame
+ * Alerts reporting FALLDOWN are followed by the target's last CONTEXT_MILLIS of trajectory from the TrajectoryStore:
+ * the alert is delivered first, the context is captured and encoded afterwards on its own thread and handed to
+ * FallIncidentListener.onTrajectoryContext, so neither the alert nor the normal path waits for trajectory buffers
+ */
+@Slf4j
+public class FallAlertTracker implements FallAlertListener {
+
+    // Devices resend the status while it persists, silence this long means the target is gone
+    public static final long STALE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    // Movement attached to FALLDOWN alerts
+    public static final long CONTEXT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private static FallAlertTracker instance;
+
+    private static final class Key {
+        final String deviceId;
+        final int targetId;
+
+        Key(String deviceId, int targetId) {
+            this.deviceId = deviceId;
+            this.targetId = targetId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return targetId == other.targetId && deviceId.equals(other.deviceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deviceId, targetId);
+        }
+    }
+
+    private static final class Incident {
+        FallStatus status;
+        final long start;
+        // Server time of the last report, the expiry timeout re-arms itself from it
+        long lastReceived;
+        int suppressed;
+        Timeout timeout;
+
+        Incident(FallStatus status, long start) {
+            this.status = status;
+            this.start = start;
+        }
+    }
+
+    // Guarded by this
+    private final Map<Key, Incident> incidents = new HashMap<>();
+
+    private final CopyOnWriteArrayList<FallIncidentListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Timer timer = new HashedWheelTimer(new DefaultThreadFactory("FallAlertTimer", true),
+                                                     100, TimeUnit.MILLISECONDS);
+
+    // Captures trajectory context off the alert thread, FALLDOWN alerts are rare so one thread suffices
+    private final ExecutorService contextExecutor =
+        Executors.newSingleThreadExecutor(new DefaultThreadFactory("FallAlertContext", true));
+
+    private FallAlertTracker() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized FallAlertTracker getInstance() {
+        if (instance == null) {
+            instance = new FallAlertTracker();
+        }
+        return instance;
+    }
+
+    public void addListener(FallIncidentListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(FallIncidentListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onFallEvent(FallEvent event) {
+        FallAlert alert;
+        synchronized (this) {
+            alert = apply(event);
+        }
+        if (alert != null) {
+            notifyListeners(alert);
+            if (alert.getStatus() == FallStatus.FALLDOWN) {
+                FallAlert raised = alert;
+                contextExecutor.execute(() -> attachContext(raised, event));
+            }
+        }
+    }
+
+    private void attachContext(FallAlert alert, FallEvent event) {
+        // The window ends at the report time, frames arriving meanwhile do not change it
+        TrajectoryWindow window = TrajectoryStore.getInstance()
+            .lookback(event.getDeviceId(), event.getTargetId(), event.getTimestamp(), CONTEXT_MILLIS);
+        if (window.isEmpty()) {
+            return;
+        }
+        FallAlert withContext = alert.withTrajectoryContext(TelemetryCodec.encodeTrajectory(window));
+        log.info("Fall alert context: {}", withContext);
+        for (FallIncidentListener listener : listeners) {
+            try {
+                listener.onTrajectoryContext(withContext);
+            } catch (RuntimeException e) {
+                log.error("Fall incident listener failed: {}", withContext, e);
+            }
+        }
+    }
+
+    private FallAlert apply(FallEvent event) {
+        Key key = new Key(event.getDeviceId(), event.getTargetId());
+        Incident incident = incidents.get(key);
+        FallStatus status = event.getStatus();
+        long now = System.currentTimeMillis();
+
+        if (incident == null) {
+            if (status == FallStatus.NORMAL) {
+                return null;
+            }
+            incident = new Incident(status, event.getTimestamp());
+            incident.lastReceived = now;
+            incidents.put(key, incident);
+            scheduleExpiry(key, incident, STALE_MILLIS);
+            return alert(FallAlert.Kind.RAISED, key, incident, FallStatus.NORMAL, event.getTimestamp());
+        }
+
+        incident.lastReceived = now;
+        if (status == incident.status) {
+            incident.suppressed++;
+            return null;
+        }
+
+        FallStatus previous = incident.status;
+        if (status == FallStatus.NORMAL) {
+            incidents.remove(key);
+            incident.timeout.cancel();
+            incident.status = status;
+            return alert(FallAlert.Kind.RESOLVED, key, incident, previous, event.getTimestamp());
+        }
+        incident.status = status;
+        FallAlert.Kind kind = status.isConfirmed() && !previous.isConfirmed()
+            ? FallAlert.Kind.ESCALATED : FallAlert.Kind.UPDATED;
+        return alert(kind, key, incident, previous, event.getTimestamp());
+    }
+
+    private FallAlert alert(FallAlert.Kind kind, Key key, Incident incident, FallStatus previous, long timestamp) {
+        FallAlert alert = new FallAlert(kind, key.deviceId, key.targetId, incident.status, previous,
+                                        incident.start, timestamp, incident.suppressed);
+        incident.suppressed = 0;
+        return alert;
+    }
+
+    private void scheduleExpiry(Key key, Incident incident, long delayMillis) {
+        incident.timeout = timer.newTimeout(t -> expireIfStale(key, incident), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void expireIfStale(Key key, Incident incident) {
+        FallAlert alert;
+        synchronized (this) {
+            if (incidents.get(key) != incident) {
+                return;
+            }
+            long idle = System.currentTimeMillis() - incident.lastReceived;
+            if (idle < STALE_MILLIS) {
+                // Reported since the timeout was armed, wait for the rest of the window
+                scheduleExpiry(key, incident, STALE_MILLIS - idle);
+                return;
+            }
+            incidents.remove(key);
+            alert = alert(FallAlert.Kind.EXPIRED, key, incident, incident.status, System.currentTimeMillis());
+        }
+        notifyListeners(alert);
+    }
+
+    /**
+     * Expire all incidents of a device, e.g. when it disconnects
+     *
+     * @param deviceId The device ID
+     */
+    public void expireDevice(String deviceId) {
+        List<FallAlert> alerts = new ArrayList<>();
+        synchronized (this) {
+            incidents.entrySet().removeIf(entry -> {
+                if (!entry.getKey().deviceId.equals(deviceId)) {
+                    return false;
+                }
+                Incident incident = entry.getValue();
+                incident.timeout.cancel();
+                alerts.add(alert(FallAlert.Kind.EXPIRED, entry.getKey(), incident, incident.status,
+                                 System.currentTimeMillis()));
+                return true;
+            });
+        }
+        for (FallAlert alert : alerts) {
+            notifyListeners(alert);
+        }
+    }
+
+    /**
+     * Number of open incidents
+     */
+    public synchronized int getOpenIncidentCount() {
+        return incidents.size();
+    }
+
+    private void notifyListeners(FallAlert alert) {
+        log.warn("Fall alert: {}", alert);
+        EventBus.getInstance().postMessageReceived(alert.getDeviceId(), "FALL_ALERT", alert.toString());
+        for (FallIncidentListener listener : listeners) {
+            try {
+                listener.onFallAlert(alert);
+            } catch (RuntimeException e) {
+                log.error("Fall incident listener failed: {}", alert, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.qinglan.example.device_point.server.alert;
+
+/**
+ * One (target, status) pair of a fall down report
+ */
+public final class FallEvent {
+
+    private final String deviceId;
+    private final int targetId;
+    private final FallStatus status;
+    private final long timestamp;
+    private final long ingestNanos;
+
+    public FallEvent(String deviceId, int targetId, FallStatus status, long timestamp, long ingestNanos) {
+        this.deviceId = deviceId;
+        this.targetId = targetId;
+        this.status = status;
+        this.timestamp = timestamp;
+        this.ingestNanos = ingestNanos;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public int getTargetId() {
+        return targetId;
+    }
+
+    public FallStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Report time in milliseconds since 1970-01-01
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * System.nanoTime() when the report reached FallDownHandler
+     */
+    public long getIngestNanos() {
+        return ingestNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FallEvent{" + deviceId + ", target=" + targetId + ", " + status + ", ts=" + timestamp + "}";
+    }
+}
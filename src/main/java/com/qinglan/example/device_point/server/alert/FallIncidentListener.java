@@ -0,0 +1,19 @@
+package com.qinglan.example.device_point.server.alert;
+
+/**
+ * Consumer of de-duplicated fall alerts
+ * Called on the fall alert thread, or on the timer thread for EXPIRED alerts
+ */
+public interface FallIncidentListener {
+
+    void onFallAlert(FallAlert alert);
+
+    /**
+     * Trajectory before a FALLDOWN alert, delivered after the alert itself on the fall alert context thread
+     * Not called when the TrajectoryStore holds no points of the target
+     *
+     * @param alert The alert already passed to onFallAlert, now carrying getTrajectoryContext()
+     */
+    default void onTrajectoryContext(FallAlert alert) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.qinglan.example.device_point.server.alert;
+
+/**
+ * Fall status reported in ObjectFallDown (type 5), see ServerLBS.proto
+ */
+public enum FallStatus {
+    NORMAL(0),
+    SUSPECTED_FALL(1),
+    FALLDOWN(2),
+    SUSPECTED_LOW_SITTING(3),
+    LOW_SITTING(4);
+
+    private static final FallStatus[] BY_CODE = values();
+
+    private final int code;
+
+    FallStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Whether the status is an alarm rather than a suspicion or normal
+     */
+    public boolean isConfirmed() {
+        return this == FALLDOWN || this == LOW_SITTING;
+    }
+
+    /**
+     * Get the status of a reported code
+     *
+     * @param code Reported status byte
+     * @return The status, or null if the code is unknown
+     */
+    public static FallStatus fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.qinglan.example.device_point.server.area;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Flyweight view over a trajectory event frame (PositionStatusEvent, type 15)
+ * - events: one byte per target ID 0-7, see the EVENT_ constants
+ * - areas: bytes 0-7 area ID and bytes 8-15 area type of each target's enter-area event
+ * A frame instance is re-wrapped for every message and must not be retained after the call
+ */
+public final class AreaEventFrame {
+
+    public static final int MAX_TARGETS = 8;
+
+    public static final int EVENT_NONE = 0;
+    public static final int EVENT_ENTER_ROOM = 1;
+    public static final int EVENT_LEAVE_ROOM = 2;
+    public static final int EVENT_ENTER_AREA = 3;
+    public static final int EVENT_LEAVE_AREA = 4;
+    public static final int EVENT_ENTER_MONITORING = 5;
+    public static final int EVENT_EXIT_MONITORING = 6;
+
+    private static final String[] EVENT_NAMES = {
+        "none", "enter-room", "leave-room", "enter-area", "leave-area", "enter-monitoring", "exit-monitoring"
+    };
+
+    private ByteString events = ByteString.EMPTY;
+    private ByteString areas = ByteString.EMPTY;
+    private long timestamp;
+
+    /**
+     * Point this view at a new message
+     *
+     * @param events Event bytes
+     * @param areas Area bytes
+     * @param seconds Report time, seconds since 1970-01-01
+     * @param mseconds Milliseconds part
+     * @return This frame
+     */
+    public AreaEventFrame wrap(ByteString events, ByteString areas, int seconds, int mseconds) {
+        this.events = events;
+        this.areas = areas;
+        this.timestamp = (seconds & 0xFFFFFFFFL) * 1000L + mseconds;
+        return this;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Number of targets the frame has event bytes for
+     */
+    public int getTargetCount() {
+        return Math.min(events.size(), MAX_TARGETS);
+    }
+
+    /**
+     * Event of a target, one of the EVENT_ constants
+     */
+    public int event(int targetId) {
+        return events.byteAt(targetId) & 0xFF;
+    }
+
+    /**
+     * Area ID of a target's enter-area event, -1 if not reported
+     */
+    public int areaId(int targetId) {
+        return targetId < areas.size() ? areas.byteAt(targetId) & 0xFF : -1;
+    }
+
+    /**
+     * Area type of a target's enter-area event, -1 if not reported
+     */
+    public int areaType(int targetId) {
+        int offset = MAX_TARGETS + targetId;
+        return offset < areas.size() ? areas.byteAt(offset) & 0xFF : -1;
+    }
+
+    public static String eventName(int event) {
+        return event >= 0 && event < EVENT_NAMES.length ? EVENT_NAMES[event] : "unknown(" + event + ")";
+    }
+
+    /**
+     * Human readable frame content, for debug logging only
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("AreaEventFrame{ts=").append(timestamp);
+        for (int i = 0; i < getTargetCount(); i++) {
+            int event = event(i);
+            if (event == EVENT_NONE) {
+                continue;
+            }
+            builder.append(", ").append(i).append('=').append(eventName(event));
+            if (event == EVENT_ENTER_AREA) {
+                builder.append('(').append(areaId(i)).append('/').append(areaType(i)).append(')');
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
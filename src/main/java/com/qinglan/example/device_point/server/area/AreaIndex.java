@@ -0,0 +1,90 @@
+package com.qinglan.example.device_point.server.area;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of the areas configured on one device
+ * Areas are addressed by their position, so membership fits in one long bit mask
+ */
+public final class AreaIndex {
+
+    // Membership is tracked in a long
+    public static final int MAX_AREAS = 64;
+
+    static final AreaIndex EMPTY = new AreaIndex(new AreaPolygon[0]);
+
+    private final AreaPolygon[] areas;
+
+    private AreaIndex(AreaPolygon[] areas) {
+        this.areas = areas;
+    }
+
+    /**
+     * Copy with an area added, or replaced if the ID is already defined
+     */
+    AreaIndex with(AreaPolygon area) {
+        int position = positionOf(area.getAreaId());
+        AreaPolygon[] next;
+        if (position >= 0) {
+            next = areas.clone();
+            next[position] = area;
+        } else {
+            if (areas.length >= MAX_AREAS) {
+                throw new IllegalStateException("Too many areas, at most " + MAX_AREAS);
+            }
+            next = Arrays.copyOf(areas, areas.length + 1);
+            next[areas.length] = area;
+        }
+        return new AreaIndex(next);
+    }
+
+    /**
+     * Copy with an area removed
+     */
+    AreaIndex without(int areaId) {
+        int position = positionOf(areaId);
+        if (position < 0) {
+            return this;
+        }
+        AreaPolygon[] next = new AreaPolygon[areas.length - 1];
+        System.arraycopy(areas, 0, next, 0, position);
+        System.arraycopy(areas, position + 1, next, position, areas.length - position - 1);
+        return new AreaIndex(next);
+    }
+
+    /**
+     * Bit mask of the areas containing a point, bit n for the area at position n
+     *
+     * @param x X in decimeters
+     * @param y Y in decimeters
+     */
+    public long classify(float x, float y) {
+        long mask = 0;
+        for (int i = 0; i < areas.length; i++) {
+            if (areas[i].contains(x, y)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    public int size() {
+        return areas.length;
+    }
+
+    public AreaPolygon get(int position) {
+        return areas[position];
+    }
+
+    /**
+     * Position of an area, or -1 if not defined
+     */
+    public int positionOf(int areaId) {
+        for (int i = 0; i < areas.length; i++) {
+            if (areas[i].getAreaId() == areaId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
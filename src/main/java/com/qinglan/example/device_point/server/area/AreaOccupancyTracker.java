@@ -0,0 +1,321 @@
+package com.qinglan.example.device_point.server.area;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Room / area / monitoring occupancy of every device, as reported by the device (type 15)
+ * - State lives in primitive arrays: per target the room flag, monitoring flag and current area,
+ *   per area ID a bit mask of the targets in it, so "who is where" is answered in O(1)
+ * - Entering an area while in another one leaves the previous area; leaving the room leaves everything
+ * - Dwell time per area is accumulated in place and only folded into the published totals
+ *   by a periodic flush, including the running part of stays still in progress
+ * Dwell accounting uses the server receive time, so it does not depend on the device clock
+ */
+@Slf4j
+public class AreaOccupancyTracker {
+
+    private static final int MAX_TARGETS = AreaEventFrame.MAX_TARGETS;
+    // Area IDs are one byte
+    private static final int MAX_AREA_IDS = 256;
+    private static final int NO_AREA = -1;
+
+    private static final long FLUSH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static AreaOccupancyTracker instance;
+
+    private static final class DeviceOccupancy {
+        final boolean[] inRoom = new boolean[MAX_TARGETS];
+        final boolean[] monitoring = new boolean[MAX_TARGETS];
+        final int[] areaOf = new int[MAX_TARGETS];
+        // Server time the target entered its current area, or of the last flush if later
+        final long[] areaSince = new long[MAX_TARGETS];
+        // Bit n set when target n is in the area
+        final int[] areaMembers = new int[MAX_AREA_IDS];
+        // Dwell of closed stays since the last flush
+        final long[] pendingDwell = new long[MAX_AREA_IDS];
+        // Flushed totals
+        final long[] totalDwell = new long[MAX_AREA_IDS];
+
+        DeviceOccupancy() {
+            Arrays.fill(areaOf, NO_AREA);
+        }
+    }
+
+    private final Map<String, DeviceOccupancy> devices = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private AreaOccupancyTracker() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized AreaOccupancyTracker getInstance() {
+        if (instance == null) {
+            instance = new AreaOccupancyTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Start the periodic dwell flush, has no effect if already running
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AreaOccupancy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushAll, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the periodic flush after a final one
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        flushAll();
+    }
+
+    /**
+     * Apply a decoded type-15 frame
+     *
+     * @param deviceId The device ID
+     * @param frame The frame, read during the call only
+     */
+    public void onFrame(String deviceId, AreaEventFrame frame) {
+        DeviceOccupancy device = devices.computeIfAbsent(deviceId, k -> new DeviceOccupancy());
+        long now = System.currentTimeMillis();
+        synchronized (device) {
+            for (int target = 0; target < frame.getTargetCount(); target++) {
+                switch (frame.event(target)) {
+                    case AreaEventFrame.EVENT_ENTER_ROOM:
+                        device.inRoom[target] = true;
+                        break;
+                    case AreaEventFrame.EVENT_LEAVE_ROOM:
+                        leaveArea(device, target, now);
+                        device.inRoom[target] = false;
+                        device.monitoring[target] = false;
+                        break;
+                    case AreaEventFrame.EVENT_ENTER_AREA:
+                        int areaId = frame.areaId(target);
+                        if (areaId >= 0 && areaId != device.areaOf[target]) {
+                            leaveArea(device, target, now);
+                            device.areaOf[target] = areaId;
+                            device.areaSince[target] = now;
+                            device.areaMembers[areaId] |= 1 << target;
+                        }
+                        device.inRoom[target] = true;
+                        break;
+                    case AreaEventFrame.EVENT_LEAVE_AREA:
+                        leaveArea(device, target, now);
+                        break;
+                    case AreaEventFrame.EVENT_ENTER_MONITORING:
+                        device.monitoring[target] = true;
+                        break;
+                    case AreaEventFrame.EVENT_EXIT_MONITORING:
+                        device.monitoring[target] = false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void leaveArea(DeviceOccupancy device, int target, long now) {
+        int areaId = device.areaOf[target];
+        if (areaId == NO_AREA) {
+            return;
+        }
+        device.pendingDwell[areaId] += Math.max(0, now - device.areaSince[target]);
+        device.areaMembers[areaId] &= ~(1 << target);
+        device.areaOf[target] = NO_AREA;
+    }
+
+    private void flushAll() {
+        try {
+            long now = System.currentTimeMillis();
+            for (DeviceOccupancy device : devices.values()) {
+                flush(device, now);
+            }
+        } catch (RuntimeException e) {
+            log.error("Area dwell flush failed", e);
+        }
+    }
+
+    private static void flush(DeviceOccupancy device, long now) {
+        synchronized (device) {
+            // Running stays contribute their time so far and restart counting from now
+            for (int target = 0; target < MAX_TARGETS; target++) {
+                int areaId = device.areaOf[target];
+                if (areaId != NO_AREA) {
+                    device.pendingDwell[areaId] += Math.max(0, now - device.areaSince[target]);
+                    device.areaSince[target] = now;
+                }
+            }
+            for (int areaId = 0; areaId < MAX_AREA_IDS; areaId++) {
+                if (device.pendingDwell[areaId] != 0) {
+                    device.totalDwell[areaId] += device.pendingDwell[areaId];
+                    device.pendingDwell[areaId] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the area a target is in
+     *
+     * @param deviceId The device ID
+     * @param targetId The target ID, 0-7
+     * @return The area ID, or -1 if the target is in no area
+     */
+    public int getAreaOfTarget(String deviceId, int targetId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null || targetId < 0 || targetId >= MAX_TARGETS) {
+            return NO_AREA;
+        }
+        synchronized (device) {
+            return device.areaOf[targetId];
+        }
+    }
+
+    /**
+     * Get the targets in an area
+     *
+     * @param deviceId The device ID
+     * @param areaId The area ID
+     * @return Target IDs, empty if none
+     */
+    public List<Integer> getTargetsInArea(String deviceId, int areaId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null || areaId < 0 || areaId >= MAX_AREA_IDS) {
+            return Collections.emptyList();
+        }
+        int members;
+        synchronized (device) {
+            members = device.areaMembers[areaId];
+        }
+        return targetsOf(members);
+    }
+
+    /**
+     * Get every occupied area of a device with its targets
+     *
+     * @param deviceId The device ID
+     * @return Area ID -> target IDs, empty if no area is occupied
+     */
+    public Map<Integer, List<Integer>> getOccupiedAreas(String deviceId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, List<Integer>> occupied = new LinkedHashMap<>();
+        synchronized (device) {
+            for (int target = 0; target < MAX_TARGETS; target++) {
+                int areaId = device.areaOf[target];
+                if (areaId != NO_AREA && !occupied.containsKey(areaId)) {
+                    occupied.put(areaId, targetsOf(device.areaMembers[areaId]));
+                }
+            }
+        }
+        return occupied;
+    }
+
+    private static List<Integer> targetsOf(int members) {
+        List<Integer> targets = new ArrayList<>(Integer.bitCount(members));
+        for (int bits = members; bits != 0; bits &= bits - 1) {
+            targets.add(Integer.numberOfTrailingZeros(bits));
+        }
+        return targets;
+    }
+
+    /**
+     * Number of targets the device reports in the room
+     */
+    public int getPeopleInRoom(String deviceId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null) {
+            return 0;
+        }
+        int count = 0;
+        synchronized (device) {
+            for (boolean inRoom : device.inRoom) {
+                if (inRoom) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether a target is under monitoring
+     */
+    public boolean isMonitoring(String deviceId, int targetId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null || targetId < 0 || targetId >= MAX_TARGETS) {
+            return false;
+        }
+        synchronized (device) {
+            return device.monitoring[targetId];
+        }
+    }
+
+    /**
+     * Total time targets spent in an area, as of the last flush
+     *
+     * @param deviceId The device ID
+     * @param areaId The area ID
+     * @return Dwell time in milliseconds, summed over targets
+     */
+    public long getDwellMillis(String deviceId, int areaId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null || areaId < 0 || areaId >= MAX_AREA_IDS) {
+            return 0;
+        }
+        synchronized (device) {
+            return device.totalDwell[areaId];
+        }
+    }
+
+    /**
+     * Close all stays of a device, e.g. when it disconnects; dwell totals are kept
+     *
+     * @param deviceId The device ID
+     */
+    public void resetDevice(String deviceId) {
+        DeviceOccupancy device = devices.get(deviceId);
+        if (device == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (device) {
+            for (int target = 0; target < MAX_TARGETS; target++) {
+                leaveArea(device, target, now);
+                device.inRoom[target] = false;
+                device.monitoring[target] = false;
+            }
+        }
+    }
+}
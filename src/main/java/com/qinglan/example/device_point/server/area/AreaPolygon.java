@@ -0,0 +1,143 @@
+package com.qinglan.example.device_point.server.area;
+
+/**
+ * Immutable polygon of a declare_area property, prepared for point-in-polygon tests
+ * - Format: {area-id, area-type, x1, y1; x2, y2, ...}, braces optional, coordinates in decimeters
+ *   (the same unit as type-13 trajectory x / y)
+ * - The bounding box rejects most points; remaining points run a crossing-number test over a
+ *   precomputed edge table (lower y, upper y, x at lower y, dx/dy), so a test allocates nothing
+ */
+public final class AreaPolygon {
+
+    private final int areaId;
+    private final int areaType;
+    private final String definition;
+    private final float minX;
+    private final float maxX;
+    private final float minY;
+    private final float maxY;
+
+    // Edge table, horizontal edges are left out since they never cross a horizontal ray
+    private final int edgeCount;
+    private final float[] edgeYMin;
+    private final float[] edgeYMax;
+    private final float[] edgeX;
+    private final float[] edgeSlope;
+
+    private AreaPolygon(int areaId, int areaType, String definition, float[] xs, float[] ys) {
+        this.areaId = areaId;
+        this.areaType = areaType;
+        this.definition = definition;
+
+        float x0 = Float.MAX_VALUE, x1 = -Float.MAX_VALUE, y0 = Float.MAX_VALUE, y1 = -Float.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            x0 = Math.min(x0, xs[i]);
+            x1 = Math.max(x1, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        this.minX = x0;
+        this.maxX = x1;
+        this.minY = y0;
+        this.maxY = y1;
+
+        float[] yMin = new float[xs.length];
+        float[] yMax = new float[xs.length];
+        float[] x = new float[xs.length];
+        float[] slope = new float[xs.length];
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            int j = (i + 1) % xs.length;
+            if (ys[i] == ys[j]) {
+                continue;
+            }
+            int low = ys[i] < ys[j] ? i : j;
+            int high = low == i ? j : i;
+            yMin[count] = ys[low];
+            yMax[count] = ys[high];
+            x[count] = xs[low];
+            slope[count] = (xs[high] - xs[low]) / (ys[high] - ys[low]);
+            count++;
+        }
+        this.edgeCount = count;
+        this.edgeYMin = yMin;
+        this.edgeYMax = yMax;
+        this.edgeX = x;
+        this.edgeSlope = slope;
+    }
+
+    /**
+     * Parse a declare_area value
+     *
+     * @param definition The property value
+     * @return The polygon
+     * @throws IllegalArgumentException If the value is not a valid area with at least three vertices
+     */
+    public static AreaPolygon parse(String definition) {
+        if (definition == null) {
+            throw new IllegalArgumentException("Area definition is null");
+        }
+        String body = definition.trim();
+        if (body.startsWith("{") && body.endsWith("}")) {
+            body = body.substring(1, body.length() - 1);
+        }
+        String[] tokens = body.replace(';', ',').split(",");
+        if (tokens.length < 8 || tokens.length % 2 != 0) {
+            throw new IllegalArgumentException("Area needs an id, a type and at least three vertices: " + definition);
+        }
+        try {
+            int areaId = Integer.parseInt(tokens[0].trim());
+            int areaType = Integer.parseInt(tokens[1].trim());
+            int vertices = (tokens.length - 2) / 2;
+            float[] xs = new float[vertices];
+            float[] ys = new float[vertices];
+            for (int i = 0; i < vertices; i++) {
+                xs[i] = Float.parseFloat(tokens[2 + i * 2].trim());
+                ys[i] = Float.parseFloat(tokens[3 + i * 2].trim());
+            }
+            return new AreaPolygon(areaId, areaType, definition, xs, ys);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in area definition: " + definition, e);
+        }
+    }
+
+    public int getAreaId() {
+        return areaId;
+    }
+
+    public int getAreaType() {
+        return areaType;
+    }
+
+    /**
+     * The declare_area value the polygon was parsed from
+     */
+    public String getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Whether a point lies inside the polygon, points on the lower / left edges count as inside
+     *
+     * @param x X in decimeters
+     * @param y Y in decimeters
+     */
+    public boolean contains(float x, float y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i = 0; i < edgeCount; i++) {
+            if (y >= edgeYMin[i] && y < edgeYMax[i]
+                && x < edgeX[i] + (y - edgeYMin[i]) * edgeSlope[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    @Override
+    public String toString() {
+        return "AreaPolygon{id=" + areaId + ", type=" + areaType + ", " + definition + "}";
+    }
+}
@@ -0,0 +1,389 @@
+package com.qinglan.example.device_point.server.area;
+
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrame;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrameListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-side geofencing over the declare_area polygons of each device
+ * - Areas come from the declare_area items of the device's property replies, which list every area;
+ *   areas missing from a reply are removed
+ * - Every type-13 point is classified into areas; membership is a bit mask per target,
+ *   so the per-point work is a few polygon tests and no allocation
+ * - A change in membership emits ENTER / LEAVE events, LEAVE carries the dwell time;
+ *   a target missing from a frame leaves all its areas
+ * Frame processing runs on the device's event loop; area changes are published as a new immutable AreaIndex,
+ * membership changes as a new immutable Membership snapshot for readers on other threads
+ */
+@Slf4j
+public class GeofenceEngine implements TrajectoryFrameListener {
+
+    public static final String AREA_KEY = "declare_area";
+
+    // Property key of one area in the property store, as in configuration files: declare_area_<area ID>
+    public static final String AREA_KEY_PREFIX = "declare_area_";
+
+    // Target IDs are one byte
+    private static final int MAX_TARGETS = 256;
+
+    private static GeofenceEngine instance;
+
+    /**
+     * Membership as of the end of a frame, published for readers outside the event loop
+     */
+    private static final class Membership {
+        static final Membership EMPTY = new Membership(AreaIndex.EMPTY, new long[MAX_TARGETS]);
+
+        final AreaIndex index;
+        final long[] masks;
+
+        Membership(AreaIndex index, long[] masks) {
+            this.index = index;
+            this.masks = masks;
+        }
+    }
+
+    private static final class DeviceFence {
+        volatile AreaIndex index = AreaIndex.EMPTY;
+        volatile Membership published = Membership.EMPTY;
+
+        // Event loop only
+        AreaIndex applied = AreaIndex.EMPTY;
+        final long[] membership = new long[MAX_TARGETS];
+        // Enter time per target and area position, allocated on a target's first entry
+        final long[][] enterTimes = new long[MAX_TARGETS][];
+        final int[] seenInFrame = new int[MAX_TARGETS];
+        final int[] activeTargets = new int[MAX_TARGETS];
+        int activeCount;
+        int frameNumber;
+        // Membership changed since the last publication
+        boolean dirty;
+
+        void publish() {
+            if (dirty) {
+                published = new Membership(applied, membership.clone());
+                dirty = false;
+            }
+        }
+    }
+
+    private final Map<String, DeviceFence> fences = new ConcurrentHashMap<>();
+
+    private final CopyOnWriteArrayList<GeofenceListener> listeners = new CopyOnWriteArrayList<>();
+
+    private GeofenceEngine() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized GeofenceEngine getInstance() {
+        if (instance == null) {
+            instance = new GeofenceEngine();
+        }
+        return instance;
+    }
+
+    public void addListener(GeofenceListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(GeofenceListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Define or replace an area of a device
+     *
+     * @param deviceId The device ID
+     * @param definition declare_area value
+     * @return false if the value is not a valid area
+     */
+    public boolean defineArea(String deviceId, String definition) {
+        AreaPolygon area;
+        try {
+            area = AreaPolygon.parse(definition);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring area of {}: {}", deviceId, e.getMessage());
+            return false;
+        }
+        return define(deviceId, area);
+    }
+
+    private boolean define(String deviceId, AreaPolygon area) {
+        DeviceFence fence = fences.computeIfAbsent(deviceId, k -> new DeviceFence());
+        synchronized (fence) {
+            int position = fence.index.positionOf(area.getAreaId());
+            if (position >= 0 && fence.index.get(position).getDefinition().equals(area.getDefinition())) {
+                // Reported again unchanged, keep the index so the event loop has nothing to remap
+                return true;
+            }
+            try {
+                fence.index = fence.index.with(area);
+            } catch (IllegalStateException e) {
+                log.warn("Ignoring area of {}: {}", deviceId, e.getMessage());
+                return false;
+            }
+        }
+        log.debug("Area defined: deviceId={}, {}", deviceId, area);
+        return true;
+    }
+
+    /**
+     * Take the areas of a device from a full property reply: every listed area is defined,
+     * areas not listed are removed
+     *
+     * @param deviceId The device ID
+     * @param definitions declare_area values of the reply, empty if the device has no areas
+     */
+    public void syncAreas(String deviceId, List<String> definitions) {
+        Set<Integer> declared = new HashSet<>();
+        for (String definition : definitions) {
+            AreaPolygon area;
+            try {
+                area = AreaPolygon.parse(definition);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring area of {}: {}", deviceId, e.getMessage());
+                continue;
+            }
+            if (define(deviceId, area)) {
+                declared.add(area.getAreaId());
+            }
+        }
+        for (AreaPolygon area : getAreas(deviceId)) {
+            if (!declared.contains(area.getAreaId())) {
+                removeArea(deviceId, area.getAreaId());
+                log.debug("Area removed: deviceId={}, {}", deviceId, area);
+            }
+        }
+    }
+
+    /**
+     * Property store key of a declare_area value, declare_area_<area ID>
+     *
+     * @param definition declare_area value
+     * @return The key, or plain declare_area if the value is not a valid area
+     */
+    public static String areaKey(String definition) {
+        try {
+            return AREA_KEY_PREFIX + AreaPolygon.parse(definition).getAreaId();
+        } catch (IllegalArgumentException e) {
+            return AREA_KEY;
+        }
+    }
+
+    /**
+     * Remove an area of a device
+     *
+     * @param deviceId The device ID
+     * @param areaId The area ID
+     */
+    public void removeArea(String deviceId, int areaId) {
+        DeviceFence fence = fences.get(deviceId);
+        if (fence != null) {
+            synchronized (fence) {
+                fence.index = fence.index.without(areaId);
+            }
+        }
+    }
+
+    /**
+     * Get the areas configured on a device
+     *
+     * @param deviceId The device ID
+     * @return The areas, empty if none
+     */
+    public List<AreaPolygon> getAreas(String deviceId) {
+        DeviceFence fence = fences.get(deviceId);
+        if (fence == null) {
+            return Collections.emptyList();
+        }
+        AreaIndex index = fence.index;
+        List<AreaPolygon> areas = new ArrayList<>(index.size());
+        for (int i = 0; i < index.size(); i++) {
+            areas.add(index.get(i));
+        }
+        return areas;
+    }
+
+    @Override
+    public void onFrame(String deviceId, TrajectoryFrame frame) {
+        DeviceFence fence = fences.get(deviceId);
+        if (fence == null) {
+            return;
+        }
+        AreaIndex index = fence.index;
+        long timestamp = frame.getTimestamp();
+        if (index != fence.applied) {
+            remap(deviceId, fence, index, timestamp);
+        }
+        if (index.size() == 0 && fence.activeCount == 0) {
+            fence.publish();
+            return;
+        }
+
+        int frameNumber = ++fence.frameNumber;
+        for (int i = 0; i < frame.getTargetCount(); i++) {
+            if (frame.isEmptyRecord(i)) {
+                continue;
+            }
+            int targetId = frame.targetId(i);
+            fence.seenInFrame[targetId] = frameNumber;
+            long mask = index.classify(frame.x(i), frame.y(i));
+            update(deviceId, fence, targetId, mask, timestamp);
+        }
+
+        // Targets missing from the frame have left the monitored space
+        for (int i = fence.activeCount - 1; i >= 0; i--) {
+            int targetId = fence.activeTargets[i];
+            if (fence.seenInFrame[targetId] != frameNumber) {
+                update(deviceId, fence, targetId, 0, timestamp);
+            }
+        }
+        fence.publish();
+    }
+
+    private void update(String deviceId, DeviceFence fence, int targetId, long mask, long timestamp) {
+        long previous = fence.membership[targetId];
+        if (mask == previous) {
+            return;
+        }
+        AreaIndex index = fence.applied;
+        long[] enterTimes = fence.enterTimes[targetId];
+        if (enterTimes == null) {
+            enterTimes = new long[AreaIndex.MAX_AREAS];
+            fence.enterTimes[targetId] = enterTimes;
+        }
+
+        long left = previous & ~mask;
+        while (left != 0) {
+            int position = Long.numberOfTrailingZeros(left);
+            left &= left - 1;
+            AreaPolygon area = index.get(position);
+            emit(new GeofenceEvent(GeofenceEvent.Kind.LEAVE, deviceId, targetId, area.getAreaId(), area.getAreaType(),
+                                   timestamp, Math.max(0, timestamp - enterTimes[position])));
+        }
+        long entered = mask & ~previous;
+        while (entered != 0) {
+            int position = Long.numberOfTrailingZeros(entered);
+            entered &= entered - 1;
+            enterTimes[position] = timestamp;
+            AreaPolygon area = index.get(position);
+            emit(new GeofenceEvent(GeofenceEvent.Kind.ENTER, deviceId, targetId, area.getAreaId(), area.getAreaType(),
+                                   timestamp, 0));
+        }
+
+        fence.membership[targetId] = mask;
+        fence.dirty = true;
+        if (previous == 0) {
+            fence.activeTargets[fence.activeCount++] = targetId;
+        } else if (mask == 0) {
+            for (int i = 0; i < fence.activeCount; i++) {
+                if (fence.activeTargets[i] == targetId) {
+                    fence.activeTargets[i] = fence.activeTargets[--fence.activeCount];
+                    break;
+                }
+            }
+        }
+    }
+
+    // Carry membership over to a changed area set, keyed by area ID; removed areas are left
+    private void remap(String deviceId, DeviceFence fence, AreaIndex index, long timestamp) {
+        AreaIndex old = fence.applied;
+        for (int i = fence.activeCount - 1; i >= 0; i--) {
+            int targetId = fence.activeTargets[i];
+            long previous = fence.membership[targetId];
+            long[] enterTimes = fence.enterTimes[targetId];
+            long[] oldEnterTimes = enterTimes.clone();
+            long kept = 0;
+            long removed = 0;
+            for (long bits = previous; bits != 0; bits &= bits - 1) {
+                int position = Long.numberOfTrailingZeros(bits);
+                int next = index.positionOf(old.get(position).getAreaId());
+                if (next >= 0) {
+                    kept |= 1L << next;
+                    enterTimes[next] = oldEnterTimes[position];
+                } else {
+                    removed |= 1L << position;
+                }
+            }
+            for (long bits = removed; bits != 0; bits &= bits - 1) {
+                int position = Long.numberOfTrailingZeros(bits);
+                AreaPolygon area = old.get(position);
+                emit(new GeofenceEvent(GeofenceEvent.Kind.LEAVE, deviceId, targetId, area.getAreaId(),
+                                       area.getAreaType(), timestamp, Math.max(0, timestamp - oldEnterTimes[position])));
+            }
+            fence.membership[targetId] = kept;
+            if (kept == 0) {
+                fence.activeTargets[i] = fence.activeTargets[--fence.activeCount];
+            }
+        }
+        fence.applied = index;
+        fence.dirty = true;
+    }
+
+    private void emit(GeofenceEvent event) {
+        log.debug("Geofence: {}", event);
+        for (GeofenceListener listener : listeners) {
+            try {
+                listener.onGeofenceEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Geofence listener failed: {}", event, e);
+            }
+        }
+    }
+
+    /**
+     * Get the IDs of the areas a target is in, from the last frame the event loop classified
+     * Safe to call from any thread
+     *
+     * @param deviceId The device ID
+     * @param targetId The target ID
+     * @return Area IDs, empty if none
+     */
+    public List<Integer> getAreasOfTarget(String deviceId, int targetId) {
+        DeviceFence fence = fences.get(deviceId);
+        if (fence == null || targetId < 0 || targetId >= MAX_TARGETS) {
+            return Collections.emptyList();
+        }
+        Membership membership = fence.published;
+        AreaIndex index = membership.index;
+        long mask = membership.masks[targetId];
+        List<Integer> areaIds = new ArrayList<>();
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            int position = Long.numberOfTrailingZeros(bits);
+            if (position < index.size()) {
+                areaIds.add(index.get(position).getAreaId());
+            }
+        }
+        return areaIds;
+    }
+
+    /**
+     * Drop the membership of a device without emitting events, e.g. when it disconnects; its areas are kept
+     * Must be called from the device's event loop
+     *
+     * @param deviceId The device ID
+     */
+    public void resetDevice(String deviceId) {
+        DeviceFence fence = fences.get(deviceId);
+        if (fence == null) {
+            return;
+        }
+        for (int i = 0; i < fence.activeCount; i++) {
+            fence.membership[fence.activeTargets[i]] = 0;
+        }
+        fence.activeCount = 0;
+        fence.dirty = true;
+        fence.publish();
+    }
+}
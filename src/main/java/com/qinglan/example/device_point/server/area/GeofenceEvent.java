@@ -0,0 +1,70 @@
+package com.qinglan.example.device_point.server.area;
+
+/**
+ * A target entering or leaving a configured area, derived by the server from type-13 trajectories
+ */
+public final class GeofenceEvent {
+
+    public enum Kind {
+        ENTER,
+        LEAVE
+    }
+
+    private final Kind kind;
+    private final String deviceId;
+    private final int targetId;
+    private final int areaId;
+    private final int areaType;
+    private final long timestamp;
+    private final long dwellMillis;
+
+    GeofenceEvent(Kind kind, String deviceId, int targetId, int areaId, int areaType, long timestamp, long dwellMillis) {
+        this.kind = kind;
+        this.deviceId = deviceId;
+        this.targetId = targetId;
+        this.areaId = areaId;
+        this.areaType = areaType;
+        this.timestamp = timestamp;
+        this.dwellMillis = dwellMillis;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public int getTargetId() {
+        return targetId;
+    }
+
+    public int getAreaId() {
+        return areaId;
+    }
+
+    public int getAreaType() {
+        return areaType;
+    }
+
+    /**
+     * Report time of the frame that showed the change, milliseconds since 1970-01-01
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Time spent in the area, LEAVE events only
+     */
+    public long getDwellMillis() {
+        return dwellMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "GeofenceEvent{" + kind + " " + deviceId + ", target=" + targetId + ", area=" + areaId
+            + ", ts=" + timestamp + (kind == Kind.LEAVE ? ", dwell=" + dwellMillis + "ms" : "") + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.qinglan.example.device_point.server.area;
+
+/**
+ * Consumer of server-derived area enter / leave events
+ * Called on the Netty event loop of the device, implementations must not block
+ */
+public interface GeofenceListener {
+
+    void onGeofenceEvent(GeofenceEvent event);
+}
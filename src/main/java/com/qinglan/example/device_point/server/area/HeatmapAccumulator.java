@@ -0,0 +1,196 @@
+package com.qinglan.example.device_point.server.area;
+
+import com.qinglan.example.device_point.server.property.DevicePropertySnapshot;
+import com.qinglan.example.device_point.server.property.DevicePropertyStore;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrame;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrameListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Where do people spend time" heatmaps of every device, fed with type-13 trajectory points
+ * - One OccupancyHeatmap per device over its rectangle property; devices that have not reported
+ *   one use the whole coordinate range until they do
+ * - Every target sample of every frame counts once, so at a steady frame rate counts are proportional to time
+ * - A background pass decays all heatmaps hourly with the configured half-life
+ * Heatmaps outlive the connection, a device reconnecting keeps its history; the heatmap of an offline device
+ * is released once its counts have decayed away
+ */
+@Slf4j
+public class HeatmapAccumulator implements TrajectoryFrameListener {
+
+    public static final String RECTANGLE_KEY = "rectangle";
+
+    private static final long DECAY_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DEFAULT_HALF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static HeatmapAccumulator instance;
+
+    private final Map<String, OccupancyHeatmap> heatmaps = new ConcurrentHashMap<>();
+
+    private volatile long halfLifeMillis = DEFAULT_HALF_LIFE_MILLIS;
+
+    private ScheduledExecutorService executor;
+
+    private HeatmapAccumulator() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized HeatmapAccumulator getInstance() {
+        if (instance == null) {
+            instance = new HeatmapAccumulator();
+        }
+        return instance;
+    }
+
+    /**
+     * Start the periodic decay, has no effect if already running
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HeatmapDecay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::decayAll, DECAY_INTERVAL_MILLIS, DECAY_INTERVAL_MILLIS,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Set how fast old visits fade out
+     *
+     * @param halfLifeMillis Time after which a count is down to half
+     */
+    public void setHalfLife(long halfLifeMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("Invalid half-life: " + halfLifeMillis);
+        }
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    public long getHalfLife() {
+        return halfLifeMillis;
+    }
+
+    /**
+     * Take the bounds of a device from its rectangle property, resets the heatmap if they changed
+     *
+     * @param deviceId The device ID
+     * @param rectangle The rectangle value
+     * @return false if the value is not a valid rectangle
+     */
+    public boolean defineBounds(String deviceId, String rectangle) {
+        float[] bounds;
+        try {
+            bounds = OccupancyHeatmap.parseBounds(rectangle);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring rectangle of {}: {}", deviceId, e.getMessage());
+            return false;
+        }
+        if (heatmap(deviceId).setBounds(bounds[0], bounds[1], bounds[2], bounds[3])) {
+            log.info("Heatmap bounds of {} set to {}", deviceId, rectangle);
+        }
+        return true;
+    }
+
+    @Override
+    public void onFrame(String deviceId, TrajectoryFrame frame) {
+        OccupancyHeatmap heatmap = heatmap(deviceId);
+        long timestamp = frame.getTimestamp();
+        // One lock per frame rather than per target
+        synchronized (heatmap) {
+            for (int i = 0; i < frame.getTargetCount(); i++) {
+                if (!frame.isEmptyRecord(i)) {
+                    heatmap.add(frame.x(i), frame.y(i), timestamp);
+                }
+            }
+        }
+    }
+
+    private OccupancyHeatmap heatmap(String deviceId) {
+        OccupancyHeatmap heatmap = heatmaps.get(deviceId);
+        if (heatmap != null) {
+            return heatmap;
+        }
+        heatmap = heatmaps.computeIfAbsent(deviceId, k -> new OccupancyHeatmap());
+        // Pick up a rectangle reported before the first trajectory frame
+        DevicePropertySnapshot properties = DevicePropertyStore.getInstance().getSnapshot(deviceId);
+        String rectangle = properties != null ? properties.get(RECTANGLE_KEY) : null;
+        if (rectangle != null) {
+            try {
+                float[] bounds = OccupancyHeatmap.parseBounds(rectangle);
+                heatmap.setBounds(bounds[0], bounds[1], bounds[2], bounds[3]);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring rectangle of {}: {}", deviceId, e.getMessage());
+            }
+        }
+        return heatmap;
+    }
+
+    /**
+     * Get the current heatmap of a device
+     *
+     * @param deviceId The device ID
+     * @return The snapshot, or null if the device never reported a trajectory or rectangle
+     */
+    public HeatmapSnapshot getSnapshot(String deviceId) {
+        OccupancyHeatmap heatmap = heatmaps.get(deviceId);
+        return heatmap != null ? heatmap.snapshot(deviceId) : null;
+    }
+
+    /**
+     * Start the heatmap of a device over, keeping its bounds
+     */
+    public void reset(String deviceId) {
+        OccupancyHeatmap heatmap = heatmaps.get(deviceId);
+        if (heatmap != null) {
+            heatmap.clear();
+        }
+    }
+
+    /**
+     * Release the heatmap of a device, e.g. when it is decommissioned
+     */
+    public void remove(String deviceId) {
+        heatmaps.remove(deviceId);
+    }
+
+    private void decayAll() {
+        try {
+            double factor = Math.pow(0.5, (double) DECAY_INTERVAL_MILLIS / halfLifeMillis);
+            Set<String> online = DeviceRegSession.getOnlineDeviceIds();
+            for (Map.Entry<String, OccupancyHeatmap> entry : heatmaps.entrySet()) {
+                OccupancyHeatmap heatmap = entry.getValue();
+                heatmap.decay(factor);
+                // Nothing left to show for a device that is gone; only this heatmap, not one a
+                // reconnecting device has created meanwhile
+                if (!online.contains(entry.getKey()) && heatmap.isEmpty()
+                    && heatmaps.remove(entry.getKey(), heatmap)) {
+                    log.debug("Heatmap of {} released", entry.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Heatmap decay failed", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.qinglan.example.device_point.server.area;
+
+/**
+ * Immutable copy of an occupancy heatmap
+ * Cells are row-major, GRID_SIZE columns per row, row 0 at minY and column 0 at minX;
+ * a cell covers (maxX - minX) / columns by (maxY - minY) / rows decimeters
+ */
+public final class HeatmapSnapshot {
+
+    private final String deviceId;
+    private final float minX;
+    private final float minY;
+    private final float maxX;
+    private final float maxY;
+    private final int columns;
+    private final int rows;
+    private final double[] cells;
+    private final double outside;
+    private final long since;
+    private final long updated;
+
+    HeatmapSnapshot(String deviceId, float minX, float minY, float maxX, float maxY, int columns, int rows,
+                    double[] cells, double outside, long since, long updated) {
+        this.deviceId = deviceId;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = cells;
+        this.outside = outside;
+        this.since = since;
+        this.updated = updated;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Decayed sample counts, a copy; fractional once decayed
+     */
+    public double[] getCells() {
+        return cells.clone();
+    }
+
+    public double getCount(int column, int row) {
+        return cells[row * columns + column];
+    }
+
+    /**
+     * Decayed count of samples outside the bounds
+     */
+    public double getOutside() {
+        return outside;
+    }
+
+    /**
+     * When counting started, server time of the last bounds change or reset
+     */
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * Report time of the last counted sample, 0 if none
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    public double getTotal() {
+        double total = 0;
+        for (double count : cells) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Cells scaled to 0-255 relative to the busiest cell, one byte per cell for the UI
+     * Any visited cell maps to at least 1, so it stays distinguishable from a never visited one
+     */
+    public byte[] toLevels() {
+        double max = 0;
+        for (double count : cells) {
+            max = Math.max(max, count);
+        }
+        byte[] levels = new byte[cells.length];
+        if (max == 0) {
+            return levels;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != 0) {
+                levels[i] = (byte) Math.max(1, (int) (cells[i] * 255 / max));
+            }
+        }
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        return "HeatmapSnapshot{" + deviceId + ", " + columns + "x" + rows + " over [" + minX + "," + minY
+            + "]-[" + maxX + "," + maxY + "], total=" + Math.round(getTotal()) + ", outside=" + Math.round(outside) + "}";
+    }
+}
@@ -0,0 +1,163 @@
+package com.qinglan.example.device_point.server.area;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy heatmap of one device: trajectory points binned into a fixed grid over the detection bounds
+ * - Cells are a double array of GRID_SIZE x GRID_SIZE sample counts, row-major with row 0 at the lowest y;
+ *   memory stays the same however much traffic the device sends
+ * - decay scales every cell down in place, so old visits fade out instead of dominating forever; counts keep
+ *   their fraction, a cell of a few samples fades at the half-life like a busy one, and is only dropped once
+ *   below MIN_COUNT
+ * - Changing the bounds starts the grid over, counts of the old geometry mean nothing in the new one
+ * Points outside the bounds are only counted, see HeatmapSnapshot.getOutside
+ */
+public class OccupancyHeatmap {
+
+    public static final int GRID_SIZE = 32;
+
+    // Whole signed byte range of the type-13 x / y, used until the device reports its rectangle
+    public static final float DEFAULT_MIN = Byte.MIN_VALUE;
+    public static final float DEFAULT_MAX = Byte.MAX_VALUE + 1;
+
+    // Decayed counts below this are dropped, so long-gone visits do not linger as tiny fractions
+    public static final double MIN_COUNT = 0.5;
+
+    private final double[] cells = new double[GRID_SIZE * GRID_SIZE];
+
+    private float minX = DEFAULT_MIN;
+    private float minY = DEFAULT_MIN;
+    private float maxX = DEFAULT_MAX;
+    private float maxY = DEFAULT_MAX;
+    private float columnsPerUnit = GRID_SIZE / (DEFAULT_MAX - DEFAULT_MIN);
+    private float rowsPerUnit = GRID_SIZE / (DEFAULT_MAX - DEFAULT_MIN);
+    private double outside;
+    private long since = System.currentTimeMillis();
+    private long updated;
+
+    /**
+     * Parse a rectangle property into its bounding box
+     * Format: {x1, y1; x2, y2, x3, y3, x4, y4}, braces optional, separators ',' or ';', decimeters
+     *
+     * @param rectangle The property value
+     * @return {minX, minY, maxX, maxY}
+     * @throws IllegalArgumentException If the value does not hold four vertices spanning an area
+     */
+    public static float[] parseBounds(String rectangle) {
+        if (rectangle == null) {
+            throw new IllegalArgumentException("Rectangle is null");
+        }
+        String body = rectangle.trim();
+        if (body.startsWith("{") && body.endsWith("}")) {
+            body = body.substring(1, body.length() - 1);
+        }
+        String[] tokens = body.replace(';', ',').split(",");
+        if (tokens.length != 8) {
+            throw new IllegalArgumentException("Rectangle needs four vertices: " + rectangle);
+        }
+        float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        try {
+            for (int i = 0; i < tokens.length; i += 2) {
+                float x = Float.parseFloat(tokens[i].trim());
+                float y = Float.parseFloat(tokens[i + 1].trim());
+                bounds[0] = Math.min(bounds[0], x);
+                bounds[1] = Math.min(bounds[1], y);
+                bounds[2] = Math.max(bounds[2], x);
+                bounds[3] = Math.max(bounds[3], y);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in rectangle: " + rectangle, e);
+        }
+        if (bounds[2] <= bounds[0] || bounds[3] <= bounds[1]) {
+            throw new IllegalArgumentException("Rectangle has no area: " + rectangle);
+        }
+        return bounds;
+    }
+
+    /**
+     * Set the detection bounds, resetting the grid if they changed
+     *
+     * @return true if the bounds changed
+     */
+    public synchronized boolean setBounds(float minX, float minY, float maxX, float maxY) {
+        if (minX == this.minX && minY == this.minY && maxX == this.maxX && maxY == this.maxY) {
+            return false;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.columnsPerUnit = GRID_SIZE / (maxX - minX);
+        this.rowsPerUnit = GRID_SIZE / (maxY - minY);
+        clear();
+        return true;
+    }
+
+    /**
+     * Count one trajectory sample
+     *
+     * @param x X in decimeters
+     * @param y Y in decimeters
+     * @param timestamp Report time
+     */
+    public synchronized void add(float x, float y, long timestamp) {
+        updated = timestamp;
+        if (x < minX || x >= maxX || y < minY || y >= maxY) {
+            outside++;
+            return;
+        }
+        // Float rounding may land a point just below the upper bound in cell GRID_SIZE
+        int column = Math.min(GRID_SIZE - 1, (int) ((x - minX) * columnsPerUnit));
+        int row = Math.min(GRID_SIZE - 1, (int) ((y - minY) * rowsPerUnit));
+        cells[row * GRID_SIZE + column]++;
+    }
+
+    /**
+     * Scale every count down
+     *
+     * @param factor Retained fraction, 0-1
+     */
+    public synchronized void decay(double factor) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != 0) {
+                double count = cells[i] * factor;
+                cells[i] = count >= MIN_COUNT ? count : 0;
+            }
+        }
+        outside = outside * factor >= MIN_COUNT ? outside * factor : 0;
+    }
+
+    /**
+     * Whether nothing is counted, never or because every count has decayed away
+     */
+    public synchronized boolean isEmpty() {
+        if (outside != 0) {
+            return false;
+        }
+        for (double count : cells) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forget all counts
+     */
+    public synchronized void clear() {
+        Arrays.fill(cells, 0);
+        outside = 0;
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Copy the current state
+     *
+     * @param deviceId The device ID the snapshot is labeled with
+     */
+    public synchronized HeatmapSnapshot snapshot(String deviceId) {
+        return new HeatmapSnapshot(deviceId, minX, minY, maxX, maxY, GRID_SIZE, GRID_SIZE,
+                                   cells.clone(), outside, since, updated);
+    }
+}
@@ -0,0 +1,140 @@
+package com.qinglan.example.device_point.server.area;
+
+import java.util.Arrays;
+
+/**
+ * Change-only history of the people count of one device (type 16)
+ * - Only transitions are stored as (timestamp, count) pairs, repeated counts extend the current run,
+ *   so storage grows with activity rather than frame rate
+ * - A running sum of occupied time at every transition answers range queries with two binary searches
+ * - The oldest quarter is dropped when MAX_TRANSITIONS is reached
+ * Timestamps are report times in milliseconds since 1970-01-01 and never go backwards
+ */
+public class OccupancyTimeline {
+
+    public static final int MAX_TRANSITIONS = 16384;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    // Occupied time before each transition, measured from the first one ever recorded
+    private long[] occupiedBefore = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // Report time of the latest frame, the current run is known to last until then
+    private volatile long lastReport;
+
+    /**
+     * Record a reported count
+     *
+     * @param timestamp Report time
+     * @param count People count
+     * @return true if the count changed
+     */
+    public synchronized boolean record(long timestamp, int count) {
+        long time = Math.max(timestamp, lastReport);
+        lastReport = time;
+        if (size > 0 && counts[size - 1] == count) {
+            return false;
+        }
+        if (size == times.length) {
+            grow();
+        }
+        long occupied = 0;
+        if (size > 0) {
+            int last = size - 1;
+            occupied = occupiedBefore[last] + (counts[last] > 0 ? time - times[last] : 0);
+        }
+        times[size] = time;
+        counts[size] = count;
+        occupiedBefore[size] = occupied;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        if (times.length < MAX_TRANSITIONS) {
+            int capacity = Math.min(times.length * 2, MAX_TRANSITIONS);
+            times = Arrays.copyOf(times, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            occupiedBefore = Arrays.copyOf(occupiedBefore, capacity);
+            return;
+        }
+        // Running sums stay valid after dropping a prefix, queries only use differences
+        int drop = MAX_TRANSITIONS / 4;
+        size -= drop;
+        System.arraycopy(times, drop, times, 0, size);
+        System.arraycopy(counts, drop, counts, 0, size);
+        System.arraycopy(occupiedBefore, drop, occupiedBefore, 0, size);
+    }
+
+    /**
+     * Get the people count at a point in time
+     *
+     * @param timestamp The time
+     * @return The count, or -1 if the time is before the retained history or after the latest report
+     */
+    public synchronized int countAt(long timestamp) {
+        int index = floor(timestamp);
+        return index >= 0 && timestamp <= lastReport ? counts[index] : -1;
+    }
+
+    /**
+     * Time with at least one person present within a range, limited to the retained history
+     *
+     * @param fromMillis Range start
+     * @param toMillis Range end
+     * @return Occupied milliseconds
+     */
+    public synchronized long occupiedMillis(long fromMillis, long toMillis) {
+        if (size == 0) {
+            return 0;
+        }
+        long to = Math.min(toMillis, lastReport);
+        long from = Math.max(fromMillis, times[0]);
+        if (to <= from) {
+            return 0;
+        }
+        return occupiedUntil(to) - occupiedUntil(from);
+    }
+
+    // Running occupied time up to a point inside the retained history
+    private long occupiedUntil(long timestamp) {
+        int index = floor(timestamp);
+        return occupiedBefore[index] + (counts[index] > 0 ? timestamp - times[index] : 0);
+    }
+
+    // Index of the last transition at or before the time, -1 if none
+    private int floor(long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * The latest reported count, -1 if none
+     */
+    public synchronized int getCurrentCount() {
+        return size > 0 ? counts[size - 1] : -1;
+    }
+
+    public long getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Number of retained transitions
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
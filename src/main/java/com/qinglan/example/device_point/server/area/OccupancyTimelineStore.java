@@ -0,0 +1,71 @@
+package com.qinglan.example.device_point.server.area;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * People count timelines of all devices, fed by NumberOfPeopleHandler
+ * Timelines outlive the connection so history stays queryable after a device goes offline
+ */
+public class OccupancyTimelineStore {
+
+    private static final OccupancyTimelineStore instance = new OccupancyTimelineStore();
+
+    private final Map<String, OccupancyTimeline> timelines = new ConcurrentHashMap<>();
+
+    private OccupancyTimelineStore() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static OccupancyTimelineStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record a reported people count
+     *
+     * @param deviceId The device ID
+     * @param timestamp Report time
+     * @param count People count
+     * @return true if the count changed
+     */
+    public boolean record(String deviceId, long timestamp, int count) {
+        return timelines.computeIfAbsent(deviceId, k -> new OccupancyTimeline()).record(timestamp, count);
+    }
+
+    /**
+     * Get the timeline of a device
+     *
+     * @param deviceId The device ID
+     * @return The timeline, or null if the device never reported a count
+     */
+    public OccupancyTimeline getTimeline(String deviceId) {
+        return timelines.get(deviceId);
+    }
+
+    /**
+     * Get the people count of a device at a point in time
+     *
+     * @return The count, or -1 if unknown
+     */
+    public int countAt(String deviceId, long timestamp) {
+        OccupancyTimeline timeline = timelines.get(deviceId);
+        return timeline != null ? timeline.countAt(timestamp) : -1;
+    }
+
+    /**
+     * Time a device saw at least one person within a range
+     *
+     * @return Occupied milliseconds
+     */
+    public long occupiedMillis(String deviceId, long fromMillis, long toMillis) {
+        OccupancyTimeline timeline = timelines.get(deviceId);
+        return timeline != null ? timeline.occupiedMillis(fromMillis, toMillis) : 0;
+    }
+
+    public void remove(String deviceId) {
+        timelines.remove(deviceId);
+    }
+}
@@ -0,0 +1,128 @@
+package com.qinglan.example.device_point.server.event;
+
+import com.qinglan.example.device_point.server.alert.FallAlert;
+import com.qinglan.example.device_point.server.alert.FallIncidentListener;
+import com.qinglan.example.device_point.server.area.GeofenceEvent;
+import com.qinglan.example.device_point.server.area.GeofenceListener;
+import com.qinglan.example.device_point.server.vital.VitalAnomalyEvent;
+import com.qinglan.example.device_point.server.vital.VitalAnomalyListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent server-derived events of every device, for the REST API
+ * - Keeps the last MAX_EVENTS events per device, oldest dropped first
+ * - Registered as a listener on the engines that publish events; recording never blocks the caller for long
+ * Logs outlive the connection, a device reconnecting keeps its recent events
+ */
+public class DeviceEventLog implements FallIncidentListener, GeofenceListener, VitalAnomalyListener {
+
+    static final int MAX_EVENTS = 100;
+
+    private static DeviceEventLog instance;
+
+    private final Map<String, ArrayDeque<Entry>> logs = new ConcurrentHashMap<>();
+
+    private DeviceEventLog() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized DeviceEventLog getInstance() {
+        if (instance == null) {
+            instance = new DeviceEventLog();
+        }
+        return instance;
+    }
+
+    @Override
+    public void onFallAlert(FallAlert alert) {
+        record(alert.getDeviceId(), "FALL_ALERT", alert.getTimestamp(), alert);
+    }
+
+    @Override
+    public void onGeofenceEvent(GeofenceEvent event) {
+        record(event.getDeviceId(), "GEOFENCE", event.getTimestamp(), event);
+    }
+
+    @Override
+    public void onAnomaly(VitalAnomalyEvent event) {
+        record(event.getDeviceId(), "VITAL_ANOMALY", event.getTimestamp(), event);
+    }
+
+    private void record(String deviceId, String type, long timestamp, Object event) {
+        if (deviceId == null) {
+            return;
+        }
+        ArrayDeque<Entry> events = logs.computeIfAbsent(deviceId, k -> new ArrayDeque<>());
+        synchronized (events) {
+            events.addLast(new Entry(type, timestamp, event));
+            if (events.size() > MAX_EVENTS) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Get the recent events of a device, oldest first
+     *
+     * @param deviceId The device ID
+     * @return The events, empty if none
+     */
+    public List<Entry> getRecent(String deviceId) {
+        ArrayDeque<Entry> events = logs.get(deviceId);
+        if (events == null) {
+            return Collections.emptyList();
+        }
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * Drop the events of a device
+     */
+    public void remove(String deviceId) {
+        logs.remove(deviceId);
+    }
+
+    /**
+     * One recorded event
+     */
+    public static final class Entry {
+
+        private final String type;
+        private final long timestamp;
+        private final Object event;
+
+        Entry(String type, long timestamp, Object event) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.event = event;
+        }
+
+        /**
+         * Event type: FALL_ALERT, GEOFENCE or VITAL_ANOMALY
+         */
+        public String getType() {
+            return type;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * The event object: FallAlert, GeofenceEvent or VitalAnomalyEvent
+         */
+        public Object getEvent() {
+            return event;
+        }
+    }
+}
@@ -1,20 +1,46 @@
 package com.qinglan.example.device_point.server.handle;
 
 
-import com.google.protobuf.ByteString;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
+import com.qinglan.example.device_point.server.vital.VitalFrame;
+import com.qinglan.example.device_point.server.vital.VitalFrameListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @ChannelHandler.Sharable
 @Slf4j
 public class BreathDateHandler extends SimpleChannelInboundHandler<ServerLBSInfo.ObjectData> {
 
+    // One reusable frame view per event loop thread
+    private static final FastThreadLocal<VitalFrame> FRAME = new FastThreadLocal<VitalFrame>() {
+        @Override
+        protected VitalFrame initialValue() {
+            return new VitalFrame();
+        }
+    };
+
+    // Downstream consumers of decoded frames
+    private static final CopyOnWriteArrayList<VitalFrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Register a consumer of decoded breath / heart rate frames
+     */
+    public static void addFrameListener(VitalFrameListener listener) {
+        frameListeners.addIfAbsent(listener);
+    }
+
+    public static void removeFrameListener(VitalFrameListener listener) {
+        frameListeners.remove(listener);
+    }
+
     /**
      * 呼吸心率
      * Respiratory heart rate
@@ -25,10 +51,23 @@ public class BreathDateHandler extends SimpleChannelInboundHandler<ServerLBSInfo
     protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.ObjectData msg) {
 
         try {
-            ByteString data = msg.getData();
-            byte[] r = data.toByteArray();
+            String uid = DeviceRegSession.getUidByChannelId(ctx.channel().id());
+            TelemetryJournal.getInstance().append(uid, 14, msg);
+            VitalFrame frame = FRAME.get().wrap(msg.getData(), msg.getSeconds(), msg.getMseconds());
+
+            if (log.isDebugEnabled()) {
+                log.debug("收到雷达breath rate数据------>{} {}", uid, frame);
+            }
 
-            log.info("收到雷达breath rate数据------>{}", Arrays.toString(r));
+            if (uid != null && frame.isValid()) {
+                for (VitalFrameListener listener : frameListeners) {
+                    try {
+                        listener.onFrame(uid, frame);
+                    } catch (RuntimeException e) {
+                        log.error("Vital frame listener failed: deviceId={}", uid, e);
+                    }
+                }
+            }
         } finally {
             ReferenceCountUtil.release(msg);
         }
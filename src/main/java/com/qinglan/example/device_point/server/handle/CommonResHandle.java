@@ -1,6 +1,5 @@
 package com.qinglan.example.device_point.server.handle;
 
-import com.alibaba.fastjson2.JSONObject;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
 import com.qinglan.example.device_point.server.util.SpringUtils;
@@ -28,11 +27,8 @@ public class CommonResHandle extends SimpleChannelInboundHandler<ServerLBSInfo.C
             int type = 26;
             String channelId = ctx.channel().id().asLongText();
             String key = String.valueOf(type + channelId);
-            JSONObject res = new JSONObject();
-            res.put("result", msg.getResult());
-            res.put("errmsg", msg.getErrmsg());
-            res.put("seq", msg.getSeq());
-            deviceRegSession.setReceiveMsg(key, res.toJSONString());
+            // Hand the immutable reply over as is, JSON is produced only if a caller needs it
+            deviceRegSession.setReceiveMsg(key, msg);
         } finally {
             ReferenceCountUtil.release(msg);
         }
@@ -1,8 +1,13 @@
 package com.qinglan.example.device_point.server.handle;
 
 import com.google.protobuf.ByteString;
+import com.qinglan.example.device_point.server.alert.FallAlertDispatcher;
+import com.qinglan.example.device_point.server.alert.FallEvent;
+import com.qinglan.example.device_point.server.alert.FallStatus;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.protocol.StampedMessage;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -11,21 +16,46 @@ import lombok.extern.slf4j.Slf4j;
 
 @ChannelHandler.Sharable
 @Slf4j
-public class FallDownHandler extends SimpleChannelInboundHandler<ServerLBSInfo.ObjectFallDown> {
+public class FallDownHandler extends SimpleChannelInboundHandler<StampedMessage> {
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) {
+        return msg instanceof StampedMessage && ((StampedMessage) msg).getMessage() instanceof ServerLBSInfo.ObjectFallDown;
+    }
 
     /**
      * 跌倒
-     * Trajectory event
+     * Fall down, decoded here and dispatched on the fall alert thread
+     * falls: (id, FallStatus) byte pairs; latency is measured from the socket read stamped by the decoder
      * @param ctx
-     * @param msg
+     * @param stamped
      * @throws Exception
      */
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.ObjectFallDown msg) throws Exception {
+    protected void channelRead0(ChannelHandlerContext ctx, StampedMessage stamped) throws Exception {
+        ServerLBSInfo.ObjectFallDown msg = (ServerLBSInfo.ObjectFallDown) stamped.getMessage();
+        long ingestNanos = stamped.getIngestNanos();
         try {
             String uid = DeviceRegSession.getUidByChannelId(ctx.channel().id());
             ByteString falls = msg.getFalls();
-            log.info("-------uid:{}------fall-status:{}----------", uid, falls);
+            if (uid != null) {
+                // Fall back to the receive time, incidents and the trajectory lookback are keyed on it
+                long timestamp = msg.getSeconds() != 0
+                    ? (msg.getSeconds() & 0xFFFFFFFFL) * 1000L + msg.getMseconds() : System.currentTimeMillis();
+                FallAlertDispatcher dispatcher = FallAlertDispatcher.getInstance();
+                for (int i = 0; i + 1 < falls.size(); i += 2) {
+                    int targetId = falls.byteAt(i) & 0xFF;
+                    FallStatus status = FallStatus.fromCode(falls.byteAt(i + 1) & 0xFF);
+                    if (status == null) {
+                        log.warn("Unknown fall status: uid={}, target={}, status={}", uid, targetId, falls.byteAt(i + 1) & 0xFF);
+                        continue;
+                    }
+                    dispatcher.dispatch(new FallEvent(uid, targetId, status, timestamp, ingestNanos));
+                }
+            }
+            // Journal after dispatching, the alert must not wait for the copy
+            TelemetryJournal.getInstance().append(uid, 5, msg);
+            log.debug("-------uid:{}------fall-status:{}----------", uid, falls);
         } finally {
             ReferenceCountUtil.release(msg);
         }
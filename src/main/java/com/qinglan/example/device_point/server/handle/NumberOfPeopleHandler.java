@@ -1,7 +1,10 @@
 package com.qinglan.example.device_point.server.handle;
 
 import com.google.protobuf.ByteString;
+import com.qinglan.example.device_point.server.area.OccupancyTimelineStore;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -13,8 +16,8 @@ import lombok.extern.slf4j.Slf4j;
 public class NumberOfPeopleHandler extends SimpleChannelInboundHandler<ServerLBSInfo.NumberOfPeopleData> {
 
     /**
-     * 跌倒
-     * Trajectory event
+     * 人数
+     * Number of people, only changes are recorded and logged
      * @param ctx
      * @param msg
      * @throws Exception
@@ -22,9 +25,19 @@ public class NumberOfPeopleHandler extends SimpleChannelInboundHandler<ServerLBS
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.NumberOfPeopleData msg) throws Exception {
         try {
+            String uid = DeviceRegSession.getUidByChannelId(ctx.channel().id());
+            TelemetryJournal.getInstance().append(uid, 16, msg);
             ByteString number = msg.getData();
-            byte[] bytes = number.toByteArray();
-            log.info("-------------number-people:{}----------", bytes[0]);
+            if (uid == null || number.isEmpty()) {
+                return;
+            }
+            int count = number.byteAt(0) & 0xFF;
+            // Fall back to the receive time, a zero device clock would pin every change to the epoch
+            long timestamp = msg.getSeconds() != 0
+                ? (msg.getSeconds() & 0xFFFFFFFFL) * 1000L + msg.getMseconds() : System.currentTimeMillis();
+            if (OccupancyTimelineStore.getInstance().record(uid, timestamp, count)) {
+                log.info("-------uid:{}------number-people:{}----------", uid, count);
+            }
         } finally {
             ReferenceCountUtil.release(msg);
         }
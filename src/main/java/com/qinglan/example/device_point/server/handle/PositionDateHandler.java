@@ -1,20 +1,45 @@
 package com.qinglan.example.device_point.server.handle;
 
 
-import com.google.protobuf.ByteString;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrame;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryFrameListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @ChannelHandler.Sharable
 @Slf4j
 public class PositionDateHandler extends SimpleChannelInboundHandler<ServerLBSInfo.PositionData> {
 
+    // One reusable frame view per event loop thread
+    private static final FastThreadLocal<TrajectoryFrame> FRAME = new FastThreadLocal<TrajectoryFrame>() {
+        @Override
+        protected TrajectoryFrame initialValue() {
+            return new TrajectoryFrame();
+        }
+    };
+
+    // Downstream consumers of decoded frames
+    private static final CopyOnWriteArrayList<TrajectoryFrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Register a consumer of decoded trajectory frames
+     */
+    public static void addFrameListener(TrajectoryFrameListener listener) {
+        frameListeners.addIfAbsent(listener);
+    }
+
+    public static void removeFrameListener(TrajectoryFrameListener listener) {
+        frameListeners.remove(listener);
+    }
 
     /**
      * 轨迹
@@ -27,10 +52,23 @@ public class PositionDateHandler extends SimpleChannelInboundHandler<ServerLBSIn
     protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.PositionData msg) {
 
         try {
-            ByteString data = msg.getData();
-            byte[] r = data.toByteArray();
+            TrajectoryFrame frame = FRAME.get().wrap(msg.getData(), msg.getSeconds(), msg.getMseconds());
+            String deviceId = DeviceRegSession.getUidByChannelId(ctx.channel().id());
+            TelemetryJournal.getInstance().append(deviceId, 13, msg);
+
+            if (log.isDebugEnabled()) {
+                log.debug("收到雷达轨迹数据------>{} {}", deviceId, frame);
+            }
 
-            log.info("收到雷达轨迹数据------>{}", Arrays.toString(r));
+            if (deviceId != null) {
+                for (TrajectoryFrameListener listener : frameListeners) {
+                    try {
+                        listener.onFrame(deviceId, frame);
+                    } catch (RuntimeException e) {
+                        log.error("Trajectory frame listener failed: deviceId={}", deviceId, e);
+                    }
+                }
+            }
         } finally {
             ReferenceCountUtil.release(msg);
         }
@@ -1,19 +1,29 @@
 package com.qinglan.example.device_point.server.handle;
 
+import com.qinglan.example.device_point.server.area.AreaEventFrame;
+import com.qinglan.example.device_point.server.area.AreaOccupancyTracker;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Arrays;
-
 @ChannelHandler.Sharable
 @Slf4j
 public class PositionEventHandler extends SimpleChannelInboundHandler<ServerLBSInfo.PositionStatusEvent> {
 
+    // One reusable frame view per event loop thread
+    private static final FastThreadLocal<AreaEventFrame> FRAME = new FastThreadLocal<AreaEventFrame>() {
+        @Override
+        protected AreaEventFrame initialValue() {
+            return new AreaEventFrame();
+        }
+    };
+
     /**
      * 轨迹事件
      * Trajectory event
@@ -25,9 +35,15 @@ public class PositionEventHandler extends SimpleChannelInboundHandler<ServerLBSI
     protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.PositionStatusEvent msg) throws Exception {
         try {
             String uid = DeviceRegSession.getUidByChannelId(ctx.channel().id());
-            byte[] event = msg.getEvents().toByteArray();
-            byte[] area = msg.getAreas().toByteArray();
-            log.info("-----uid:{}--------event:{}----area: {}------", uid, Arrays.toString(event), Arrays.toString(area));
+            TelemetryJournal.getInstance().append(uid, 15, msg);
+            AreaEventFrame frame = FRAME.get().wrap(msg.getEvents(), msg.getAreas(), msg.getSeconds(), msg.getMseconds());
+            if (log.isDebugEnabled()) {
+                log.debug("-----uid:{}--------{}------", uid, frame);
+            }
+
+            if (uid != null) {
+                AreaOccupancyTracker.getInstance().onFrame(uid, frame);
+            }
         } finally {
             ReferenceCountUtil.release(msg);
         }
@@ -1,19 +1,32 @@
 package com.qinglan.example.device_point.server.handle;
 
+import com.qinglan.example.device_point.server.activity.ActivityAggregator;
+import com.qinglan.example.device_point.server.activity.ActivityFrame;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
 @ChannelHandler.Sharable
 @Slf4j
 public class PositionStatisticHandler extends SimpleChannelInboundHandler<ServerLBSInfo.PositionStatisticReport> {
 
+    // One reusable frame view per event loop thread
+    private static final FastThreadLocal<ActivityFrame> FRAME = new FastThreadLocal<ActivityFrame>() {
+        @Override
+        protected ActivityFrame initialValue() {
+            return new ActivityFrame();
+        }
+    };
+
     /**
-     * 轨迹事件
-     * Trajectory event
+     * 轨迹统计
+     * Trajectory statistics, one frame per minute
      * @param ctx
      * @param msg
      * @throws Exception
@@ -21,7 +34,14 @@ public class PositionStatisticHandler extends SimpleChannelInboundHandler<Server
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ServerLBSInfo.PositionStatisticReport msg) throws Exception {
         try {
-            log.info("-------------statistic:{}----------", msg.getData());
+            String uid = DeviceRegSession.getUidByChannelId(ctx.channel().id());
+            TelemetryJournal.getInstance().append(uid, 19, msg);
+            ActivityFrame frame = FRAME.get().wrap(msg.getData(), msg.getSeconds(), msg.getMseconds());
+            log.info("-------------statistic:{} {}----------", uid, frame);
+
+            if (uid != null) {
+                ActivityAggregator.getInstance().onFrame(uid, frame);
+            }
         } finally {
             ReferenceCountUtil.release(msg);
         }
@@ -1,7 +1,14 @@
 package com.qinglan.example.device_point.server.handle;
 
-import com.alibaba.fastjson2.JSONObject;
+import com.qinglan.example.device_point.server.area.GeofenceEngine;
+import com.qinglan.example.device_point.server.area.HeatmapAccumulator;
 import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.property.DevicePropertySnapshot;
+import com.qinglan.example.device_point.server.property.PropertyChange;
+import com.qinglan.example.device_point.server.property.DevicePropertyStore;
+import com.qinglan.example.device_point.server.property.PropertyQueryCoalescer;
+import com.qinglan.example.device_point.server.property.PropertySweepScheduler;
+import com.qinglan.example.device_point.server.property.PropertyUpdate;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
 import com.qinglan.example.device_point.server.util.SpringUtils;
 import com.qinglan.example.device_point.ui.EventBus;
@@ -13,7 +20,9 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -34,8 +43,11 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
     // Counter for generating sequence numbers
     private static final AtomicInteger seqCounter = new AtomicInteger(1);
     
-    // Cache of recent property values for each device
-    private static final Map<String, Map<String, String>> devicePropertiesCache = new HashMap<>();
+    // Versioned cache of recent property values for each device
+    private static final DevicePropertyStore propertyStore = DevicePropertyStore.getInstance();
+    
+    // Coalesces concurrent queries so they share one type-11 round trip per device
+    private static final PropertyQueryCoalescer queryCoalescer = new PropertyQueryCoalescer();
 
     /**
      * Handle property response messages from devices
@@ -46,53 +58,56 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
             // Get properties from the message
             List<ServerLBSInfo.ProPertyItem> propertiesList = msg.getPropertiesList();
             
-            // Convert to JSON for caching
-            JSONObject jsonObject = new JSONObject();
-            Map<String, String> propertyMap = new HashMap<>();
+            // Collect into an ordered map, shared read-only with any waiting query
+            Map<String, String> propertyMap = new LinkedHashMap<>();
+            // The device repeats declare_area once per area, each is kept under its own key
+            List<String> areas = new ArrayList<>();
             
             for (ServerLBSInfo.ProPertyItem proPertyItem : propertiesList) {
                 String key = proPertyItem.getKey();
                 String value = proPertyItem.getValue();
-                
-                jsonObject.put(key, value);
+                if (GeofenceEngine.AREA_KEY.equals(key)) {
+                    areas.add(value);
+                    key = GeofenceEngine.areaKey(value);
+                }
                 propertyMap.put(key, value);
             }
             
             // Get device ID
             String deviceId = DeviceRegSession.getUidByChannelId(ctx.channel().id());
             
-            // Cache the properties
-            if (deviceId != null) {
-                synchronized (devicePropertiesCache) {
-                    if (!devicePropertiesCache.containsKey(deviceId)) {
-                        devicePropertiesCache.put(deviceId, new HashMap<>());
-                    }
-                    devicePropertiesCache.get(deviceId).putAll(propertyMap);
-                }
-            }
-            
             // Create response key
             int type = 11;
             String channelId = ctx.channel().id().asLongText();
             String key = type + channelId;
+            // Sweep replies usually have no waiter
+            boolean awaited = DeviceRegSession.responseMsgCache.getIfPresent(key) != null;
+            
+            // Cache the properties once here; a queried full response replaces the previous snapshot
+            PropertyUpdate update = null;
+            if (deviceId != null) {
+                update = awaited ? propertyStore.replace(deviceId, propertyMap) : propertyStore.merge(deviceId, propertyMap);
+            }
+            
+            // A reply lists every area, keep server-side geofencing in line with it
+            if (deviceId != null && !propertiesList.isEmpty()) {
+                GeofenceEngine.getInstance().syncAreas(deviceId, areas);
+            }
             
             // Store in session cache for waiting requests
-            deviceRegSession.setReceiveMsg(key, jsonObject.toJSONString());
+            if (awaited) {
+                deviceRegSession.setReceiveMsg(key, Collections.unmodifiableMap(propertyMap));
+            }
+            if (deviceId != null) {
+                PropertySweepScheduler.getInstance().onPropertiesReceived(deviceId);
+            }
             
             // Log properties
             log.info("Received {} properties from device {}", propertiesList.size(), deviceId);
             
-            // Notify UI of the received properties
-            if (deviceId != null) {
-                String propsDisplay = propertiesList.stream()
-                    .map(prop -> prop.getKey() + "=" + prop.getValue())
-                    .collect(Collectors.joining(", "));
-                
-                EventBus.getInstance().postMessageReceived(
-                    deviceId, 
-                    "RECV", 
-                    "Device Properties: " + propsDisplay
-                );
+            // Publish only the keys that changed
+            if (update != null) {
+                publishChanges(update);
             }
             
         } catch (Exception e) {
@@ -102,6 +117,34 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
         }
     }
     
+    /**
+     * Post the keys changed by a property update to the UI and other subscribers
+     * 
+     * @param update The applied update
+     */
+    private static void publishChanges(PropertyUpdate update) {
+        if (!update.hasChanges()) {
+            return;
+        }
+        DevicePropertySnapshot snapshot = update.getCurrent();
+        for (PropertyChange change : update.getChanges()) {
+            // Heatmap grid follows the detection bounds
+            if (HeatmapAccumulator.RECTANGLE_KEY.equals(change.getKey()) && change.getNewValue() != null) {
+                HeatmapAccumulator.getInstance().defineBounds(snapshot.getDeviceId(), change.getNewValue());
+            }
+        }
+        EventBus.getInstance().postPropertiesChanged(snapshot.getDeviceId(), snapshot.getVersion(), update.getChanges());
+        
+        String changesDisplay = update.getChanges().stream()
+            .map(PropertyChange::toString)
+            .collect(Collectors.joining(", "));
+        EventBus.getInstance().postMessageReceived(
+            snapshot.getDeviceId(), 
+            "RECV", 
+            "Device Properties Changed: " + changesDisplay
+        );
+    }
+    
     /**
      * Send a request to get device properties
      * 
@@ -109,6 +152,17 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
      * @return The sequence number of the request, or -1 if failed
      */
     public static int sendGetPropertiesRequest(Channel channel) {
+        return sendGetPropertiesRequest(channel, true);
+    }
+    
+    /**
+     * Send a request to get device properties
+     * 
+     * @param channel The device channel
+     * @param notifyUi Whether to post the request to the UI message log
+     * @return The sequence number of the request, or -1 if failed
+     */
+    public static int sendGetPropertiesRequest(Channel channel, boolean notifyUi) {
         if (channel == null || !channel.isActive()) {
             log.warn("Cannot get properties, channel is null or inactive");
             return -1;
@@ -130,7 +184,7 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
                      deviceId != null ? deviceId : "unknown", seq);
             
             // Notify UI
-            if (deviceId != null) {
+            if (notifyUi && deviceId != null) {
                 EventBus.getInstance().postMessageSent(
                     deviceId, 
                     "SEND", 
@@ -147,11 +201,33 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
     
     /**
      * Query all properties from a device
+     * Concurrent callers for the same device share one request, and a result
+     * younger than the coalescer's freshness bound is returned without asking again
      * 
      * @param deviceId The device ID
      * @return Map of property keys to values, or null if failed
      */
     public static Map<String, String> queryDeviceProperties(String deviceId) {
+        return queryCoalescer.query(deviceId, ProItemsHandler::requestDeviceProperties);
+    }
+    
+    /**
+     * Whether a coalesced property query is waiting for the device
+     *
+     * @param deviceId The device ID
+     * @return True if a query is outstanding
+     */
+    public static boolean isPropertyQueryPending(String deviceId) {
+        return queryCoalescer.isPending(deviceId);
+    }
+    
+    /**
+     * Send a property request and wait for the device response
+     * 
+     * @param deviceId The device ID
+     * @return Map of property keys to values, or null if failed
+     */
+    private static Map<String, String> requestDeviceProperties(String deviceId) {
         DeviceRegSession session = SpringUtils.getBean(DeviceRegSession.class);
         Channel channel = session.isReg(deviceId);
         
@@ -171,46 +247,53 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
                 return null;
             }
             
-            // Wait for response
-            String response = session.waitReceiveMsg(responseKey);
-            if (response == null) {
-                log.warn("Query properties timeout: {}", deviceId);
+            // Wait for response, delivered as the reply map built by channelRead0
+            @SuppressWarnings("unchecked")
+            Map<String, String> properties = session.waitReceiveReply(responseKey, Map.class);
+            if (properties == null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Query properties cancelled: {}", deviceId);
+                } else {
+                    log.warn("Query properties timeout: {}", deviceId);
+                }
                 return null;
             }
             
-            // Parse the response
-            JSONObject responseJson = JSONObject.parseObject(response);
-            
-            // Convert to map
-            Map<String, String> properties = new HashMap<>();
-            for (String key : responseJson.keySet()) {
-                properties.put(key, responseJson.getString(key));
-            }
-            
-            // Cache the properties
-            synchronized (devicePropertiesCache) {
-                devicePropertiesCache.put(deviceId, properties);
+            // channelRead0 already cached and published the reply, return the resulting snapshot
+            DevicePropertySnapshot snapshot = propertyStore.getSnapshot(deviceId);
+            if (snapshot == null) {
+                return properties;
             }
             
-            log.info("Query properties success: deviceId={}, properties={}", deviceId, properties.size());
+            log.info("Query properties success: deviceId={}, properties={}, version={}",
+                     deviceId, properties.size(), snapshot.getVersion());
             
-            return properties;
+            return snapshot.toValueMap();
         } catch (Exception e) {
             log.error("Error querying device properties: deviceId={}", deviceId, e);
             return null;
         }
     }
     
+    /**
+     * Get the versioned property snapshot of a device
+     * 
+     * @param deviceId The device ID
+     * @return The snapshot, or null if none cached
+     */
+    public static DevicePropertySnapshot getPropertySnapshot(String deviceId) {
+        return propertyStore.getSnapshot(deviceId);
+    }
+    
     /**
      * Get cached properties for a device
      * 
      * @param deviceId The device ID
-     * @return Map of property keys to values, or empty map if none cached
+     * @return Unmodifiable map of property keys to values, or empty map if none cached
      */
     public static Map<String, String> getCachedProperties(String deviceId) {
-        synchronized (devicePropertiesCache) {
-            return devicePropertiesCache.getOrDefault(deviceId, new HashMap<>());
-        }
+        DevicePropertySnapshot snapshot = propertyStore.getSnapshot(deviceId);
+        return snapshot != null ? snapshot.toValueMap() : Collections.emptyMap();
     }
     
     /**
@@ -221,20 +304,21 @@ public class ProItemsHandler extends SimpleChannelInboundHandler<ServerLBSInfo.P
      * @return The property value, or null if not found
      */
     public static String getCachedProperty(String deviceId, String key) {
-        synchronized (devicePropertiesCache) {
-            Map<String, String> props = devicePropertiesCache.get(deviceId);
-            return props != null ? props.get(key) : null;
-        }
+        DevicePropertySnapshot snapshot = propertyStore.getSnapshot(deviceId);
+        return snapshot != null ? snapshot.get(key) : null;
     }
     
     /**
      * Clear cached properties for a device
      * 
-     * @param deviceId The device ID
+     * @param deviceId The device ID, or null to clear all devices
      */
     public static void clearCachedProperties(String deviceId) {
-        synchronized (devicePropertiesCache) {
-            devicePropertiesCache.remove(deviceId);
+        if (deviceId == null) {
+            propertyStore.clear();
+        } else {
+            propertyStore.remove(deviceId);
         }
+        queryCoalescer.invalidate(deviceId);
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.qinglan.example.device_point.server.handle;
 
-import com.alibaba.fastjson2.JSONObject;
 import com.qinglan.example.device_point.server.msg.DeviceInfo;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
 import com.qinglan.example.device_point.server.util.SpringUtils;
@@ -27,11 +26,8 @@ public class StopVoipHandler extends SimpleChannelInboundHandler<DeviceInfo.Stop
             int type = 52;
             String channelId = ctx.channel().id().asLongText();
             String key = type + String.valueOf(channelId);
-            JSONObject res = new JSONObject();
-            res.put("result", msg.getResult());
-            res.put("errmsg", msg.getErrmsg());
-            res.put("seq", msg.getSeq());
-            deviceRegSession.setReceiveMsg(key, res.toJSONString());
+            // Hand the immutable reply over as is, JSON is produced only if a caller needs it
+            deviceRegSession.setReceiveMsg(key, msg);
         } finally {
             ReferenceCountUtil.release(msg);
         }
@@ -0,0 +1,97 @@
+package com.qinglan.example.device_point.server.property;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of all cached properties of one device
+ * Safe to hand to UI and REST callers; writers always publish a new snapshot
+ */
+public final class DevicePropertySnapshot {
+
+    private final String deviceId;
+    private final Map<String, PropertyValue> values;
+    private final long version;
+    private final long updatedAt;
+
+    // Plain key -> value view, built lazily on first request
+    private volatile Map<String, String> valueMap;
+
+    DevicePropertySnapshot(String deviceId, Map<String, PropertyValue> values, long version, long updatedAt) {
+        this.deviceId = deviceId;
+        this.values = Collections.unmodifiableMap(values);
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Versioned values by key
+     */
+    public Map<String, PropertyValue> getValues() {
+        return values;
+    }
+
+    /**
+     * Snapshot version, incremented whenever any value changes
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Last time the device reported properties
+     */
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Get a property value
+     *
+     * @param key The property key
+     * @return The value, or null if not cached
+     */
+    public String get(String key) {
+        PropertyValue value = values.get(key);
+        return value != null ? value.getValue() : null;
+    }
+
+    /**
+     * Get the properties as an unmodifiable key -> value map
+     */
+    public Map<String, String> toValueMap() {
+        Map<String, String> map = valueMap;
+        if (map == null) {
+            Map<String, String> copy = new LinkedHashMap<>(values.size() * 2);
+            for (Map.Entry<String, PropertyValue> entry : values.entrySet()) {
+                copy.put(entry.getKey(), entry.getValue().getValue());
+            }
+            map = Collections.unmodifiableMap(copy);
+            valueMap = map;
+        }
+        return map;
+    }
+
+    /**
+     * Whether the device has not reported properties within the TTL
+     *
+     * @param ttlMillis Time to live in milliseconds
+     */
+    public boolean isStale(long ttlMillis) {
+        return System.currentTimeMillis() - updatedAt > ttlMillis;
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "DevicePropertySnapshot{deviceId=" + deviceId + ", version=" + version + ", values=" + values + "}";
+    }
+}
@@ -0,0 +1,313 @@
+package com.qinglan.example.device_point.server.property;
+
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent store of device properties
+ * - Every device maps to an immutable DevicePropertySnapshot; writers publish a new snapshot (copy-on-write)
+ * - Reads are lock-free and never see partially applied updates
+ * - Each key carries the version in which it last changed and when it was last reported
+ * - Properties of disconnected devices are kept up to a bound and evicted in disconnect order, oldest first
+ * Writes, connection changes and removal of a device run inside the map's per-key compute, so an
+ * update can never land in an entry that is being evicted
+ */
+@Slf4j
+public class DevicePropertyStore {
+
+    // Default freshness bound for cached properties
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    // Maximum number of disconnected devices whose properties are retained
+    private static final int MAX_DISCONNECTED_DEVICES = 1000;
+
+    private static final DevicePropertyStore instance = new DevicePropertyStore();
+
+    private static final class Entry {
+        final String deviceId;
+        final AtomicBoolean connected;
+        volatile DevicePropertySnapshot snapshot;
+        // Incremented on every disconnect, tells the current queue position from stale ones
+        volatile long disconnects;
+
+        Entry(String deviceId, boolean connected) {
+            this.deviceId = deviceId;
+            this.connected = new AtomicBoolean(connected);
+        }
+    }
+
+    /**
+     * Position of a disconnected entry in the eviction queue
+     */
+    private static final class Disconnection {
+        final Entry entry;
+        final long disconnects;
+
+        Disconnection(Entry entry) {
+            this.entry = entry;
+            this.disconnects = entry.disconnects;
+        }
+
+        boolean isCurrent() {
+            return !entry.connected.get() && entry.disconnects == disconnects;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger disconnectedCount = new AtomicInteger();
+
+    // Disconnected entries, oldest disconnect first; reconnected or removed entries leave stale positions behind
+    private final Queue<Disconnection> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger evictionQueueSize = new AtomicInteger();
+
+    private DevicePropertyStore() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static DevicePropertyStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the current snapshot of a device
+     *
+     * @param deviceId The device ID
+     * @return The snapshot, or null if nothing is cached
+     */
+    public DevicePropertySnapshot getSnapshot(String deviceId) {
+        if (deviceId == null) {
+            return null;
+        }
+        Entry entry = entries.get(deviceId);
+        return entry != null ? entry.snapshot : null;
+    }
+
+    /**
+     * Get the snapshot only if it was reported within the given age
+     *
+     * @param deviceId The device ID
+     * @param maxAgeMillis Maximum age in milliseconds
+     * @return The snapshot, or null if missing or stale
+     */
+    public DevicePropertySnapshot getFreshSnapshot(String deviceId, long maxAgeMillis) {
+        DevicePropertySnapshot snapshot = getSnapshot(deviceId);
+        return snapshot != null && !snapshot.isStale(maxAgeMillis) ? snapshot : null;
+    }
+
+    /**
+     * Merge reported properties into the device snapshot (keys not reported are kept)
+     *
+     * @param deviceId The device ID
+     * @param properties Reported properties
+     * @return The published snapshot and the keys it changed
+     */
+    public PropertyUpdate merge(String deviceId, Map<String, String> properties) {
+        return update(deviceId, properties, false);
+    }
+
+    /**
+     * Replace the device snapshot with the reported properties (keys not reported are dropped)
+     *
+     * @param deviceId The device ID
+     * @param properties Reported properties
+     * @return The published snapshot and the keys it changed
+     */
+    public PropertyUpdate replace(String deviceId, Map<String, String> properties) {
+        return update(deviceId, properties, true);
+    }
+
+    private PropertyUpdate update(String deviceId, Map<String, String> properties, boolean replace) {
+        PropertyUpdate[] result = new PropertyUpdate[1];
+        boolean[] created = new boolean[1];
+        entries.compute(deviceId, (k, entry) -> {
+            if (entry == null) {
+                // A late reply for a device that already went away must not look connected,
+                // otherwise the entry is never counted and never evicted
+                entry = new Entry(k, DeviceRegSession.getOnlineDeviceIds().contains(k));
+                if (!entry.connected.get()) {
+                    enqueueDisconnected(entry);
+                    created[0] = true;
+                }
+            }
+            result[0] = apply(entry, properties, replace);
+            return entry;
+        });
+        if (created[0]) {
+            evictOverflow();
+        }
+        return result[0];
+    }
+
+    private static PropertyUpdate apply(Entry entry, Map<String, String> properties, boolean replace) {
+        String deviceId = entry.deviceId;
+        long now = System.currentTimeMillis();
+        DevicePropertySnapshot previous = entry.snapshot;
+        Map<String, PropertyValue> previousValues = previous != null
+            ? previous.getValues() : Collections.<String, PropertyValue>emptyMap();
+        long version = previous != null ? previous.getVersion() + 1 : 1;
+        Map<String, PropertyValue> values = replace
+            ? new HashMap<>(properties.size() * 2)
+            : new HashMap<>(previousValues);
+
+        List<PropertyChange> changes = new ArrayList<>();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            String key = property.getKey();
+            PropertyValue old = previousValues.get(key);
+            if (old != null && Objects.equals(old.getValue(), property.getValue())) {
+                // Unchanged value keeps its version, only the report time moves
+                values.put(key, new PropertyValue(old.getValue(), old.getVersion(), now));
+            } else {
+                values.put(key, new PropertyValue(property.getValue(), version, now));
+                changes.add(new PropertyChange(deviceId, key,
+                    old != null ? old.getValue() : null, property.getValue(), version));
+            }
+        }
+        if (replace) {
+            for (Map.Entry<String, PropertyValue> old : previousValues.entrySet()) {
+                if (!values.containsKey(old.getKey())) {
+                    changes.add(new PropertyChange(deviceId, old.getKey(), old.getValue().getValue(), null, version));
+                }
+            }
+        }
+
+        boolean changed = previous == null || !changes.isEmpty();
+        DevicePropertySnapshot next = new DevicePropertySnapshot(
+            deviceId, values, changed ? version : previous.getVersion(), now);
+        entry.snapshot = next;
+        return new PropertyUpdate(previous, next, changes);
+    }
+
+    /**
+     * Mark a device as connected, its properties are no longer subject to eviction
+     *
+     * @param deviceId The device ID
+     */
+    public void markConnected(String deviceId) {
+        entries.computeIfPresent(deviceId, (k, entry) -> {
+            if (entry.connected.compareAndSet(false, true)) {
+                disconnectedCount.decrementAndGet();
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Mark a device as disconnected, evicting the devices that disconnected
+     * longest ago when over the retention bound
+     *
+     * @param deviceId The device ID
+     */
+    public void markDisconnected(String deviceId) {
+        boolean[] disconnected = new boolean[1];
+        entries.computeIfPresent(deviceId, (k, entry) -> {
+            if (entry.connected.compareAndSet(true, false)) {
+                enqueueDisconnected(entry);
+                disconnected[0] = true;
+            }
+            return entry;
+        });
+        if (disconnected[0]) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Count a disconnected entry and queue it for eviction; runs inside the entry's compute
+     */
+    private void enqueueDisconnected(Entry entry) {
+        entry.disconnects++;
+        disconnectedCount.incrementAndGet();
+        evictionQueue.add(new Disconnection(entry));
+        evictionQueueSize.incrementAndGet();
+    }
+
+    private void evictOverflow() {
+        while (disconnectedCount.get() > MAX_DISCONNECTED_DEVICES) {
+            Disconnection eldest = evictionQueue.poll();
+            if (eldest == null) {
+                return;
+            }
+            evictionQueueSize.decrementAndGet();
+            boolean[] evicted = new boolean[1];
+            entries.computeIfPresent(eldest.entry.deviceId, (k, entry) -> {
+                if (entry != eldest.entry || !eldest.isCurrent()) {
+                    return entry;
+                }
+                disconnectedCount.decrementAndGet();
+                evicted[0] = true;
+                return null;
+            });
+            if (evicted[0]) {
+                log.debug("Evicted cached properties of disconnected device {}", eldest.entry.deviceId);
+            }
+        }
+        // Devices that reconnect leave stale positions behind, drop them before the queue grows unbounded
+        if (evictionQueueSize.get() > 2 * MAX_DISCONNECTED_DEVICES) {
+            purgeEvictionQueue();
+        }
+    }
+
+    private synchronized void purgeEvictionQueue() {
+        if (evictionQueueSize.get() <= 2 * MAX_DISCONNECTED_DEVICES) {
+            return;
+        }
+        evictionQueue.removeIf(position -> {
+            boolean stale = !position.isCurrent() || entries.get(position.entry.deviceId) != position.entry;
+            if (stale) {
+                evictionQueueSize.decrementAndGet();
+            }
+            return stale;
+        });
+    }
+
+    /**
+     * Remove all cached properties of a device
+     *
+     * @param deviceId The device ID
+     * @return The removed snapshot, or null
+     */
+    public DevicePropertySnapshot remove(String deviceId) {
+        DevicePropertySnapshot[] removed = new DevicePropertySnapshot[1];
+        entries.computeIfPresent(deviceId, (k, entry) -> {
+            if (!entry.connected.get()) {
+                disconnectedCount.decrementAndGet();
+            }
+            removed[0] = entry.snapshot;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Remove all cached properties
+     */
+    public void clear() {
+        for (String deviceId : entries.keySet()) {
+            remove(deviceId);
+        }
+    }
+
+    /**
+     * Number of devices with cached properties
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.qinglan.example.device_point.server.property;
+
+/**
+ * A single property key whose value changed between two snapshots
+ */
+public final class PropertyChange {
+
+    // Kind of change
+    public enum Kind {
+        ADDED,
+        CHANGED,
+        REMOVED
+    }
+
+    private final String deviceId;
+    private final String key;
+    private final String oldValue;
+    private final String newValue;
+    private final long version;
+
+    PropertyChange(String deviceId, String key, String oldValue, String newValue, long version) {
+        this.deviceId = deviceId;
+        this.key = key;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.version = version;
+    }
+
+    public Kind getKind() {
+        if (oldValue == null) {
+            return Kind.ADDED;
+        }
+        return newValue == null ? Kind.REMOVED : Kind.CHANGED;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Previous value, or null if the key is new
+     */
+    public String getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Current value, or null if the key was removed
+     */
+    public String getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Snapshot version that introduced the change
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        switch (getKind()) {
+            case ADDED:
+                return key + "=" + newValue;
+            case REMOVED:
+                return key + " removed";
+            default:
+                return key + ": " + oldValue + " -> " + newValue;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.qinglan.example.device_point.server.property;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Single-flight coalescing of device property queries
+ * - Concurrent queries for the same device share one device round trip
+ * - A successful result is reused by later callers until it is older than the freshness bound
+ * - Failed queries are not cached; the next caller starts a new round trip
+ */
+@Slf4j
+public class PropertyQueryCoalescer {
+
+    // Default time a completed query result is handed out without asking the device again
+    public static final long DEFAULT_FRESHNESS_MILLIS = 2000;
+
+    private static final class Flight {
+        final CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean isReusable(long freshnessMillis, long now) {
+            if (!result.isDone()) {
+                return true;
+            }
+            return result.getNow(null) != null && now - completedAt <= freshnessMillis;
+        }
+    }
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    private final long freshnessMillis;
+
+    public PropertyQueryCoalescer() {
+        this(DEFAULT_FRESHNESS_MILLIS);
+    }
+
+    public PropertyQueryCoalescer(long freshnessMillis) {
+        this.freshnessMillis = freshnessMillis;
+    }
+
+    /**
+     * Query a device, joining an in-flight or recent query when there is one
+     *
+     * @param deviceId The device ID
+     * @param loader Performs the actual device round trip, returns null on failure
+     * @return The properties, or null if the query failed
+     */
+    public Map<String, String> query(String deviceId, Function<String, Map<String, String>> loader) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Flight current = flights.get(deviceId);
+            if (current != null && current.isReusable(freshnessMillis, now)) {
+                return await(deviceId, current);
+            }
+
+            Flight flight = new Flight();
+            boolean leader = current == null
+                ? flights.putIfAbsent(deviceId, flight) == null
+                : flights.replace(deviceId, current, flight);
+            if (!leader) {
+                // Another caller started a round trip first, join it
+                continue;
+            }
+            return lead(deviceId, flight, loader);
+        }
+    }
+
+    private Map<String, String> lead(String deviceId, Flight flight,
+                                     Function<String, Map<String, String>> loader) {
+        Map<String, String> properties = null;
+        try {
+            properties = loader.apply(deviceId);
+        } catch (RuntimeException e) {
+            log.error("Error querying device properties: deviceId={}", deviceId, e);
+        } finally {
+            flight.completedAt = System.currentTimeMillis();
+            flight.result.complete(properties);
+            if (properties == null) {
+                flights.remove(deviceId, flight);
+            }
+        }
+        return properties;
+    }
+
+    private Map<String, String> await(String deviceId, Flight flight) {
+        try {
+            return flight.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Coalesced property query failed: deviceId={}", deviceId, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Whether a round trip for the device is currently outstanding
+     *
+     * @param deviceId The device ID
+     * @return True if a query is waiting for the device
+     */
+    public boolean isPending(String deviceId) {
+        Flight flight = flights.get(deviceId);
+        return flight != null && !flight.result.isDone();
+    }
+
+    /**
+     * Drop any cached result so the next query goes to the device
+     *
+     * @param deviceId The device ID, or null for all devices
+     */
+    public void invalidate(String deviceId) {
+        if (deviceId == null) {
+            flights.values().removeIf(flight -> flight.result.isDone());
+        } else {
+            flights.computeIfPresent(deviceId, (k, flight) -> flight.result.isDone() ? null : flight);
+        }
+    }
+}
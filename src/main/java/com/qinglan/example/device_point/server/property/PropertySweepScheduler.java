@@ -0,0 +1,276 @@
+package com.qinglan.example.device_point.server.property;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.qinglan.example.device_point.server.handle.ProItemsHandler;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.util.SpringUtils;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuous fleet-wide property inventory
+ * - Sends type-11 queries to every connected device once per sweep interval
+ * - A global rate limit and an in-flight window bound how many requests hit the network at once
+ * - Every device is due at its own jittered time, so devices never line up into bursts
+ * - Replies are cached by ProItemsHandler; the sweep only tracks which requests are outstanding
+ * All scheduling state is owned by a single sweep thread, requests never block it
+ */
+@Slf4j
+public class PropertySweepScheduler {
+
+    // Properties collected by the inventory
+    public static final List<String> INVENTORY_KEYS = Collections.unmodifiableList(Arrays.asList(
+        "app_compile_time", "radar_compile_time", "sfver", "radarsfver", "accelera", "ip_port"));
+
+    private static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_JITTER_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final double DEFAULT_RATE_PER_SECOND = 20;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    // Same bound DeviceRegSession uses when waiting for a response
+    private static final long RESPONSE_TIMEOUT_MILLIS = 4000;
+
+    private static final long TICK_MILLIS = 100;
+    private static final long DISCOVERY_MILLIS = 1000;
+
+    private static PropertySweepScheduler instance;
+
+    private static final class Due implements Comparable<Due> {
+        final String deviceId;
+        final long dueAt;
+
+        Due(String deviceId, long dueAt) {
+            this.deviceId = deviceId;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public int compareTo(Due other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+
+    // Sweep thread only
+    private final PriorityQueue<Due> dueQueue = new PriorityQueue<>();
+    private final Set<String> scheduled = new HashSet<>();
+    private long lastDiscovery;
+
+    // Outstanding requests: device ID -> response deadline, cleared from Netty threads on reply
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+
+    private volatile long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+    private volatile long jitterMillis = DEFAULT_JITTER_MILLIS;
+    private volatile int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private final RateLimiter rateLimiter = RateLimiter.create(DEFAULT_RATE_PER_SECOND);
+
+    private DeviceRegSession deviceRegSession;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> tickFuture;
+
+    private PropertySweepScheduler() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized PropertySweepScheduler getInstance() {
+        if (instance == null) {
+            instance = new PropertySweepScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Start sweeping, has no effect if already running
+     */
+    public synchronized void start() {
+        if (tickFuture != null) {
+            return;
+        }
+        deviceRegSession = SpringUtils.getBean(DeviceRegSession.class);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PropertySweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tickFuture = executor.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("Property sweep started: interval={}ms, rate={}/s, maxInFlight={}",
+                 intervalMillis, rateLimiter.getRate(), maxInFlight);
+    }
+
+    /**
+     * Stop sweeping and forget all scheduling state
+     */
+    public synchronized void stop() {
+        if (tickFuture == null) {
+            return;
+        }
+        tickFuture.cancel(false);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tickFuture = null;
+        executor = null;
+        dueQueue.clear();
+        scheduled.clear();
+        inFlight.clear();
+        lastDiscovery = 0;
+        log.info("Property sweep stopped");
+    }
+
+    public boolean isRunning() {
+        return tickFuture != null;
+    }
+
+    /**
+     * Configure the sweep
+     *
+     * @param intervalMillis Time between two queries of the same device
+     * @param jitterMillis Maximum random offset applied to each device's due time
+     * @param ratePerSecond Maximum requests sent per second across all devices
+     * @param maxInFlight Maximum requests awaiting a reply
+     */
+    public void configure(long intervalMillis, long jitterMillis, double ratePerSecond, int maxInFlight) {
+        if (intervalMillis <= 0 || jitterMillis < 0 || ratePerSecond <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Invalid sweep settings");
+        }
+        this.intervalMillis = intervalMillis;
+        this.jitterMillis = Math.min(jitterMillis, intervalMillis / 2);
+        this.rateLimiter.setRate(ratePerSecond);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Called when a device replied with its properties
+     *
+     * @param deviceId The device ID
+     */
+    public void onPropertiesReceived(String deviceId) {
+        inFlight.remove(deviceId);
+    }
+
+    /**
+     * Get the inventory properties of a device from the cache
+     *
+     * @param deviceId The device ID
+     * @return Inventory key -> value for the keys the device reported
+     */
+    public static Map<String, String> getInventory(String deviceId) {
+        DevicePropertySnapshot snapshot = DevicePropertyStore.getInstance().getSnapshot(deviceId);
+        Map<String, String> inventory = new LinkedHashMap<>();
+        if (snapshot != null) {
+            for (String key : INVENTORY_KEYS) {
+                String value = snapshot.get(key);
+                if (value != null) {
+                    inventory.put(key, value);
+                }
+            }
+        }
+        return inventory;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            expireInFlight(now);
+            if (now - lastDiscovery >= DISCOVERY_MILLIS) {
+                discoverDevices(now);
+                lastDiscovery = now;
+            }
+            dispatchDue(now);
+        } catch (RuntimeException e) {
+            // Never let one bad pass kill the periodic task
+            log.error("Property sweep pass failed", e);
+        }
+    }
+
+    private void expireInFlight(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = inFlight.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                log.debug("Property sweep request timed out: {}", entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void discoverDevices(long now) {
+        for (String deviceId : DeviceRegSession.getOnlineDeviceIds()) {
+            if (scheduled.add(deviceId)) {
+                // Spread newly seen devices over the jitter window
+                dueQueue.add(new Due(deviceId, now + randomOffset(0, jitterMillis)));
+            }
+        }
+    }
+
+    private void dispatchDue(long now) {
+        DevicePropertyStore store = DevicePropertyStore.getInstance();
+
+        while (!dueQueue.isEmpty() && dueQueue.peek().dueAt <= now) {
+            if (inFlight.size() >= maxInFlight) {
+                return;
+            }
+            String deviceId = dueQueue.peek().deviceId;
+
+            Channel channel = deviceRegSession.isReg(deviceId);
+            if (channel == null) {
+                // Offline, rediscovered with a fresh due time if it reconnects
+                dueQueue.poll();
+                scheduled.remove(deviceId);
+                continue;
+            }
+
+            // Skip devices another caller is querying or queried recently, they cost no permit
+            if (inFlight.containsKey(deviceId) || ProItemsHandler.isPropertyQueryPending(deviceId)
+                || store.getFreshSnapshot(deviceId, intervalMillis / 2) != null) {
+                dueQueue.poll();
+                reschedule(deviceId, now);
+                continue;
+            }
+
+            // Out of permits, the device stays at the head until the next tick
+            if (!rateLimiter.tryAcquire()) {
+                return;
+            }
+            dueQueue.poll();
+            reschedule(deviceId, now);
+
+            inFlight.put(deviceId, now + RESPONSE_TIMEOUT_MILLIS);
+            if (ProItemsHandler.sendGetPropertiesRequest(channel, false) < 0) {
+                inFlight.remove(deviceId);
+            }
+        }
+    }
+
+    private void reschedule(String deviceId, long now) {
+        dueQueue.add(new Due(deviceId, now + intervalMillis + randomOffset(-jitterMillis, jitterMillis)));
+    }
+
+    private static long randomOffset(long min, long max) {
+        return max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min;
+    }
+}
@@ -0,0 +1,42 @@
+package com.qinglan.example.device_point.server.property;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of applying a property report to the store
+ */
+public final class PropertyUpdate {
+
+    private final DevicePropertySnapshot previous;
+    private final DevicePropertySnapshot current;
+    private final List<PropertyChange> changes;
+
+    PropertyUpdate(DevicePropertySnapshot previous, DevicePropertySnapshot current, List<PropertyChange> changes) {
+        this.previous = previous;
+        this.current = current;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Snapshot replaced by this update, or null for the first report of a device
+     */
+    public DevicePropertySnapshot getPrevious() {
+        return previous;
+    }
+
+    public DevicePropertySnapshot getCurrent() {
+        return current;
+    }
+
+    /**
+     * Keys that were added, changed or removed, in report order
+     */
+    public List<PropertyChange> getChanges() {
+        return changes;
+    }
+
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+}
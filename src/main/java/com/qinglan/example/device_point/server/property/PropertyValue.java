@@ -0,0 +1,46 @@
+package com.qinglan.example.device_point.server.property;
+
+/**
+ * Immutable value of a single device property
+ * - version: snapshot version in which the value last changed
+ * - updatedAt: last time the device reported this key, even if unchanged
+ */
+public final class PropertyValue {
+
+    private final String value;
+    private final long version;
+    private final long updatedAt;
+
+    PropertyValue(String value, long version, long updatedAt) {
+        this.value = value;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Whether the value has not been confirmed by the device within the TTL
+     *
+     * @param ttlMillis Time to live in milliseconds
+     * @param now Current time in milliseconds
+     */
+    public boolean isStale(long ttlMillis, long now) {
+        return now - updatedAt > ttlMillis;
+    }
+
+    @Override
+    public String toString() {
+        return value + "@v" + version;
+    }
+}
@@ -1,11 +1,15 @@
 package com.qinglan.example.device_point.server.protocol;
 
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 
 import java.nio.ByteOrder;
 
 public class ProcotolFrameDecoder extends LengthFieldBasedFrameDecoder {
 
+    // Time the current read reached the decoder, event loop only
+    private long readNanos;
+
     public ProcotolFrameDecoder() {
         this(1024, 0, 2, 1, 0);
     }
@@ -13,4 +17,18 @@ public class ProcotolFrameDecoder extends LengthFieldBasedFrameDecoder {
     public ProcotolFrameDecoder(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength, int lengthAdjustment, int initialBytesToStrip) {
         super(ByteOrder.LITTLE_ENDIAN, maxFrameLength, lengthFieldOffset, lengthFieldLength, lengthAdjustment, initialBytesToStrip, true);
     }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        // Stamped before any frame of this read is decoded, so waiting behind earlier frames is counted
+        readNanos = System.nanoTime();
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * System.nanoTime() when the read being decoded reached this decoder
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
 }
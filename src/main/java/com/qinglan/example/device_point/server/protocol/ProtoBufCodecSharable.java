@@ -23,6 +23,9 @@ public class ProtoBufCodecSharable extends MessageToMessageCodec<ByteBuf, ByteBu
 
     private static final boolean HAS_PARSER;
 
+    // Fall down reports carry their ingest time to the handler
+    private static final byte STAMPED_TYPE = 5;
+
     @Override
     public void encode(ChannelHandlerContext ctx, ByteBuf bytes, List<Object> outList) throws Exception {
         ByteBuf out = ctx.alloc().buffer();
@@ -65,7 +68,8 @@ public class ProtoBufCodecSharable extends MessageToMessageCodec<ByteBuf, ByteBu
         }
 
         try {
-            addExecutionChain(array, offset, length, out, prototype);
+            MessageLite message = parse(array, offset, length, prototype);
+            out.add(messageType == STAMPED_TYPE ? new StampedMessage(message, ingestNanos(ctx)) : message);
         } catch (InvalidProtocolBufferException e) {
             log.error("-------------------------decode-erro----------{}---------------", e.getMessage());;
             ctx.channel().close();
@@ -74,12 +78,16 @@ public class ProtoBufCodecSharable extends MessageToMessageCodec<ByteBuf, ByteBu
 //        out.add(prototype.getParserForType().parseFrom(array, offset, length));
     }
 
-    private void addExecutionChain(byte[] array, int offset, int length, List<Object> out, MessageLite prototype) throws InvalidProtocolBufferException {
+    private MessageLite parse(byte[] array, int offset, int length, MessageLite prototype) throws InvalidProtocolBufferException {
         if (HAS_PARSER) {
-            out.add(prototype.getParserForType().parseFrom(array, offset, length));
-        } else {
-            out.add(prototype.newBuilderForType().mergeFrom(array, offset, length).build());
+            return prototype.getParserForType().parseFrom(array, offset, length);
         }
+        return prototype.newBuilderForType().mergeFrom(array, offset, length).build();
+    }
+
+    private static long ingestNanos(ChannelHandlerContext ctx) {
+        ProcotolFrameDecoder decoder = ctx.pipeline().get(ProcotolFrameDecoder.class);
+        return decoder != null ? decoder.getReadNanos() : System.nanoTime();
     }
 
 
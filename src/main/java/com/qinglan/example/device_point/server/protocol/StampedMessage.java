@@ -0,0 +1,30 @@
+package com.qinglan.example.device_point.server.protocol;
+
+import com.google.protobuf.MessageLite;
+
+/**
+ * A decoded message together with the time its bytes were read from the socket
+ * Emitted by ProtoBufCodecSharable for latency-critical types, so their handlers measure from ingest
+ * rather than from handler entry, which would leave out the time spent behind earlier frames
+ */
+public final class StampedMessage {
+
+    private final MessageLite message;
+    private final long ingestNanos;
+
+    public StampedMessage(MessageLite message, long ingestNanos) {
+        this.message = message;
+        this.ingestNanos = ingestNanos;
+    }
+
+    public MessageLite getMessage() {
+        return message;
+    }
+
+    /**
+     * System.nanoTime() when the read that carried the message reached the frame decoder
+     */
+    public long getIngestNanos() {
+        return ingestNanos;
+    }
+}
@@ -1,7 +1,19 @@
 package com.qinglan.example.device_point.server.session;
 
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.qinglan.example.device_point.server.alert.FallAlertTracker;
+import com.qinglan.example.device_point.server.area.AreaOccupancyTracker;
+import com.qinglan.example.device_point.server.area.GeofenceEngine;
+import com.qinglan.example.device_point.server.property.DevicePropertyStore;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryStore;
+import com.qinglan.example.device_point.server.vital.VitalAnomalyMonitor;
+import com.qinglan.example.device_point.server.vital.VitalSpectrumEngine;
 import com.qinglan.example.device_point.ui.DeviceSessionListener;
 import com.qinglan.example.device_point.ui.EventBus;
 import io.netty.channel.Channel;
@@ -11,9 +23,11 @@ import org.springframework.stereotype.Component;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -165,6 +179,7 @@ public class DeviceRegSession {
         log.info("---------------------uid:{}--------------online----", uid);
         regSession.put(uid, channel);
         channelInfo.put(channel.id(), uid);
+        DevicePropertyStore.getInstance().markConnected(uid);
         
         // 通知设备连接
         notifyDeviceConnected(uid, channel);
@@ -175,6 +190,13 @@ public class DeviceRegSession {
         if (uid != null){
             log.info("----------------offline uid------{}--------", uid);
             regSession.remove(uid);
+            DevicePropertyStore.getInstance().markDisconnected(uid);
+            TrajectoryStore.getInstance().remove(uid);
+            GeofenceEngine.getInstance().resetDevice(uid);
+            AreaOccupancyTracker.getInstance().resetDevice(uid);
+            VitalSpectrumEngine.getInstance().remove(uid);
+            VitalAnomalyMonitor.getInstance().flush(uid);
+            FallAlertTracker.getInstance().expireDevice(uid);
             
             // 通知设备断开连接
             notifyDeviceDisconnected(uid);
@@ -190,10 +212,16 @@ public class DeviceRegSession {
         return channelInfo.get(channelId);
     }
 
+    //获取所有在线设备ID(只读视图)
+    public static Set<String> getOnlineDeviceIds(){
+        return Collections.unmodifiableSet(regSession.keySet());
+    }
+
     /**
      * 响应消息缓存
+     * 值为handler交付的原始应答对象(protobuf消息或不可变Map)，只在需要字符串时才转换为JSON
      */
-    public static Cache<String, BlockingQueue<String>> responseMsgCache = CacheBuilder.newBuilder()
+    public static Cache<String, BlockingQueue<Object>> responseMsgCache = CacheBuilder.newBuilder()
             .maximumSize(50000)
             .expireAfterWrite(4, TimeUnit.SECONDS)
             .build();
@@ -202,21 +230,70 @@ public class DeviceRegSession {
     /**
      * 等待响应消息
      * @param key 消息唯一标识
-     * @return ReceiveDdcMsgVo
+     * @return 应答的JSON字符串，超时返回null
      */
     public String waitReceiveMsg(String key) {
-//        System.out.println("waitReceiveMsg.size()->>>>>>>>>>>>>>>>>>>" + responseMsgCache.size());
+        return toJsonString(waitReceiveReply(key));
+    }
+
+    /**
+     * 等待响应消息，返回handler交付的原始应答对象
+     * 等待线程被中断（例如任务被取消）时立即返回null，并保留中断标志供调用方判断
+     * @param key 消息唯一标识
+     * @return 应答对象，超时或被中断返回null
+     */
+    public Object waitReceiveReply(String key) {
         try {
             //设置超时时间
-            String vo = Objects.requireNonNull(responseMsgCache.getIfPresent(key))
+            return Objects.requireNonNull(responseMsgCache.getIfPresent(key))
                     .poll(4000, TimeUnit.MILLISECONDS);
-            //删除key
-            responseMsgCache.invalidate(key);
-            return vo;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Fetch data interrupted,sn={}",key);
+            return null;
         } catch (Exception e) {
             log.error("Fetch data exception,sn={},msg=null",key);
             return null;
+        } finally {
+            //删除key，迟到的应答不再入队
+            responseMsgCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 等待指定类型的响应消息
+     * @param key 消息唯一标识
+     * @param type 应答类型
+     * @return 应答对象，超时或类型不符返回null
+     */
+    public <T> T waitReceiveReply(String key, Class<T> type) {
+        Object reply = waitReceiveReply(key);
+        if (reply != null && !type.isInstance(reply)) {
+            log.warn("Unexpected reply type, sn={}, type={}", key, reply.getClass().getSimpleName());
+            return null;
+        }
+        return type.cast(reply);
+    }
+
+    /**
+     * 应答对象转换为JSON字符串，仅在REST等需要字符串的边界调用
+     * @param reply 应答对象
+     * @return JSON字符串
+     */
+    public static String toJsonString(Object reply) {
+        if (reply == null || reply instanceof String) {
+            return (String) reply;
+        }
+        if (reply instanceof Message) {
+            Message message = (Message) reply;
+            JSONObject json = new JSONObject();
+            for (Descriptors.FieldDescriptor field : message.getDescriptorForType().getFields()) {
+                json.put(field.getName(), message.getField(field));
+            }
+            return json.toJSONString();
         }
+        // 枚举按名称输出，默认对象字段中的枚举会被写成序号
+        return JSON.toJSONString(reply, JSONWriter.Feature.WriteEnumsUsingName);
     }
 
     /**
@@ -224,22 +301,23 @@ public class DeviceRegSession {
      * @param key 消息唯一标识
      */
     public void initReceiveMsg(String key) {
-        responseMsgCache.put(key,new LinkedBlockingQueue<String>(1));
+        responseMsgCache.put(key,new LinkedBlockingQueue<Object>(1));
 //        System.out.println("initReceiveMsg.size()->>>>>>>>>>>>>>>>>>>" + responseMsgCache.size());
     }
 
     /**
      * 设置响应消息
      * @param key 消息唯一标识
+     * @param msg 应答对象(protobuf消息、不可变Map或字符串)
      */
-    public void setReceiveMsg(String key, String msg) {
-//        System.out.println("setReceiveMsg.size()->>>>>>>>>>>>>>>>>>>" + responseMsgCache.size());
-        if(responseMsgCache.getIfPresent(key) != null){
-            responseMsgCache.getIfPresent(key).add(msg);
+    public void setReceiveMsg(String key, Object msg) {
+        BlockingQueue<Object> queue = responseMsgCache.getIfPresent(key);
+        if(queue != null){
+            queue.offer(msg);
             // 通知消息接收 - 从key中提取设备ID和消息类型（需要根据实际的key格式进行调整）
             String deviceId = extractDeviceIdFromKey(key);
             if (deviceId != null) {
-                notifyMessageReceived(deviceId, extractMessageTypeFromKey(key), msg);
+                notifyMessageReceived(deviceId, extractMessageTypeFromKey(key), toJsonString(msg));
             }
             return;
         }
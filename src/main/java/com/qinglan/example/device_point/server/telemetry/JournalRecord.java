@@ -0,0 +1,77 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight view of one journal record during replay
+ * Only valid inside the visitor callback; copy what must be kept
+ */
+public final class JournalRecord {
+
+    private ByteBuffer segment;
+    private int offset;
+    private int length;
+
+    JournalRecord wrap(ByteBuffer segment, int offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Server receive time in milliseconds
+     */
+    public long getTimestamp() {
+        return segment.getLong(offset + 4);
+    }
+
+    /**
+     * Message type (5, 13, 14, 15, 16 or 19)
+     */
+    public int getType() {
+        return segment.get(offset + 12) & 0xFF;
+    }
+
+    public String getDeviceId() {
+        byte[] deviceId = new byte[deviceIdLength()];
+        for (int i = 0; i < deviceId.length; i++) {
+            deviceId[i] = segment.get(offset + TelemetryJournal.HEADER_SIZE + i);
+        }
+        return new String(deviceId, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the device id without decoding it
+     */
+    boolean deviceIdEquals(byte[] deviceId) {
+        if (deviceIdLength() != deviceId.length) {
+            return false;
+        }
+        for (int i = 0; i < deviceId.length; i++) {
+            if (segment.get(offset + TelemetryJournal.HEADER_SIZE + i) != deviceId[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serialized protobuf message, a zero-copy view into the mapped segment
+     * Parse with the message type's parser, e.g. ServerLBSInfo.PositionData.parseFrom(record.getPayload())
+     */
+    public ByteString getPayload() {
+        int start = offset + TelemetryJournal.HEADER_SIZE + deviceIdLength();
+        ByteBuffer payload = segment.duplicate();
+        payload.limit(offset + 4 + length).position(start);
+        return UnsafeByteOperations.unsafeWrap(payload.slice());
+    }
+
+    private int deviceIdLength() {
+        return segment.get(offset + 13) & 0xFF;
+    }
+}
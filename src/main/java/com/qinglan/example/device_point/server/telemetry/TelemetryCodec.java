@@ -0,0 +1,344 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact encoding of per-device telemetry streams for storage and export
+ * - Timestamps: points sharing a timestamp (targets of one frame) form a group; group sizes are
+ *   run-length encoded and group timestamps delta-of-delta zig-zag varint encoded, so a steady
+ *   frame rate costs about one byte per frame
+ * - Coordinates and vital values: zig-zag varint deltas, trajectory deltas taken per target id
+ *   so interleaved targets do not break the runs
+ * - Target ids, postures and state bytes: run-length encoded (run, value) varint pairs; target ids
+ *   as the residual against the previous frame's order and postures as the change per target,
+ *   so an unchanged scene is a single run
+ * Layout: byte format | varint count | column blocks in field order
+ */
+public final class TelemetryCodec {
+
+    public static final int FORMAT_TRAJECTORY = 1;
+    public static final int FORMAT_VITALS = 2;
+
+    private TelemetryCodec() {
+    }
+
+    /**
+     * Encode a trajectory window
+     */
+    public static byte[] encodeTrajectory(TrajectoryWindow window) {
+        Output out = new Output(window.size * 4 + 16);
+        out.writeByte(FORMAT_TRAJECTORY);
+        out.writeVarint(window.size);
+        writeTimestamps(out, window.timestamps, window.size);
+        writeRunLength(out, targetIdResiduals(window.targetIds, window.timestamps, window.size), window.size);
+        writeKeyedDeltas(out, window.xs, window.targetIds, window.size);
+        writeKeyedDeltas(out, window.ys, window.targetIds, window.size);
+        writeKeyedDeltas(out, window.zs, window.targetIds, window.size);
+        writeRunLength(out, keyedChanges(window.postures, window.targetIds, window.size), window.size);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a trajectory window produced by encodeTrajectory
+     *
+     * @throws IllegalArgumentException If the data is not a valid trajectory encoding
+     */
+    public static TrajectoryWindow decodeTrajectory(byte[] data) {
+        Input in = new Input(data);
+        checkFormat(in, FORMAT_TRAJECTORY);
+        TrajectoryWindow window = new TrajectoryWindow(in.readCount());
+        readTimestamps(in, window.timestamps, window.size);
+        readRunLength(in, window.targetIds, window.size);
+        restoreTargetIds(window.targetIds, window.timestamps, window.size);
+        readKeyedDeltas(in, window.xs, window.targetIds, window.size);
+        readKeyedDeltas(in, window.ys, window.targetIds, window.size);
+        readKeyedDeltas(in, window.zs, window.targetIds, window.size);
+        readRunLength(in, window.postures, window.size);
+        restoreKeyedChanges(window.postures, window.targetIds, window.size);
+        return window;
+    }
+
+    /**
+     * Encode a vital-sign series
+     */
+    public static byte[] encodeVitals(VitalSamples samples) {
+        Output out = new Output(samples.size * 3 + 16);
+        out.writeByte(FORMAT_VITALS);
+        out.writeVarint(samples.size);
+        writeTimestamps(out, samples.timestamps, samples.size);
+        writeDeltas(out, samples.breathRates, samples.size);
+        writeDeltas(out, samples.heartRates, samples.size);
+        writeRunLength(out, samples.states, samples.size);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a vital-sign series produced by encodeVitals
+     *
+     * @throws IllegalArgumentException If the data is not a valid vitals encoding
+     */
+    public static VitalSamples decodeVitals(byte[] data) {
+        Input in = new Input(data);
+        checkFormat(in, FORMAT_VITALS);
+        VitalSamples samples = new VitalSamples(in.readCount());
+        readTimestamps(in, samples.timestamps, samples.size);
+        readDeltas(in, samples.breathRates, samples.size);
+        readDeltas(in, samples.heartRates, samples.size);
+        readRunLength(in, samples.states, samples.size);
+        return samples;
+    }
+
+    private static void checkFormat(Input in, int format) {
+        int actual = in.readByte();
+        if (actual != format) {
+            throw new IllegalArgumentException("Unexpected telemetry format " + actual + ", expected " + format);
+        }
+    }
+
+    private static void writeTimestamps(Output out, long[] timestamps, int count) {
+        int[] groupSizes = new int[count];
+        int groups = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || timestamps[i] != timestamps[i - 1]) {
+                groups++;
+            }
+            groupSizes[groups - 1]++;
+        }
+        writeRunLength(out, groupSizes, groups);
+
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && timestamps[i] == timestamps[i - 1]) {
+                continue;
+            }
+            long delta = timestamps[i] - previous;
+            out.writeSignedVarLong(delta - previousDelta);
+            previousDelta = delta;
+            previous = timestamps[i];
+        }
+    }
+
+    private static void readTimestamps(Input in, long[] timestamps, int count) {
+        int[] groupSizes = new int[count];
+        int groups = 0;
+        for (int total = 0; total < count; groups++) {
+            int run = in.readVarint();
+            int size = (int) in.readSignedVarLong();
+            if (run <= 0 || size <= 0 || (long) run * size > count - total) {
+                throw new IllegalArgumentException("Corrupt timestamp groups");
+            }
+            for (int i = 0; i < run; i++) {
+                groupSizes[groups + i] = size;
+            }
+            groups += run - 1;
+            total += run * size;
+        }
+
+        long previous = 0;
+        long previousDelta = 0;
+        int index = 0;
+        for (int group = 0; group < groups; group++) {
+            long delta = previousDelta + in.readSignedVarLong();
+            long timestamp = previous + delta;
+            for (int end = index + groupSizes[group]; index < end; index++) {
+                timestamps[index] = timestamp;
+            }
+            previousDelta = delta;
+            previous = timestamp;
+        }
+    }
+
+    /**
+     * Target id minus its prediction: the previous id + 1 within a frame,
+     * otherwise the id at the same position of the previous frame
+     */
+    private static int[] targetIdResiduals(int[] targetIds, long[] timestamps, int count) {
+        int[] residuals = new int[count];
+        int frameStart = 0;
+        int previousFrameStart = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && timestamps[i] != timestamps[i - 1]) {
+                previousFrameStart = frameStart;
+                frameStart = i;
+            }
+            residuals[i] = targetIds[i] - predictTargetId(targetIds, i, frameStart, previousFrameStart);
+        }
+        return residuals;
+    }
+
+    private static void restoreTargetIds(int[] targetIds, long[] timestamps, int count) {
+        int frameStart = 0;
+        int previousFrameStart = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && timestamps[i] != timestamps[i - 1]) {
+                previousFrameStart = frameStart;
+                frameStart = i;
+            }
+            targetIds[i] += predictTargetId(targetIds, i, frameStart, previousFrameStart);
+        }
+    }
+
+    private static int predictTargetId(int[] targetIds, int index, int frameStart, int previousFrameStart) {
+        if (index > frameStart) {
+            return targetIds[index - 1] + 1;
+        }
+        return index > 0 ? targetIds[previousFrameStart] : 0;
+    }
+
+    private static int[] keyedChanges(int[] values, int[] keys, int count) {
+        int[] previous = new int[256];
+        int[] changes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int key = keys[i] & 0xFF;
+            changes[i] = values[i] - previous[key];
+            previous[key] = values[i];
+        }
+        return changes;
+    }
+
+    private static void restoreKeyedChanges(int[] values, int[] keys, int count) {
+        int[] previous = new int[256];
+        for (int i = 0; i < count; i++) {
+            int key = keys[i] & 0xFF;
+            values[i] += previous[key];
+            previous[key] = values[i];
+        }
+    }
+
+    private static void writeDeltas(Output out, int[] values, int count) {
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            out.writeSignedVarLong(values[i] - previous);
+            previous = values[i];
+        }
+    }
+
+    private static void readDeltas(Input in, int[] values, int count) {
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += (int) in.readSignedVarLong();
+            values[i] = previous;
+        }
+    }
+
+    private static void writeKeyedDeltas(Output out, int[] values, int[] keys, int count) {
+        int[] previous = new int[256];
+        for (int i = 0; i < count; i++) {
+            int key = keys[i] & 0xFF;
+            out.writeSignedVarLong(values[i] - previous[key]);
+            previous[key] = values[i];
+        }
+    }
+
+    private static void readKeyedDeltas(Input in, int[] values, int[] keys, int count) {
+        int[] previous = new int[256];
+        for (int i = 0; i < count; i++) {
+            int key = keys[i] & 0xFF;
+            previous[key] += (int) in.readSignedVarLong();
+            values[i] = previous[key];
+        }
+    }
+
+    private static void writeRunLength(Output out, int[] values, int count) {
+        int i = 0;
+        while (i < count) {
+            int value = values[i];
+            int run = 1;
+            while (i + run < count && values[i + run] == value) {
+                run++;
+            }
+            out.writeVarint(run);
+            out.writeSignedVarLong(value);
+            i += run;
+        }
+    }
+
+    private static void readRunLength(Input in, int[] values, int count) {
+        int i = 0;
+        while (i < count) {
+            int run = in.readVarint();
+            int value = (int) in.readSignedVarLong();
+            if (run <= 0 || run > count - i) {
+                throw new IllegalArgumentException("Corrupt run length " + run + " at index " + i);
+            }
+            for (int end = i + run; i < end; i++) {
+                values[i] = value;
+            }
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeVarint(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeSignedVarLong(long value) {
+            // Zig-zag: small magnitudes of either sign become small unsigned values
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated telemetry data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int readCount() {
+            int count = readVarint();
+            // Every point takes at least one timestamp byte
+            if (count < 0 || count > data.length - position) {
+                throw new IllegalArgumentException("Invalid point count " + count);
+            }
+            return count;
+        }
+
+        int readVarint() {
+            return (int) readVarLong();
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
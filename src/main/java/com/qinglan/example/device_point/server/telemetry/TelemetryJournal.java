@@ -0,0 +1,413 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.MessageLite;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Durable append-only journal of device telemetry (types 5, 13, 14, 15, 16, 19)
+ * - Segments are per-day memory-mapped files named yyyyMMdd-N.seg; a segment is mapped small and
+ *   remapped at twice the size as it fills, up to MAX_SEGMENT_SIZE, then the next one is started
+ * - Record: int length | long timestamp | byte type | byte idLength | device id (UTF-8) | payload
+ *   where length counts the bytes after itself and payload is the serialized protobuf message;
+ *   a zero length marks the end of the written data. The length is stored after the rest of the record,
+ *   so a concurrent reader sees either the old terminator or a complete record
+ * - timestamp is the server receive time, clamped so it never decreases in journal order
+ * - Each segment has a sparse index file yyyyMMdd-N.idx of (long timestamp, int offset) entries
+ * - Before a segment is opened, the oldest segment / index pairs are deleted while the journal exceeds
+ *   telemetry.journal.maxBytes or they are older than telemetry.journal.retentionDays
+ * - A write error closes the segment and drops the batch; after RETRY_DELAY_MILLIS the writer starts a new
+ *   segment, so a full disk pauses journaling instead of ending it
+ * Handlers only enqueue; a single writer thread appends in batches, so the event loop never touches disk
+ */
+@Slf4j
+public class TelemetryJournal {
+
+    public static final String SEGMENT_SUFFIX = ".seg";
+    public static final String INDEX_SUFFIX = ".idx";
+    static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{8})-(\\d+)\\.seg");
+    static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Record header: length, timestamp, type, device id length
+    static final int HEADER_SIZE = 4 + 8 + 1 + 1;
+    static final int INDEX_ENTRY_SIZE = 8 + 4;
+
+    private static final int INITIAL_SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int INDEX_INTERVAL = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int BATCH_SIZE = 4096;
+    private static final long FORCE_INTERVAL_MILLIS = 1000;
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024 * 1024;
+    private static final int DEFAULT_RETENTION_DAYS = 30;
+
+    // Looked up on every telemetry frame, so eager rather than synchronized lazy init; creates no files
+    private static final TelemetryJournal instance =
+        new TelemetryJournal(new File(System.getProperty("telemetry.journal.dir", "journal")),
+                             Long.getLong("telemetry.journal.maxBytes", DEFAULT_MAX_BYTES),
+                             Integer.getInteger("telemetry.journal.retentionDays", DEFAULT_RETENTION_DAYS));
+
+    private static final class Pending {
+        final String deviceId;
+        final int type;
+        final long timestamp;
+        final byte[] payload;
+
+        Pending(String deviceId, int type, long timestamp, byte[] payload) {
+            this.deviceId = deviceId;
+            this.type = type;
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final int retentionDays;
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private volatile boolean running;
+    // Set by close(), the writer is never restarted afterwards
+    private volatile boolean closed;
+    private Thread writerThread;
+
+    // Writer thread only
+    private RandomAccessFile segmentFile;
+    private MappedByteBuffer segment;
+    private FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+    private long segmentDayEnd;
+    private int lastIndexedOffset;
+    private long lastTimestamp;
+    private long lastForce;
+    // After a write error, nothing is written before this time
+    private long retryAt;
+
+    private TelemetryJournal(File directory, long maxBytes, int retentionDays) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Get singleton instance, writing to the directory given by the
+     * telemetry.journal.dir system property (default "journal"), bounded by telemetry.journal.maxBytes
+     * (default 8 GB) and telemetry.journal.retentionDays (default 30)
+     */
+    public static TelemetryJournal getInstance() {
+        return instance;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Queue a telemetry message for the journal, never blocks
+     * The writer thread is started on first use, so no files are created until telemetry arrives
+     *
+     * @param deviceId The device ID
+     * @param type Message type
+     * @param message The received message
+     * @return false if the journal is backlogged or closed and the message was dropped
+     */
+    public boolean append(String deviceId, int type, MessageLite message) {
+        if (deviceId == null || closed) {
+            return false;
+        }
+        if (!running && !start()) {
+            return false;
+        }
+        Pending pending = new Pending(deviceId, type, System.currentTimeMillis(), message.toByteArray());
+        if (!queue.offer(pending)) {
+            if (dropped.incrementAndGet() % 10000 == 1) {
+                log.warn("Telemetry journal backlogged, {} records dropped so far", dropped.get());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the journal was closed meanwhile
+     */
+    private synchronized boolean start() {
+        if (closed) {
+            return false;
+        }
+        if (running) {
+            return true;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "TelemetryJournal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        return true;
+    }
+
+    /**
+     * Write everything still queued, then stop the writer; later appends are dropped
+     */
+    public synchronized void close() {
+        closed = true;
+        if (!running) {
+            return;
+        }
+        // No interrupt: it would close the interruptible file channels under the writer
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (running || !queue.isEmpty()) {
+                if (System.currentTimeMillis() < retryAt) {
+                    if (!running) {
+                        // Closing while the disk is unusable, what is queued cannot be written
+                        dropped.addAndGet(queue.size());
+                        queue.clear();
+                        break;
+                    }
+                    // Let the queue fill up and appends drop, rather than failing every record
+                    Thread.sleep(200);
+                    continue;
+                }
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                try {
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, BATCH_SIZE - 1);
+                        for (Pending pending : batch) {
+                            write(pending);
+                        }
+                        written.addAndGet(batch.size());
+                    }
+                    long now = System.currentTimeMillis();
+                    if (segment != null && now - lastForce >= FORCE_INTERVAL_MILLIS) {
+                        segment.force();
+                        lastForce = now;
+                    }
+                } catch (IOException | RuntimeException | InternalError e) {
+                    // InternalError is how a mapped buffer reports a write the disk could not back
+                    log.error("Telemetry journal write failed, retrying with a new segment in {} ms",
+                              RETRY_DELAY_MILLIS, e);
+                    dropped.addAndGet(batch.size());
+                    closeSegment();
+                    retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void write(Pending pending) throws IOException {
+        byte[] deviceId = pending.deviceId.getBytes(StandardCharsets.UTF_8);
+        if (deviceId.length > 255) {
+            log.warn("Device ID too long for the journal: {}", pending.deviceId);
+            return;
+        }
+        int length = HEADER_SIZE - 4 + deviceId.length + pending.payload.length;
+        if (4 + length + 4 > MAX_SEGMENT_SIZE) {
+            log.warn("Telemetry record too large for a segment: {} bytes", length);
+            return;
+        }
+
+        long timestamp = Math.max(pending.timestamp, lastTimestamp);
+        // Keep room for the terminating zero length
+        int required = 4 + length + 4;
+        if (segment == null || timestamp >= segmentDayEnd) {
+            openSegment(timestamp);
+        }
+        if (segment.remaining() < required && !growSegment(segment.position() + required)) {
+            openSegment(timestamp);
+        }
+
+        int offset = segment.position();
+        if (offset == 0 || offset - lastIndexedOffset >= INDEX_INTERVAL) {
+            indexEntry.clear();
+            indexEntry.putLong(timestamp).putInt(offset).flip();
+            while (indexEntry.hasRemaining()) {
+                indexChannel.write(indexEntry);
+            }
+            lastIndexedOffset = offset;
+        }
+
+        // Body first, the length last: until it is stored the slot still reads as the zero terminator
+        segment.position(offset + 4);
+        segment.putLong(timestamp)
+            .put((byte) pending.type)
+            .put((byte) deviceId.length)
+            .put(deviceId)
+            .put(pending.payload);
+        segment.putInt(offset, length);
+        lastTimestamp = timestamp;
+    }
+
+    private void openSegment(long timestamp) throws IOException {
+        closeSegment();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory.getAbsolutePath());
+        }
+        enforceRetention(timestamp);
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        String dayName = day.format(DAY_FORMAT);
+        int sequence = nextSequence(dayName);
+        String baseName = dayName + "-" + sequence;
+
+        segmentFile = new RandomAccessFile(new File(directory, baseName + SEGMENT_SUFFIX), "rw");
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_SEGMENT_SIZE);
+        indexChannel = new RandomAccessFile(new File(directory, baseName + INDEX_SUFFIX), "rw").getChannel();
+        segmentDayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        lastIndexedOffset = 0;
+        log.info("Opened telemetry journal segment {}", baseName);
+    }
+
+    /**
+     * Remap the current segment so it holds at least the given size
+     *
+     * @return false if the segment is already at its maximum size
+     */
+    private boolean growSegment(int required) throws IOException {
+        int size = segment.capacity();
+        if (size >= MAX_SEGMENT_SIZE || required > MAX_SEGMENT_SIZE) {
+            return false;
+        }
+        while (size < required) {
+            size = Math.min(MAX_SEGMENT_SIZE, size * 2);
+        }
+        int position = segment.position();
+        segment.force();
+        // The file grows zero-filled, so the terminator after the last record stays in place
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segment.position(position);
+        return true;
+    }
+
+    /**
+     * Delete the oldest closed segments, with their index files, while the journal is over maxBytes
+     * or they are older than retentionDays; runs before a segment is opened, so none is in use
+     */
+    private void enforceRetention(long timestamp) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> segments = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            if (SEGMENT_NAME.matcher(file.getName()).matches()) {
+                segments.add(file);
+                total += file.length() + indexOf(file).length();
+            }
+        }
+        segments.sort((a, b) -> compareSegments(a.getName(), b.getName()));
+        String oldestKept = Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate()
+            .minusDays(retentionDays).format(DAY_FORMAT);
+        for (File file : segments) {
+            boolean expired = file.getName().substring(0, 8).compareTo(oldestKept) < 0;
+            if (!expired && total <= maxBytes) {
+                break;
+            }
+            File index = indexOf(file);
+            long size = file.length() + index.length();
+            if (!file.delete()) {
+                log.warn("Cannot delete telemetry journal segment {}", file.getAbsolutePath());
+                continue;
+            }
+            if (index.exists() && !index.delete()) {
+                log.warn("Cannot delete telemetry journal index {}", index.getAbsolutePath());
+            }
+            total -= size;
+            log.info("Deleted telemetry journal segment {} ({})", file.getName(), expired ? "expired" : "over size");
+        }
+    }
+
+    private static File indexOf(File segment) {
+        String name = segment.getName();
+        return new File(segment.getParentFile(), name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    // Day, then sequence number within the day
+    private static int compareSegments(String a, String b) {
+        Matcher ma = SEGMENT_NAME.matcher(a);
+        Matcher mb = SEGMENT_NAME.matcher(b);
+        if (!ma.matches() || !mb.matches()) {
+            return a.compareTo(b);
+        }
+        int day = ma.group(1).compareTo(mb.group(1));
+        return day != 0 ? day : Integer.compare(Integer.parseInt(ma.group(2)), Integer.parseInt(mb.group(2)));
+    }
+
+    private int nextSequence(String dayName) {
+        int next = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+                if (matcher.matches() && matcher.group(1).equals(dayName)) {
+                    next = Math.max(next, Integer.parseInt(matcher.group(2)) + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.force();
+            segmentFile.close();
+            indexChannel.force(false);
+            indexChannel.close();
+        } catch (IOException e) {
+            log.error("Error closing telemetry journal segment", e);
+        }
+        segment = null;
+        segmentFile = null;
+        indexChannel = null;
+    }
+}
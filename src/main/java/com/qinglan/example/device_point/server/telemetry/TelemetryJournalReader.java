@@ -0,0 +1,244 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Replays journal records of a device and time range, for backfills and investigations
+ * Segments are mapped read-only and scanned sequentially from the sparse index position,
+ * so replay runs at disk bandwidth without per-record allocation
+ */
+public class TelemetryJournalReader {
+
+    // Breath / heart rate message type and frame size
+    private static final int VITAL_TYPE = 14;
+    private static final int VITAL_FRAME_SIZE = 16;
+
+    /**
+     * Receives replayed records in journal order
+     */
+    public interface RecordVisitor {
+        /**
+         * @return false to stop the replay
+         */
+        boolean visit(JournalRecord record);
+    }
+
+    private static final class Segment {
+        final File file;
+        final LocalDate day;
+        final int sequence;
+
+        Segment(File file, LocalDate day, int sequence) {
+            this.file = file;
+            this.day = day;
+            this.sequence = sequence;
+        }
+    }
+
+    private final File directory;
+
+    public TelemetryJournalReader(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Replay the records of a device within a time range
+     *
+     * @param deviceId The device ID, or null for all devices
+     * @param fromMillis Range start, inclusive
+     * @param toMillis Range end, inclusive
+     * @param visitor Record consumer
+     * @return Number of records visited
+     * @throws IOException If a segment cannot be read
+     */
+    public long replay(String deviceId, long fromMillis, long toMillis, RecordVisitor visitor) throws IOException {
+        byte[] deviceIdBytes = deviceId != null ? deviceId.getBytes(StandardCharsets.UTF_8) : null;
+        ZoneId zone = ZoneId.systemDefault();
+        long visited = 0;
+
+        for (Segment segment : listSegments()) {
+            long dayStart = segment.day.atStartOfDay(zone).toInstant().toEpochMilli();
+            long dayEnd = segment.day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            if (dayEnd <= fromMillis || dayStart > toMillis) {
+                continue;
+            }
+            long result = replaySegment(segment.file, deviceIdBytes, fromMillis, toMillis, visitor);
+            if (result < 0) {
+                return visited - result - 1;
+            }
+            visited += result;
+        }
+        return visited;
+    }
+
+    /**
+     * Collect the real-time vital samples (type 14, identifier 0) of a device within a time range
+     * Samples are stamped with the device report time, or the journal receive time if the device sent none
+     *
+     * @param deviceId The device ID
+     * @param fromMillis Range start (receive time), inclusive
+     * @param toMillis Range end (receive time), inclusive
+     * @return The samples in journal order
+     * @throws IOException If a segment cannot be read or a record is corrupt
+     */
+    public VitalSamples readVitals(String deviceId, long fromMillis, long toMillis) throws IOException {
+        long[][] rows = {new long[1024], new long[1024], new long[1024], new long[1024]};
+        int[] count = {0};
+        try {
+            replay(deviceId, fromMillis, toMillis, record -> {
+                if (record.getType() != VITAL_TYPE) {
+                    return true;
+                }
+                ServerLBSInfo.ObjectData msg;
+                try {
+                    msg = ServerLBSInfo.ObjectData.parseFrom(record.getPayload());
+                } catch (InvalidProtocolBufferException e) {
+                    throw new IllegalStateException("Corrupt vital record of " + record.getDeviceId(), e);
+                }
+                ByteString data = msg.getData();
+                if (data.size() < VITAL_FRAME_SIZE || data.byteAt(0) != 0) {
+                    return true;
+                }
+                int i = count[0]++;
+                if (i == rows[0].length) {
+                    for (int column = 0; column < rows.length; column++) {
+                        rows[column] = Arrays.copyOf(rows[column], i * 2);
+                    }
+                }
+                rows[0][i] = msg.getSeconds() != 0
+                    ? (msg.getSeconds() & 0xFFFFFFFFL) * 1000L + msg.getMseconds() : record.getTimestamp();
+                rows[1][i] = data.byteAt(1) & 0xFF;
+                rows[2][i] = data.byteAt(2) & 0xFF;
+                rows[3][i] = data.byteAt(13) & 0xFF;
+                return true;
+            });
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+
+        VitalSamples samples = new VitalSamples(count[0]);
+        for (int i = 0; i < samples.size; i++) {
+            samples.timestamps[i] = rows[0][i];
+            samples.breathRates[i] = (int) rows[1][i];
+            samples.heartRates[i] = (int) rows[2][i];
+            samples.states[i] = (int) rows[3][i];
+        }
+        return samples;
+    }
+
+    /**
+     * Export the vital samples of a device within a time range in the compact TelemetryCodec format
+     *
+     * @param deviceId The device ID
+     * @param fromMillis Range start (receive time), inclusive
+     * @param toMillis Range end (receive time), inclusive
+     * @return The encoded samples
+     * @throws IOException If a segment cannot be read or a record is corrupt
+     */
+    public byte[] exportVitals(String deviceId, long fromMillis, long toMillis) throws IOException {
+        return TelemetryCodec.encodeVitals(readVitals(deviceId, fromMillis, toMillis));
+    }
+
+    /**
+     * @return Records visited, or -(visited + 1) if the visitor stopped the replay
+     */
+    private long replaySegment(File file, byte[] deviceId, long fromMillis, long toMillis,
+                               RecordVisitor visitor) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+
+        JournalRecord record = new JournalRecord();
+        long visited = 0;
+        int position = seek(indexFile(file), fromMillis);
+        while (position + 4 <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + 4 + length > buffer.limit()) {
+                break;
+            }
+            record.wrap(buffer, position, length);
+            long timestamp = record.getTimestamp();
+            if (timestamp > toMillis) {
+                // Timestamps never decrease in journal order
+                return -(visited + 1);
+            }
+            if (timestamp >= fromMillis && (deviceId == null || record.deviceIdEquals(deviceId))) {
+                visited++;
+                if (!visitor.visit(record)) {
+                    return -(visited + 1);
+                }
+            }
+            position += 4 + length;
+        }
+        return visited;
+    }
+
+    /**
+     * Offset of the last indexed record not after the given time
+     */
+    private int seek(File indexFile, long fromMillis) throws IOException {
+        if (!indexFile.isFile()) {
+            return 0;
+        }
+        ByteBuffer index;
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            index = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+        int low = 0;
+        int high = index.limit() / TelemetryJournal.INDEX_ENTRY_SIZE - 1;
+        int offset = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = mid * TelemetryJournal.INDEX_ENTRY_SIZE;
+            if (index.getLong(entry) < fromMillis) {
+                offset = index.getInt(entry + 8);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return offset;
+    }
+
+    private static File indexFile(File segmentFile) {
+        String name = segmentFile.getName();
+        return new File(segmentFile.getParentFile(),
+            name.substring(0, name.length() - TelemetryJournal.SEGMENT_SUFFIX.length()) + TelemetryJournal.INDEX_SUFFIX);
+    }
+
+    private List<Segment> listSegments() {
+        List<Segment> segments = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return segments;
+        }
+        for (File file : files) {
+            Matcher matcher = TelemetryJournal.SEGMENT_NAME.matcher(file.getName());
+            if (matcher.matches()) {
+                segments.add(new Segment(file,
+                    LocalDate.parse(matcher.group(1), TelemetryJournal.DAY_FORMAT),
+                    Integer.parseInt(matcher.group(2))));
+            }
+        }
+        segments.sort(Comparator.<Segment, LocalDate>comparing(s -> s.day).thenComparingInt(s -> s.sequence));
+        return segments;
+    }
+}
@@ -0,0 +1,219 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Flyweight view over a real-time trajectory frame (type 13)
+ * The frame holds one 16-byte record per target, see readme/radarDataIndex.txt section 4:
+ * - byte 0: target id (0-7, 88 when nobody is present)
+ * - bytes 1-3: x / y in decimeters, z in centimeters (signed)
+ * - byte 12: remaining time in seconds (automatic boundary measurement only)
+ * - byte 13: posture, byte 14: event, byte 15: area id
+ * Accessors read straight from the payload bytes; a frame instance is re-wrapped for every
+ * message and must not be retained by consumers after their callback returns.
+ */
+public final class TrajectoryFrame {
+
+    public static final int RECORD_SIZE = 16;
+
+    // Target id reported when the room is empty
+    public static final int NO_TARGET_ID = 88;
+
+    // Postures (byte 13)
+    public static final int POSTURE_INIT = 0;
+    public static final int POSTURE_WALK = 1;
+    public static final int POSTURE_SUSPECTED_FALL = 2;
+    public static final int POSTURE_SQUAT = 3;
+    public static final int POSTURE_STAND = 4;
+    public static final int POSTURE_FALL_CONFIRMED = 5;
+    public static final int POSTURE_LYING = 6;
+
+    // Events (byte 14)
+    public static final int EVENT_NONE = 0;
+    public static final int EVENT_ENTER_ROOM = 1;
+    public static final int EVENT_LEAVE_ROOM = 2;
+    public static final int EVENT_ENTER_AREA = 3;
+    public static final int EVENT_LEAVE_AREA = 4;
+
+    private static final int OFFSET_ID = 0;
+    private static final int OFFSET_X = 1;
+    private static final int OFFSET_Y = 2;
+    private static final int OFFSET_Z = 3;
+    private static final int OFFSET_REMAINING_TIME = 12;
+    private static final int OFFSET_POSTURE = 13;
+    private static final int OFFSET_EVENT = 14;
+    private static final int OFFSET_AREA_ID = 15;
+
+    private ByteString data = ByteString.EMPTY;
+    private int targetCount;
+    private long timestamp;
+
+    /**
+     * Visitor called once per target record without allocating per target
+     */
+    public interface TargetVisitor {
+        void visit(TrajectoryFrame frame, int index);
+    }
+
+    /**
+     * Point this view at a new payload
+     *
+     * @param data Frame payload, a multiple of 16 bytes; a trailing partial record is ignored
+     * @param seconds Seconds since 1970-01-01, 0 if the device did not send one
+     * @param mseconds Milliseconds part
+     * @return This frame
+     */
+    public TrajectoryFrame wrap(ByteString data, int seconds, int mseconds) {
+        this.data = data;
+        this.targetCount = data.size() / RECORD_SIZE;
+        // Fall back to the receive time, as fall reports do, so fall lookbacks find the points
+        this.timestamp = seconds != 0 ? (seconds & 0xFFFFFFFFL) * 1000L + mseconds : System.currentTimeMillis();
+        return this;
+    }
+
+    /**
+     * Number of target records in the frame
+     */
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Report time in milliseconds since 1970-01-01
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int targetId(int index) {
+        return unsigned(index, OFFSET_ID);
+    }
+
+    /**
+     * Whether the record is the "nobody present" marker rather than a target
+     */
+    public boolean isEmptyRecord(int index) {
+        return targetId(index) == NO_TARGET_ID;
+    }
+
+    /**
+     * X coordinate in decimeters
+     */
+    public int x(int index) {
+        return signed(index, OFFSET_X);
+    }
+
+    /**
+     * Y coordinate in decimeters
+     */
+    public int y(int index) {
+        return signed(index, OFFSET_Y);
+    }
+
+    /**
+     * Z coordinate in centimeters
+     */
+    public int z(int index) {
+        return signed(index, OFFSET_Z);
+    }
+
+    /**
+     * Remaining time of automatic boundary measurement, in seconds
+     */
+    public int remainingTime(int index) {
+        return unsigned(index, OFFSET_REMAINING_TIME);
+    }
+
+    public int posture(int index) {
+        return unsigned(index, OFFSET_POSTURE);
+    }
+
+    public int event(int index) {
+        return unsigned(index, OFFSET_EVENT);
+    }
+
+    /**
+     * Area id, meaningful when the event is EVENT_ENTER_AREA or EVENT_LEAVE_AREA
+     */
+    public int areaId(int index) {
+        return unsigned(index, OFFSET_AREA_ID);
+    }
+
+    /**
+     * Visit every target record in order
+     */
+    public void forEachTarget(TargetVisitor visitor) {
+        for (int i = 0; i < targetCount; i++) {
+            visitor.visit(this, i);
+        }
+    }
+
+    private int unsigned(int index, int offset) {
+        return data.byteAt(checkIndex(index) * RECORD_SIZE + offset) & 0xFF;
+    }
+
+    private int signed(int index, int offset) {
+        return data.byteAt(checkIndex(index) * RECORD_SIZE + offset);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= targetCount) {
+            throw new IndexOutOfBoundsException("Target index " + index + ", count " + targetCount);
+        }
+        return index;
+    }
+
+    /**
+     * Display name of a posture code
+     */
+    public static String postureName(int posture) {
+        switch (posture) {
+            case POSTURE_INIT: return "init";
+            case POSTURE_WALK: return "walk";
+            case POSTURE_SUSPECTED_FALL: return "suspected-fall";
+            case POSTURE_SQUAT: return "squat";
+            case POSTURE_STAND: return "stand";
+            case POSTURE_FALL_CONFIRMED: return "fall";
+            case POSTURE_LYING: return "lying";
+            default: return "unknown";
+        }
+    }
+
+    /**
+     * Display name of an event code
+     */
+    public static String eventName(int event) {
+        switch (event) {
+            case EVENT_NONE: return "none";
+            case EVENT_ENTER_ROOM: return "enter-room";
+            case EVENT_LEAVE_ROOM: return "leave-room";
+            case EVENT_ENTER_AREA: return "enter-area";
+            case EVENT_LEAVE_AREA: return "leave-area";
+            default: return "unknown";
+        }
+    }
+
+    /**
+     * Human readable frame content, for debug logging only
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TrajectoryFrame{ts=").append(timestamp);
+        for (int i = 0; i < targetCount; i++) {
+            if (isEmptyRecord(i)) {
+                builder.append(", empty");
+                continue;
+            }
+            builder.append(", #").append(targetId(i))
+                .append('(').append(x(i)).append(',').append(y(i)).append(',').append(z(i)).append(')')
+                .append(' ').append(postureName(posture(i)));
+            if (event(i) != EVENT_NONE) {
+                builder.append(' ').append(eventName(event(i)));
+                if (event(i) == EVENT_ENTER_AREA || event(i) == EVENT_LEAVE_AREA) {
+                    builder.append(" area=").append(areaId(i));
+                }
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
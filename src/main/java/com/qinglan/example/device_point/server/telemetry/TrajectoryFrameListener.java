@@ -0,0 +1,10 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+/**
+ * Consumer of decoded trajectory frames
+ * Called on the Netty event loop; the frame is only valid for the duration of the call
+ */
+public interface TrajectoryFrameListener {
+
+    void onFrame(String deviceId, TrajectoryFrame frame);
+}
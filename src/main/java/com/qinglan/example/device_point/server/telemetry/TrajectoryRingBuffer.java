@@ -0,0 +1,221 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed-capacity columnar history of trajectory points for one device
+ * - One primitive array per column, allocated once: 13 bytes per point
+ * - Writers are serialized and work as a seqlock: the claim counter moves before any slot is written,
+ *   the publish counter after all of them
+ * - Readers never lock on the fast path; they re-check the claim counter after copying and retry
+ *   if a concurrent append reached a slot they read
+ * - Stored timestamps never decrease: a frame older than the last one (device clock stepping back, or
+ *   receive-time fallback mixed with device time) is clamped to it, so windows can be found by binary search
+ */
+public class TrajectoryRingBuffer {
+
+    // Optimistic attempts before a reader takes the read lock
+    private static final int MAX_OPTIMISTIC_READS = 3;
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final byte[] targetIds;
+    private final byte[] xs;
+    private final byte[] ys;
+    private final byte[] zs;
+    private final byte[] postures;
+
+    // Serializes writers; its optimistic stamps give readers the fence the re-check needs
+    private final StampedLock lock = new StampedLock();
+
+    // Total points claimed by the append in progress; slot of point n is n % capacity
+    private volatile long claimed;
+    // Total points fully written
+    private volatile long written;
+    // Timestamp of the last append, guarded by the write lock
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public TrajectoryRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.targetIds = new byte[capacity];
+        this.xs = new byte[capacity];
+        this.ys = new byte[capacity];
+        this.zs = new byte[capacity];
+        this.postures = new byte[capacity];
+    }
+
+    /**
+     * Bytes held by a buffer of the given capacity
+     */
+    public static long footprint(int capacity) {
+        return capacity * (long) (Long.BYTES + 5);
+    }
+
+    /**
+     * Append every target of a frame, skipping the "nobody present" marker
+     *
+     * @param frame Decoded frame, read during the call only
+     */
+    public void append(TrajectoryFrame frame) {
+        append(frame, null);
+    }
+
+    /**
+     * Append every target of a frame, passing the coordinates of targets 0-7 through a smoother
+     *
+     * @param frame Decoded frame, read during the call only
+     * @param smoother The device's smoother, or null to store raw coordinates
+     */
+    public void append(TrajectoryFrame frame, TrajectorySmoother smoother) {
+        int points = 0;
+        for (int i = 0; i < frame.getTargetCount(); i++) {
+            if (!frame.isEmptyRecord(i)) {
+                points++;
+            }
+        }
+        if (points == 0) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            long next = written;
+            // Claim first, so a reader that sees any of the new slots also sees the claim
+            claimed = next + points;
+            long timestamp = Math.max(frame.getTimestamp(), lastTimestamp);
+            lastTimestamp = timestamp;
+            for (int i = 0; i < frame.getTargetCount(); i++) {
+                if (frame.isEmptyRecord(i)) {
+                    continue;
+                }
+                int slot = (int) (next % capacity);
+                int targetId = frame.targetId(i);
+                timestamps[slot] = timestamp;
+                targetIds[slot] = (byte) targetId;
+                if (smoother != null && TrajectorySmoother.isFiltered(targetId)) {
+                    smoother.update(targetId, timestamp, frame.x(i), frame.y(i), frame.z(i));
+                    xs[slot] = (byte) smoother.x(targetId);
+                    ys[slot] = (byte) smoother.y(targetId);
+                    zs[slot] = (byte) smoother.z(targetId);
+                } else {
+                    xs[slot] = (byte) frame.x(i);
+                    ys[slot] = (byte) frame.y(i);
+                    zs[slot] = (byte) frame.z(i);
+                }
+                postures[slot] = (byte) frame.posture(i);
+                next++;
+            }
+            // Publish the new slots to readers
+            written = next;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copy the points whose timestamp lies in [fromMillis, toMillis]
+     *
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return The points, oldest first
+     */
+    public TrajectoryWindow snapshot(long fromMillis, long toMillis) {
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_READS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            long end = written;
+            long start = Math.max(0, end - capacity);
+            TrajectoryWindow window = copy(start, end, fromMillis, toMillis);
+            // validate() fences the copy; the claim then tells whether any slot read above was reused
+            if (lock.validate(stamp) || claimed - capacity <= start) {
+                return window;
+            }
+        }
+
+        // A writer lapped the range on every attempt, copy under the read lock
+        long stamp = lock.readLock();
+        try {
+            long end = written;
+            return copy(Math.max(0, end - capacity), end, fromMillis, toMillis);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copy the points of [start, end) that fall inside the window
+     */
+    private TrajectoryWindow copy(long start, long end, long fromMillis, long toMillis) {
+        long first = lowerBound(start, end, fromMillis);
+        long last = upperBound(first, end, toMillis);
+
+        int count = (int) (last - first);
+        TrajectoryWindow window = new TrajectoryWindow(count);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((first + i) % capacity);
+            window.timestamps[i] = timestamps[slot];
+            window.targetIds[i] = targetIds[slot] & 0xFF;
+            window.xs[i] = xs[slot];
+            window.ys[i] = ys[slot];
+            window.zs[i] = zs[slot];
+            window.postures[i] = postures[slot] & 0xFF;
+        }
+        return window;
+    }
+
+    /**
+     * First point in [low, high) with a timestamp not before the given time
+     */
+    private long lowerBound(long low, long high, long millis) {
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[(int) (mid % capacity)] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First point in [low, high) with a timestamp after the given time
+     */
+    private long upperBound(long low, long high, long millis) {
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[(int) (mid % capacity)] <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy the points of the last given milliseconds, relative to the newest point
+     */
+    public TrajectoryWindow latest(long millis) {
+        long end = written;
+        if (end == 0) {
+            return new TrajectoryWindow(0);
+        }
+        long newest = timestamps[(int) ((end - 1) % capacity)];
+        return snapshot(newest - millis, Long.MAX_VALUE);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of points currently held
+     */
+    public int size() {
+        return (int) Math.min(written, capacity);
+    }
+}
@@ -0,0 +1,125 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+/**
+ * Alpha-beta smoothing of the radar coordinates of one device, targets 0-7
+ * - Per axis: predict position from the last velocity, then correct position by alpha
+ *   and velocity by beta times the residual
+ * - A target is re-seeded from the raw point after a gap, so a target that reappears does not
+ *   glide in from its old position
+ * - All state lives in preallocated float arrays, filtering a point allocates nothing
+ * Not thread-safe, callers serialize access per device
+ */
+public class TrajectorySmoother {
+
+    public static final int MAX_TARGETS = 8;
+
+    public static final float DEFAULT_ALPHA = 0.5f;
+    public static final float DEFAULT_BETA = 0.1f;
+
+    // Longer gaps re-seed the target
+    private static final long RESET_GAP_MILLIS = 1000;
+
+    private static final int AXES = 3;
+
+    private final float alpha;
+    private final float beta;
+
+    // [target * AXES + axis]
+    private final float[] position = new float[MAX_TARGETS * AXES];
+    private final float[] velocity = new float[MAX_TARGETS * AXES];
+    private final long[] lastTimestamp = new long[MAX_TARGETS];
+    private final boolean[] seeded = new boolean[MAX_TARGETS];
+
+    public TrajectorySmoother() {
+        this(DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * @param alpha Position gain, 0-1; lower is smoother but lags more
+     * @param beta Velocity gain, 0-alpha
+     */
+    public TrajectorySmoother(float alpha, float beta) {
+        if (alpha <= 0 || alpha > 1 || beta < 0 || beta > alpha) {
+            throw new IllegalArgumentException("Invalid filter gains: alpha=" + alpha + ", beta=" + beta);
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * Whether a target ID is filtered, other IDs pass through unchanged
+     */
+    public static boolean isFiltered(int targetId) {
+        return targetId >= 0 && targetId < MAX_TARGETS;
+    }
+
+    /**
+     * Feed a raw point; read the result with x / y / z
+     *
+     * @param targetId Target ID, 0-7
+     * @param timestamp Report time in milliseconds
+     * @param x Raw x in decimeters
+     * @param y Raw y in decimeters
+     * @param z Raw z in centimeters
+     */
+    public void update(int targetId, long timestamp, int x, int y, int z) {
+        int base = targetId * AXES;
+        long elapsed = timestamp - lastTimestamp[targetId];
+        // A reordered frame starts over as well
+        if (!seeded[targetId] || elapsed < 0 || elapsed > RESET_GAP_MILLIS) {
+            seed(targetId, base, timestamp, x, y, z);
+            return;
+        }
+        float dt = elapsed / 1000f;
+        correct(base, x, dt);
+        correct(base + 1, y, dt);
+        correct(base + 2, z, dt);
+        lastTimestamp[targetId] = timestamp;
+    }
+
+    private void seed(int targetId, int base, long timestamp, int x, int y, int z) {
+        position[base] = x;
+        position[base + 1] = y;
+        position[base + 2] = z;
+        velocity[base] = 0;
+        velocity[base + 1] = 0;
+        velocity[base + 2] = 0;
+        lastTimestamp[targetId] = timestamp;
+        seeded[targetId] = true;
+    }
+
+    private void correct(int index, int measured, float dt) {
+        float predicted = position[index] + velocity[index] * dt;
+        float residual = measured - predicted;
+        position[index] = predicted + alpha * residual;
+        if (dt > 0) {
+            velocity[index] += beta * residual / dt;
+        }
+    }
+
+    public int x(int targetId) {
+        return round(position[targetId * AXES]);
+    }
+
+    public int y(int targetId) {
+        return round(position[targetId * AXES + 1]);
+    }
+
+    public int z(int targetId) {
+        return round(position[targetId * AXES + 2]);
+    }
+
+    // Overshoot near the edge of the range must not wrap around when stored as a signed byte
+    private static int round(float value) {
+        return Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(value)));
+    }
+
+    /**
+     * Forget all targets
+     */
+    public void reset() {
+        for (int i = 0; i < MAX_TARGETS; i++) {
+            seeded[i] = false;
+        }
+    }
+}
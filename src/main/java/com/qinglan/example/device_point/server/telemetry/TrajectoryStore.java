@@ -0,0 +1,147 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent trajectory history of every connected device
+ * Fed by PositionDateHandler; a device's history is dropped when it disconnects,
+ * so memory stays at TrajectoryRingBuffer.footprint(capacity) per connected device
+ * With smoothing enabled (system property telemetry.trajectory.smoothing=true, or setSmoothing)
+ * the stored coordinates of targets 0-7 pass through a per-device TrajectorySmoother
+ */
+@Slf4j
+public class TrajectoryStore implements TrajectoryFrameListener {
+
+    // About 3 minutes of a single target reported at 20 frames per second
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static TrajectoryStore instance;
+
+    private final Map<String, TrajectoryRingBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final Map<String, TrajectorySmoother> smoothers = new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    private volatile boolean smoothing = Boolean.getBoolean("telemetry.trajectory.smoothing");
+
+    private TrajectoryStore(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized TrajectoryStore getInstance() {
+        if (instance == null) {
+            instance = new TrajectoryStore(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Turn smoothing of newly stored points on or off
+     */
+    public void setSmoothing(boolean smoothing) {
+        this.smoothing = smoothing;
+        if (!smoothing) {
+            smoothers.clear();
+        }
+    }
+
+    public boolean isSmoothing() {
+        return smoothing;
+    }
+
+    @Override
+    public void onFrame(String deviceId, TrajectoryFrame frame) {
+        // Look up before computeIfAbsent, the capturing lambda would allocate on every frame
+        TrajectoryRingBuffer buffer = buffers.get(deviceId);
+        if (buffer == null) {
+            buffer = buffers.computeIfAbsent(deviceId, k -> new TrajectoryRingBuffer(capacity));
+        }
+        TrajectorySmoother smoother = null;
+        if (smoothing) {
+            smoother = smoothers.get(deviceId);
+            if (smoother == null) {
+                smoother = smoothers.computeIfAbsent(deviceId, k -> new TrajectorySmoother());
+            }
+        }
+        buffer.append(frame, smoother);
+    }
+
+    /**
+     * Get the history of a device
+     *
+     * @param deviceId The device ID
+     * @return The buffer, or null if the device has not reported trajectories
+     */
+    public TrajectoryRingBuffer getHistory(String deviceId) {
+        return buffers.get(deviceId);
+    }
+
+    /**
+     * Copy the points of a device within a time window
+     *
+     * @param deviceId The device ID
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return The points, empty if none
+     */
+    public TrajectoryWindow snapshot(String deviceId, long fromMillis, long toMillis) {
+        TrajectoryRingBuffer buffer = buffers.get(deviceId);
+        return buffer != null ? buffer.snapshot(fromMillis, toMillis) : new TrajectoryWindow(0);
+    }
+
+    /**
+     * Copy the most recent points of one target, e.g. the movement leading up to an event
+     *
+     * @param deviceId The device ID
+     * @param targetId The target ID
+     * @param toMillis Window end, inclusive; 0 to end at the newest point of the device
+     * @param millis Window length
+     * @return The target's points, empty if none
+     */
+    public TrajectoryWindow lookback(String deviceId, int targetId, long toMillis, long millis) {
+        TrajectoryRingBuffer buffer = buffers.get(deviceId);
+        if (buffer == null) {
+            return new TrajectoryWindow(0);
+        }
+        TrajectoryWindow window = toMillis > 0 ? buffer.snapshot(toMillis - millis, toMillis) : buffer.latest(millis);
+        return window.filterTarget(targetId);
+    }
+
+    /**
+     * Export the points of a device within a time window in the compact TelemetryCodec format
+     *
+     * @param deviceId The device ID
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return The encoded points
+     */
+    public byte[] exportCompressed(String deviceId, long fromMillis, long toMillis) {
+        return TelemetryCodec.encodeTrajectory(snapshot(deviceId, fromMillis, toMillis));
+    }
+
+    /**
+     * Drop the history of a device
+     *
+     * @param deviceId The device ID
+     */
+    public void remove(String deviceId) {
+        smoothers.remove(deviceId);
+        if (buffers.remove(deviceId) != null) {
+            log.debug("Dropped trajectory history of {}", deviceId);
+        }
+    }
+
+    /**
+     * Bytes currently reserved for trajectory history
+     */
+    public long getFootprint() {
+        return buffers.size() * TrajectoryRingBuffer.footprint(capacity);
+    }
+}
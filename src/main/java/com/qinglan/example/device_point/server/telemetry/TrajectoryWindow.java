@@ -0,0 +1,65 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+/**
+ * Columnar copy of trajectory points within a time window, oldest first
+ * Columns are exposed directly so analytics can loop over primitives
+ */
+public final class TrajectoryWindow {
+
+    public final int size;
+    public final long[] timestamps;
+    public final int[] targetIds;
+    // Coordinates: x / y in decimeters, z in centimeters
+    public final int[] xs;
+    public final int[] ys;
+    public final int[] zs;
+    public final int[] postures;
+
+    TrajectoryWindow(int size) {
+        this(size, new long[size], new int[size], new int[size], new int[size], new int[size], new int[size]);
+    }
+
+    private TrajectoryWindow(int size, long[] timestamps, int[] targetIds,
+                             int[] xs, int[] ys, int[] zs, int[] postures) {
+        this.size = size;
+        this.timestamps = timestamps;
+        this.targetIds = targetIds;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.postures = postures;
+    }
+
+    /**
+     * Copy the points of one target
+     *
+     * @param targetId The target ID
+     * @return The target's points, oldest first
+     */
+    public TrajectoryWindow filterTarget(int targetId) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (targetIds[i] == targetId) {
+                count++;
+            }
+        }
+        TrajectoryWindow window = new TrajectoryWindow(count);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (targetIds[i] == targetId) {
+                window.timestamps[j] = timestamps[i];
+                window.targetIds[j] = targetId;
+                window.xs[j] = xs[i];
+                window.ys[j] = ys[i];
+                window.zs[j] = zs[i];
+                window.postures[j] = postures[i];
+                j++;
+            }
+        }
+        return window;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+/**
+ * Columnar series of vital-sign samples (type 14), oldest first
+ */
+public final class VitalSamples {
+
+    public final int size;
+    public final long[] timestamps;
+    // Breaths per minute
+    public final int[] breathRates;
+    // Beats per minute
+    public final int[] heartRates;
+    // Byte 13 of the frame: sleep state in bits 6-7, vital events in bits 0-5
+    public final int[] states;
+
+    public VitalSamples(int size) {
+        this.size = size;
+        this.timestamps = new long[size];
+        this.breathRates = new int[size];
+        this.heartRates = new int[size];
+        this.states = new int[size];
+    }
+}
@@ -0,0 +1,190 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Streaming anomaly detector of one vital sign of one device, fixed-size state and O(1) per sample
+ * - Baseline: Welford mean / variance over the first WARMUP_SAMPLES samples, then an exponentially
+ *   weighted mean / variance that follows slow drift; it is frozen while a sample looks abnormal
+ * - Level: a fast EWMA of the samples, compared with the baseline as a z-score
+ * - Hysteresis: an anomaly starts after ENTER_SAMPLES consecutive samples beyond ENTER_Z on the same side
+ *   and ends after EXIT_SAMPLES consecutive samples back within EXIT_Z
+ * - A gap of more than MAX_GAP_MILLIS restarts the level and ends an open anomaly
+ * Not thread-safe, callers serialize access per device
+ */
+final class AnomalyDetector {
+
+    static final int NONE = 0;
+    static final int STARTED = 1;
+    static final int ENDED = 2;
+
+    static final int WARMUP_SAMPLES = 300;
+    static final double LEVEL_ALPHA = 0.1;
+    // About an hour of samples at one per second
+    static final double BASELINE_ALPHA = 1.0 / 3600;
+    static final double ENTER_Z = 3.0;
+    static final double EXIT_Z = 1.5;
+    static final int ENTER_SAMPLES = 10;
+    static final int EXIT_SAMPLES = 30;
+    static final long MAX_GAP_MILLIS = 60_000;
+
+    // Keeps a very steady baseline from turning every small wobble into a large z-score
+    private final double minStdDev;
+
+    private int warmupCount;
+    private double mean;
+    // Welford sum of squared deviations, warm-up only
+    private double m2;
+    private double variance;
+    private double level;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private boolean active;
+    private int direction;
+    private int streak;
+    private int streakDirection;
+    private long since;
+    private long until;
+    private double z;
+    private double peakZ;
+
+    AnomalyDetector(double minStdDev) {
+        this.minStdDev = minStdDev;
+    }
+
+    /**
+     * Feed one sample
+     *
+     * @param value The reading, must be a real reading (not 0)
+     * @param timestamp Report time
+     * @return NONE, STARTED or ENDED
+     */
+    int update(double value, long timestamp) {
+        if (lastTimestamp == Long.MIN_VALUE || timestamp - lastTimestamp > MAX_GAP_MILLIS) {
+            level = value;
+            streak = 0;
+            if (active) {
+                // Interrupted, the anomaly ends at the last sample before the gap
+                active = false;
+                until = lastTimestamp;
+                lastTimestamp = timestamp;
+                return ENDED;
+            }
+        } else {
+            level += LEVEL_ALPHA * (value - level);
+        }
+        // A reordered frame still counts, but must not move the clock back
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+
+        if (warmupCount < WARMUP_SAMPLES) {
+            warmupCount++;
+            double delta = value - mean;
+            mean += delta / warmupCount;
+            m2 += delta * (value - mean);
+            if (warmupCount == WARMUP_SAMPLES) {
+                variance = m2 / (warmupCount - 1);
+            }
+            return NONE;
+        }
+
+        z = (level - mean) / getStdDev();
+        if (active) {
+            if (z * direction < EXIT_Z) {
+                if (++streak >= EXIT_SAMPLES) {
+                    active = false;
+                    until = timestamp;
+                    streak = 0;
+                    return ENDED;
+                }
+            } else {
+                streak = 0;
+                peakZ = Math.abs(z) > Math.abs(peakZ) ? z : peakZ;
+            }
+            return NONE;
+        }
+
+        if (Math.abs(z) >= ENTER_Z) {
+            int sign = z > 0 ? 1 : -1;
+            streak = sign == streakDirection ? streak + 1 : 1;
+            streakDirection = sign;
+            if (streak >= ENTER_SAMPLES) {
+                active = true;
+                direction = sign;
+                since = timestamp;
+                peakZ = z;
+                streak = 0;
+                return STARTED;
+            }
+            return NONE;
+        }
+        streak = 0;
+        // Only normal samples move the baseline, so an anomaly is not absorbed into it
+        double delta = value - mean;
+        double increment = BASELINE_ALPHA * delta;
+        mean += increment;
+        variance = (1 - BASELINE_ALPHA) * (variance + delta * increment);
+        return NONE;
+    }
+
+    /**
+     * End an open anomaly without a sample, e.g. when the device disconnects
+     *
+     * @return true if an anomaly was open
+     */
+    boolean end() {
+        if (!active) {
+            return false;
+        }
+        active = false;
+        until = lastTimestamp;
+        streak = 0;
+        return true;
+    }
+
+    boolean isWarm() {
+        return warmupCount >= WARMUP_SAMPLES;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 1 for an anomaly above the baseline, -1 below
+     */
+    int getDirection() {
+        return direction;
+    }
+
+    double getLevel() {
+        return level;
+    }
+
+    double getMean() {
+        return mean;
+    }
+
+    double getStdDev() {
+        return Math.max(Math.sqrt(variance), minStdDev);
+    }
+
+    double getZ() {
+        return z;
+    }
+
+    /**
+     * Largest z-score of the current or last anomaly
+     */
+    double getPeakZ() {
+        return peakZ;
+    }
+
+    long getSince() {
+        return since;
+    }
+
+    /**
+     * When the last anomaly ended
+     */
+    long getUntil() {
+        return until;
+    }
+}
@@ -0,0 +1,243 @@
+package com.qinglan.example.device_point.server.vital;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-device sleep session detection and nightly summaries
+ * - A session starts with the first light / deep sleep state or sleep statistics frame (identifier 0xff)
+ * - It ends after END_GAP_MILLIS without sleep: awake / undefined states only, or no frames at all;
+ *   a disconnect does not end it, a reconnect within the gap continues the same night
+ * - Real-time frames attribute the time since the previous frame to its sleep state;
+ *   time after the last sleep report is only counted if sleep resumes
+ * - Sleep statistics frames feed the minute-average breath / heart rates and the event counts
+ * Everything is accumulated incrementally, the raw night is never buffered
+ */
+@Slf4j
+public class SleepSessionTracker implements VitalFrameListener {
+
+    // Time without sleep that ends a session
+    public static final long END_GAP_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    // Sessions with less sleep and no sleep statistics are discarded as noise
+    public static final long MIN_SLEEP_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Longer gaps between frames are treated as missing data, not as time in the previous state
+    private static final long MAX_FRAME_GAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // Completed summaries retained per device
+    private static final int MAX_SUMMARIES = 14;
+
+    private static SleepSessionTracker instance;
+
+    private static final class Session {
+        long startTime;
+        long lastSleepTime;
+        long lastFrameTime;
+        int lastState = VitalFrame.SLEEP_UNDEFINED;
+        final long[] stateMillis = new long[VitalFrame.SLEEP_STATE_COUNT];
+        // Time since the last sleep report, committed when sleep resumes
+        final long[] pendingMillis = new long[VitalFrame.SLEEP_STATE_COUNT];
+        long breathSum;
+        int breathCount;
+        long heartSum;
+        int heartCount;
+        int breathEvent;
+        int heartEvent;
+        int vitalEvent;
+        int breathEvents;
+        int heartEvents;
+        int vitalEvents;
+        int statisticsFrames;
+
+        Session(long timestamp) {
+            startTime = timestamp;
+            lastSleepTime = timestamp;
+            lastFrameTime = timestamp;
+        }
+    }
+
+    private static final class DeviceSleep {
+        Session session;
+        // Server time of the last frame, used to end sessions of devices that went quiet
+        long lastReceived;
+        final ArrayDeque<SleepSummary> summaries = new ArrayDeque<>();
+    }
+
+    private final Map<String, DeviceSleep> devices = new ConcurrentHashMap<>();
+
+    private SleepSessionTracker() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized SleepSessionTracker getInstance() {
+        if (instance == null) {
+            instance = new SleepSessionTracker();
+        }
+        return instance;
+    }
+
+    @Override
+    public void onFrame(String deviceId, VitalFrame frame) {
+        DeviceSleep device = devices.computeIfAbsent(deviceId, k -> new DeviceSleep());
+        long timestamp = frame.getTimestamp();
+        synchronized (device) {
+            long now = System.currentTimeMillis();
+            Session session = device.session;
+            if (session != null && (now - device.lastReceived >= END_GAP_MILLIS
+                || timestamp - session.lastSleepTime >= END_GAP_MILLIS)) {
+                end(deviceId, device);
+                session = null;
+            }
+            device.lastReceived = now;
+
+            if (frame.isSleepStatistics()) {
+                if (session == null) {
+                    session = startSession(deviceId, device, timestamp);
+                }
+                onStatistics(session, frame, timestamp);
+            } else {
+                int state = frame.sleepState();
+                if (session == null) {
+                    if (!isAsleep(state)) {
+                        return;
+                    }
+                    session = startSession(deviceId, device, timestamp);
+                }
+                onState(session, state, timestamp);
+            }
+        }
+    }
+
+    private Session startSession(String deviceId, DeviceSleep device, long timestamp) {
+        log.debug("Sleep session started: deviceId={}, time={}", deviceId, timestamp);
+        device.session = new Session(timestamp);
+        return device.session;
+    }
+
+    private static void onState(Session session, int state, long timestamp) {
+        long elapsed = timestamp - session.lastFrameTime;
+        if (elapsed > 0) {
+            if (elapsed <= MAX_FRAME_GAP_MILLIS) {
+                session.pendingMillis[session.lastState] += elapsed;
+            }
+            session.lastFrameTime = timestamp;
+        }
+        session.lastState = state;
+        if (isAsleep(state)) {
+            for (int i = 0; i < VitalFrame.SLEEP_STATE_COUNT; i++) {
+                session.stateMillis[i] += session.pendingMillis[i];
+                session.pendingMillis[i] = 0;
+            }
+            session.lastSleepTime = Math.max(session.lastSleepTime, timestamp);
+        }
+    }
+
+    private static void onStatistics(Session session, VitalFrame frame, long timestamp) {
+        session.statisticsFrames++;
+        session.lastSleepTime = Math.max(session.lastSleepTime, timestamp);
+        int breathRate = frame.minuteBreathRate();
+        if (breathRate > 0) {
+            session.breathSum += breathRate;
+            session.breathCount++;
+        }
+        int heartRate = frame.minuteHeartRate();
+        if (heartRate > 0) {
+            session.heartSum += heartRate;
+            session.heartCount++;
+        }
+        // Count an event when its state leaves normal, not for every frame it persists
+        int breathEvent = frame.breathEvent();
+        if (breathEvent != 0 && session.breathEvent == 0) {
+            session.breathEvents++;
+        }
+        session.breathEvent = breathEvent;
+        int heartEvent = frame.heartEvent();
+        if (heartEvent != 0 && session.heartEvent == 0) {
+            session.heartEvents++;
+        }
+        session.heartEvent = heartEvent;
+        int vitalEvent = frame.vitalEvent();
+        if (vitalEvent != 0 && session.vitalEvent == 0) {
+            session.vitalEvents++;
+        }
+        session.vitalEvent = vitalEvent;
+    }
+
+    private static boolean isAsleep(int state) {
+        return state == VitalFrame.SLEEP_LIGHT || state == VitalFrame.SLEEP_DEEP;
+    }
+
+    private void end(String deviceId, DeviceSleep device) {
+        Session session = device.session;
+        device.session = null;
+        SleepSummary summary = summarize(deviceId, session, true);
+        if (summary.getSleepMillis() < MIN_SLEEP_MILLIS && summary.getStatisticsFrames() == 0) {
+            log.debug("Discarded short sleep session: {}", summary);
+            return;
+        }
+        device.summaries.addLast(summary);
+        while (device.summaries.size() > MAX_SUMMARIES) {
+            device.summaries.removeFirst();
+        }
+        log.info("Sleep session ended: {}", summary);
+    }
+
+    private static SleepSummary summarize(String deviceId, Session session, boolean complete) {
+        return new SleepSummary(deviceId, session.startTime, session.lastSleepTime,
+            Arrays.copyOf(session.stateMillis, session.stateMillis.length),
+            session.breathCount > 0 ? (double) session.breathSum / session.breathCount : 0,
+            session.heartCount > 0 ? (double) session.heartSum / session.heartCount : 0,
+            session.breathEvents, session.heartEvents, session.vitalEvents, session.statisticsFrames, complete);
+    }
+
+    private void endIfIdle(String deviceId, DeviceSleep device) {
+        if (device.session != null && System.currentTimeMillis() - device.lastReceived >= END_GAP_MILLIS) {
+            end(deviceId, device);
+        }
+    }
+
+    /**
+     * Get the summary of the session in progress
+     *
+     * @param deviceId The device ID
+     * @return The partial summary, or null if the device is not asleep
+     */
+    public SleepSummary getCurrent(String deviceId) {
+        DeviceSleep device = devices.get(deviceId);
+        if (device == null) {
+            return null;
+        }
+        synchronized (device) {
+            endIfIdle(deviceId, device);
+            return device.session != null ? summarize(deviceId, device.session, false) : null;
+        }
+    }
+
+    /**
+     * Get the completed sessions of a device, oldest first
+     *
+     * @param deviceId The device ID
+     * @return The summaries, empty if none
+     */
+    public List<SleepSummary> getSummaries(String deviceId) {
+        DeviceSleep device = devices.get(deviceId);
+        if (device == null) {
+            return Collections.emptyList();
+        }
+        synchronized (device) {
+            endIfIdle(deviceId, device);
+            return new ArrayList<>(device.summaries);
+        }
+    }
+}
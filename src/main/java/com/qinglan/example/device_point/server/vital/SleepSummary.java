@@ -0,0 +1,125 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Immutable summary of one sleep session of a device
+ */
+public final class SleepSummary {
+
+    private final String deviceId;
+    private final long startTime;
+    private final long endTime;
+    private final long[] stateMillis;
+    private final double breathAvg;
+    private final double heartAvg;
+    private final int breathEvents;
+    private final int heartEvents;
+    private final int vitalEvents;
+    private final int statisticsFrames;
+    private final boolean complete;
+
+    SleepSummary(String deviceId, long startTime, long endTime, long[] stateMillis,
+                 double breathAvg, double heartAvg, int breathEvents, int heartEvents, int vitalEvents,
+                 int statisticsFrames, boolean complete) {
+        this.deviceId = deviceId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.stateMillis = stateMillis;
+        this.breathAvg = breathAvg;
+        this.heartAvg = heartAvg;
+        this.breathEvents = breathEvents;
+        this.heartEvents = heartEvents;
+        this.vitalEvents = vitalEvents;
+        this.statisticsFrames = statisticsFrames;
+        this.complete = complete;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Time the device first reported sleep, milliseconds since 1970-01-01
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Time of the last sleep report of the session
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getDurationMillis() {
+        return endTime - startTime;
+    }
+
+    /**
+     * Time spent in a sleep state, indexed by the VitalFrame.SLEEP_ constants
+     */
+    public long getStateMillis(int state) {
+        return stateMillis[state];
+    }
+
+    /**
+     * Time spent in light or deep sleep
+     */
+    public long getSleepMillis() {
+        return stateMillis[VitalFrame.SLEEP_LIGHT] + stateMillis[VitalFrame.SLEEP_DEEP];
+    }
+
+    /**
+     * Average of the reported minute-average breath rates, 0 if none
+     */
+    public double getBreathAvg() {
+        return breathAvg;
+    }
+
+    /**
+     * Average of the reported minute-average heart rates, 0 if none
+     */
+    public double getHeartAvg() {
+        return heartAvg;
+    }
+
+    /**
+     * Number of breath events, a continuous abnormal state counts once
+     */
+    public int getBreathEvents() {
+        return breathEvents;
+    }
+
+    public int getHeartEvents() {
+        return heartEvents;
+    }
+
+    public int getVitalEvents() {
+        return vitalEvents;
+    }
+
+    /**
+     * Sleep statistics frames (identifier 0xff) received during the session
+     */
+    public int getStatisticsFrames() {
+        return statisticsFrames;
+    }
+
+    /**
+     * False while the session is still in progress
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "SleepSummary{" + deviceId + " " + startTime + "-" + endTime
+            + ", light=" + stateMillis[VitalFrame.SLEEP_LIGHT] / 60000 + "min"
+            + ", deep=" + stateMillis[VitalFrame.SLEEP_DEEP] / 60000 + "min"
+            + ", awake=" + stateMillis[VitalFrame.SLEEP_AWAKE] / 60000 + "min"
+            + ", breathAvg=" + String.format("%.1f", breathAvg) + ", heartAvg=" + String.format("%.1f", heartAvg)
+            + ", events=" + breathEvents + "/" + heartEvents + "/" + vitalEvents
+            + (complete ? "" : ", in progress") + "}";
+    }
+}
@@ -0,0 +1,120 @@
+package com.qinglan.example.device_point.server.vital;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+
+/**
+ * FFT workspace of one analysis thread: the JTransforms plan, the Hann window and all buffers
+ * are created once and reused for every series, only the result objects are allocated
+ * - Series are sampled at 1 Hz; the linear trend is removed and a Hann window applied before the FFT
+ * - Power is a one-sided spectral density, band powers integrate it, so they are in (per minute)^2
+ * Not thread-safe, every worker owns its own analyzer
+ */
+final class SpectralAnalyzer {
+
+    private static final double SAMPLE_RATE = 1.0;
+
+    private final int size;
+    private final DoubleFFT_1D fft;
+    private final double[] hann;
+    private final double powerScale;
+    private final double[] buffer;
+    private final double[] power;
+
+    // Inputs, filled by the caller before analyze
+    final double[] breath;
+    final double[] heart;
+
+    SpectralAnalyzer(int size) {
+        if (size < 4 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        this.fft = new DoubleFFT_1D(size);
+        this.hann = new double[size];
+        double sumSquares = 0;
+        for (int i = 0; i < size; i++) {
+            hann[i] = 0.5 * (1 - Math.cos(2 * Math.PI * i / (size - 1)));
+            sumSquares += hann[i] * hann[i];
+        }
+        // One-sided density: double every bin but DC and Nyquist, undo the window's energy loss
+        this.powerScale = 2 / (SAMPLE_RATE * sumSquares);
+        this.buffer = new double[size];
+        this.power = new double[size / 2 + 1];
+        this.breath = new double[size];
+        this.heart = new double[size];
+    }
+
+    /**
+     * Analyze one series
+     *
+     * @param series size samples at 1 Hz, oldest first
+     */
+    SpectralMetrics analyze(double[] series) {
+        double sum = 0;
+        double diffSquares = 0;
+        for (int i = 0; i < size; i++) {
+            sum += series[i];
+            if (i > 0) {
+                double diff = series[i] - series[i - 1];
+                diffSquares += diff * diff;
+            }
+        }
+        double mean = sum / size;
+
+        // Least squares trend around the window center
+        double center = (size - 1) / 2.0;
+        double covariance = 0;
+        double variance = 0;
+        double deviationSquares = 0;
+        for (int i = 0; i < size; i++) {
+            double deviation = series[i] - mean;
+            covariance += (i - center) * deviation;
+            variance += (i - center) * (i - center);
+            deviationSquares += deviation * deviation;
+        }
+        double slope = covariance / variance;
+        for (int i = 0; i < size; i++) {
+            buffer[i] = (series[i] - mean - slope * (i - center)) * hann[i];
+        }
+
+        // In place: [0] = Re(0), [1] = Re(n/2), [2k] / [2k+1] = Re / Im of bin k
+        fft.realForward(buffer);
+        int half = size / 2;
+        for (int k = 1; k < half; k++) {
+            double re = buffer[2 * k];
+            double im = buffer[2 * k + 1];
+            power[k] = (re * re + im * im) * powerScale;
+        }
+        power[half] = buffer[1] * buffer[1] * powerScale / 2;
+
+        double resolution = SAMPLE_RATE / size;
+        double total = 0;
+        double low = 0;
+        double high = 0;
+        int peak = 0;
+        for (int k = 1; k <= half; k++) {
+            double frequency = k * resolution;
+            total += power[k];
+            if (frequency >= SpectralMetrics.LOW_FREQUENCY_MIN && frequency < SpectralMetrics.LOW_FREQUENCY_MAX) {
+                low += power[k];
+            } else if (frequency >= SpectralMetrics.LOW_FREQUENCY_MAX && frequency < SpectralMetrics.HIGH_FREQUENCY_MAX) {
+                high += power[k];
+            }
+            if (peak == 0 || power[k] > power[peak]) {
+                peak = k;
+            }
+        }
+
+        double dominantFrequency = 0;
+        double periodicity = 0;
+        if (total > 0) {
+            dominantFrequency = peak * resolution;
+            // The Hann window spreads a pure tone over the peak bin and its neighbours, DC (bin 0) stays 0
+            double peakPower = power[peak] + power[peak - 1] + (peak < half ? power[peak + 1] : 0);
+            periodicity = Math.min(1, peakPower / total);
+        }
+
+        return new SpectralMetrics(mean, Math.sqrt(deviationSquares / size), Math.sqrt(diffSquares / (size - 1)),
+                                   dominantFrequency, periodicity, low * resolution, high * resolution);
+    }
+}
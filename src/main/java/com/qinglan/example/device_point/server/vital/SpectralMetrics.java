@@ -0,0 +1,97 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Time and frequency domain metrics of one rate series (breath or heart, per minute) over a window
+ * - stdDev and rmssd describe how much the reported rate varies, overall and from second to second
+ * - The spectrum is of the rate's fluctuation around its linear trend, sampled at 1 Hz
+ * - The low / high frequency bands are the conventional heart rate variability bands
+ *   (0.04-0.15 Hz / 0.15-0.4 Hz); they are computed from the reported rate, not beat-to-beat intervals
+ */
+public final class SpectralMetrics {
+
+    public static final double LOW_FREQUENCY_MIN = 0.04;
+    public static final double LOW_FREQUENCY_MAX = 0.15;
+    public static final double HIGH_FREQUENCY_MAX = 0.4;
+
+    private final double mean;
+    private final double stdDev;
+    private final double rmssd;
+    private final double dominantFrequency;
+    private final double periodicity;
+    private final double lowFrequencyPower;
+    private final double highFrequencyPower;
+
+    SpectralMetrics(double mean, double stdDev, double rmssd, double dominantFrequency, double periodicity,
+                    double lowFrequencyPower, double highFrequencyPower) {
+        this.mean = mean;
+        this.stdDev = stdDev;
+        this.rmssd = rmssd;
+        this.dominantFrequency = dominantFrequency;
+        this.periodicity = periodicity;
+        this.lowFrequencyPower = lowFrequencyPower;
+        this.highFrequencyPower = highFrequencyPower;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    /**
+     * Root mean square of successive one-second differences
+     */
+    public double getRmssd() {
+        return rmssd;
+    }
+
+    /**
+     * Frequency of the strongest fluctuation in Hz, 0 for a flat series
+     */
+    public double getDominantFrequency() {
+        return dominantFrequency;
+    }
+
+    /**
+     * Period of the strongest fluctuation in seconds, 0 for a flat series
+     */
+    public double getDominantPeriodSeconds() {
+        return dominantFrequency > 0 ? 1 / dominantFrequency : 0;
+    }
+
+    /**
+     * Share of the fluctuation power in the dominant peak, 0-1; high values mean a regular, cyclic pattern
+     */
+    public double getPeriodicity() {
+        return periodicity;
+    }
+
+    /**
+     * Power in the low frequency band, (per minute)^2
+     */
+    public double getLowFrequencyPower() {
+        return lowFrequencyPower;
+    }
+
+    /**
+     * Power in the high frequency band, (per minute)^2
+     */
+    public double getHighFrequencyPower() {
+        return highFrequencyPower;
+    }
+
+    /**
+     * Low to high frequency power ratio, 0 when there is no high frequency power
+     */
+    public double getLfHfRatio() {
+        return highFrequencyPower > 0 ? lowFrequencyPower / highFrequencyPower : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{mean=%.1f, sd=%.2f, rmssd=%.2f, peak=%.3fHz, periodicity=%.2f, lf/hf=%.2f}",
+                             mean, stdDev, rmssd, dominantFrequency, periodicity, getLfHfRatio());
+    }
+}
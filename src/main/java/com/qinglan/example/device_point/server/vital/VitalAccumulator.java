@@ -0,0 +1,79 @@
+package com.qinglan.example.device_point.server.vital;
+
+import java.util.Arrays;
+
+/**
+ * Open bucket of one device at one resolution, updated in O(1) per frame with no allocation
+ */
+final class VitalAccumulator {
+
+    private final VitalRollup.Resolution resolution;
+    private long bucketStart = Long.MIN_VALUE;
+    private int frameCount;
+    private int breathCount;
+    private int breathMin;
+    private int breathMax;
+    private long breathSum;
+    private int heartCount;
+    private int heartMin;
+    private int heartMax;
+    private long heartSum;
+    private final int[] sleepStateCounts = new int[VitalFrame.SLEEP_STATE_COUNT];
+
+    VitalAccumulator(VitalRollup.Resolution resolution) {
+        this.resolution = resolution;
+    }
+
+    boolean isOpen() {
+        return frameCount > 0;
+    }
+
+    /**
+     * Whether the timestamp falls past the end of the open bucket
+     */
+    boolean isPastEnd(long timestamp) {
+        return isOpen() && resolution.bucketStart(timestamp) > bucketStart;
+    }
+
+    void add(long timestamp, int breathRate, int heartRate, int sleepState) {
+        if (!isOpen()) {
+            bucketStart = resolution.bucketStart(timestamp);
+        }
+        frameCount++;
+        // Zero means the radar had no reading, it must not drag the minimum down
+        if (breathRate > 0) {
+            breathMin = breathCount == 0 ? breathRate : Math.min(breathMin, breathRate);
+            breathMax = Math.max(breathMax, breathRate);
+            breathSum += breathRate;
+            breathCount++;
+        }
+        if (heartRate > 0) {
+            heartMin = heartCount == 0 ? heartRate : Math.min(heartMin, heartRate);
+            heartMax = Math.max(heartMax, heartRate);
+            heartSum += heartRate;
+            heartCount++;
+        }
+        sleepStateCounts[sleepState]++;
+    }
+
+    /**
+     * Close the open bucket and reset for the next one
+     */
+    VitalRollup close(String deviceId) {
+        VitalRollup rollup = new VitalRollup(deviceId, resolution, bucketStart, frameCount,
+            breathMin, breathMax, breathCount > 0 ? (double) breathSum / breathCount : 0,
+            heartMin, heartMax, heartCount > 0 ? (double) heartSum / heartCount : 0,
+            sleepStateCounts.clone());
+        frameCount = 0;
+        breathCount = 0;
+        breathMin = 0;
+        breathMax = 0;
+        breathSum = 0;
+        heartCount = 0;
+        heartMin = 0;
+        heartMax = 0;
+        heartSum = 0;
+        Arrays.fill(sleepStateCounts, 0);
+        return rollup;
+    }
+}
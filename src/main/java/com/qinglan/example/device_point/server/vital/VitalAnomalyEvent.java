@@ -0,0 +1,106 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Start or end of a breath / heart rate excursion outside a device's personal baseline
+ */
+public final class VitalAnomalyEvent {
+
+    public enum Kind {
+        STARTED,
+        ENDED
+    }
+
+    public enum Signal {
+        BREATH,
+        HEART
+    }
+
+    private final Kind kind;
+    private final Signal signal;
+    private final String deviceId;
+    private final boolean high;
+    private final long timestamp;
+    private final long startedAt;
+    private final double level;
+    private final double baselineMean;
+    private final double baselineStdDev;
+    private final double zScore;
+
+    VitalAnomalyEvent(Kind kind, Signal signal, String deviceId, boolean high, long timestamp, long startedAt,
+                      double level, double baselineMean, double baselineStdDev, double zScore) {
+        this.kind = kind;
+        this.signal = signal;
+        this.deviceId = deviceId;
+        this.high = high;
+        this.timestamp = timestamp;
+        this.startedAt = startedAt;
+        this.level = level;
+        this.baselineMean = baselineMean;
+        this.baselineStdDev = baselineStdDev;
+        this.zScore = zScore;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Signal getSignal() {
+        return signal;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Whether the rate is above the baseline, otherwise below
+     */
+    public boolean isHigh() {
+        return high;
+    }
+
+    /**
+     * Report time the anomaly started or ended
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMillis() {
+        return timestamp - startedAt;
+    }
+
+    /**
+     * Smoothed rate when the event was raised, per minute
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    public double getBaselineMean() {
+        return baselineMean;
+    }
+
+    public double getBaselineStdDev() {
+        return baselineStdDev;
+    }
+
+    /**
+     * Distance from the baseline in standard deviations; for ENDED the largest one of the anomaly
+     */
+    public double getZScore() {
+        return zScore;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VitalAnomalyEvent{%s %s %s %s, ts=%d, level=%.1f, baseline=%.1f+-%.1f, z=%.1f%s}",
+                             kind, deviceId, signal, high ? "HIGH" : "LOW", timestamp, level, baselineMean,
+                             baselineStdDev, zScore,
+                             kind == Kind.ENDED ? ", duration=" + getDurationMillis() + "ms" : "");
+    }
+}
@@ -0,0 +1,10 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Consumer of vital sign anomaly events
+ * Called on the Netty event loop of the device, implementations must not block
+ */
+public interface VitalAnomalyListener {
+
+    void onAnomaly(VitalAnomalyEvent event);
+}
@@ -0,0 +1,167 @@
+package com.qinglan.example.device_point.server.vital;
+
+import com.qinglan.example.device_point.ui.EventBus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-device detection of breath and heart rate drifting outside the personal baseline
+ * - Fed by BreathDateHandler with real-time frames (identifier 0); each rate has its own AnomalyDetector,
+ *   so a frame costs O(1) and allocates nothing unless an event is raised
+ * - By default only frames reported while the person sleeps (light or deep) are evaluated, the
+ *   baseline is a sleeping one; zero readings are skipped
+ * - Events go to the log, the UI event bus and registered listeners
+ * Baselines are kept when a device disconnects, open anomalies are ended
+ */
+@Slf4j
+public class VitalAnomalyMonitor implements VitalFrameListener {
+
+    // Floors of the baseline deviation, per minute
+    private static final double BREATH_MIN_STD_DEV = 1.0;
+    private static final double HEART_MIN_STD_DEV = 2.0;
+
+    private static VitalAnomalyMonitor instance;
+
+    private static final class DeviceDetectors {
+        final AnomalyDetector breath = new AnomalyDetector(BREATH_MIN_STD_DEV);
+        final AnomalyDetector heart = new AnomalyDetector(HEART_MIN_STD_DEV);
+    }
+
+    private final Map<String, DeviceDetectors> devices = new ConcurrentHashMap<>();
+
+    private final CopyOnWriteArrayList<VitalAnomalyListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean sleepOnly = true;
+
+    private VitalAnomalyMonitor() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized VitalAnomalyMonitor getInstance() {
+        if (instance == null) {
+            instance = new VitalAnomalyMonitor();
+        }
+        return instance;
+    }
+
+    public void addListener(VitalAnomalyListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(VitalAnomalyListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Evaluate only frames reported during sleep, or every frame
+     */
+    public void setSleepOnly(boolean sleepOnly) {
+        this.sleepOnly = sleepOnly;
+    }
+
+    public boolean isSleepOnly() {
+        return sleepOnly;
+    }
+
+    @Override
+    public void onFrame(String deviceId, VitalFrame frame) {
+        if (!frame.isValid() || frame.identifier() != VitalFrame.IDENTIFIER_REALTIME) {
+            return;
+        }
+        if (sleepOnly) {
+            int state = frame.sleepState();
+            if (state != VitalFrame.SLEEP_LIGHT && state != VitalFrame.SLEEP_DEEP) {
+                return;
+            }
+        }
+        DeviceDetectors detectors = devices.get(deviceId);
+        if (detectors == null) {
+            detectors = devices.computeIfAbsent(deviceId, k -> new DeviceDetectors());
+        }
+        long timestamp = frame.getTimestamp();
+        int breathRate = frame.breathRate();
+        int heartRate = frame.heartRate();
+        synchronized (detectors) {
+            if (breathRate > 0) {
+                int result = detectors.breath.update(breathRate, timestamp);
+                if (result != AnomalyDetector.NONE) {
+                    publish(deviceId, VitalAnomalyEvent.Signal.BREATH, detectors.breath, result);
+                }
+            }
+            if (heartRate > 0) {
+                int result = detectors.heart.update(heartRate, timestamp);
+                if (result != AnomalyDetector.NONE) {
+                    publish(deviceId, VitalAnomalyEvent.Signal.HEART, detectors.heart, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * End the open anomalies of a device, e.g. when it disconnects; the baselines are kept
+     *
+     * @param deviceId The device ID
+     */
+    public void flush(String deviceId) {
+        DeviceDetectors detectors = devices.get(deviceId);
+        if (detectors == null) {
+            return;
+        }
+        synchronized (detectors) {
+            if (detectors.breath.end()) {
+                publish(deviceId, VitalAnomalyEvent.Signal.BREATH, detectors.breath, AnomalyDetector.ENDED);
+            }
+            if (detectors.heart.end()) {
+                publish(deviceId, VitalAnomalyEvent.Signal.HEART, detectors.heart, AnomalyDetector.ENDED);
+            }
+        }
+    }
+
+    /**
+     * Whether a device currently has an open anomaly of the signal
+     */
+    public boolean isAnomalous(String deviceId, VitalAnomalyEvent.Signal signal) {
+        DeviceDetectors detectors = devices.get(deviceId);
+        if (detectors == null) {
+            return false;
+        }
+        synchronized (detectors) {
+            return (signal == VitalAnomalyEvent.Signal.BREATH ? detectors.breath : detectors.heart).isActive();
+        }
+    }
+
+    /**
+     * Forget the baselines of a device, e.g. when it is moved to another person
+     */
+    public void reset(String deviceId) {
+        flush(deviceId);
+        devices.remove(deviceId);
+    }
+
+    private void publish(String deviceId, VitalAnomalyEvent.Signal signal, AnomalyDetector detector, int result) {
+        boolean started = result == AnomalyDetector.STARTED;
+        VitalAnomalyEvent event = new VitalAnomalyEvent(
+            started ? VitalAnomalyEvent.Kind.STARTED : VitalAnomalyEvent.Kind.ENDED, signal, deviceId,
+            detector.getDirection() > 0, started ? detector.getSince() : detector.getUntil(), detector.getSince(),
+            detector.getLevel(), detector.getMean(), detector.getStdDev(),
+            started ? detector.getZ() : detector.getPeakZ());
+        if (started) {
+            log.warn("Vital anomaly: {}", event);
+        } else {
+            log.info("Vital anomaly: {}", event);
+        }
+        EventBus.getInstance().postMessageReceived(deviceId, "VITAL_ANOMALY", event.toString());
+        for (VitalAnomalyListener listener : listeners) {
+            try {
+                listener.onAnomaly(event);
+            } catch (RuntimeException e) {
+                log.error("Vital anomaly listener failed: {}", event, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.qinglan.example.device_point.server.vital;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Flyweight view over a breath / heart rate frame (type 14)
+ * See readme/radarDataIndex.txt sections 5 and 6:
+ * - byte 0: identifier, 0 for real-time values, 0xff for sleep statistics
+ * - byte 1: breath rate, byte 2: heart rate (per minute)
+ * - real-time frames, byte 13 bits 6-7: sleep state
+ * - sleep statistics frames: bytes 5 / 6 minute-average breath / heart rate,
+ *   byte 13 bits 0-1 / 2-3 / 4-5: breath / heart / vital event state
+ * A frame instance is re-wrapped for every message and must not be retained after the callback.
+ */
+public final class VitalFrame {
+
+    public static final int FRAME_SIZE = 16;
+
+    public static final int IDENTIFIER_REALTIME = 0;
+    public static final int IDENTIFIER_SLEEP_STATISTICS = 0xff;
+
+    // Sleep states (byte 13, bits 6-7)
+    public static final int SLEEP_UNDEFINED = 0;
+    public static final int SLEEP_LIGHT = 1;
+    public static final int SLEEP_DEEP = 2;
+    public static final int SLEEP_AWAKE = 3;
+    public static final int SLEEP_STATE_COUNT = 4;
+
+    private ByteString data = ByteString.EMPTY;
+    private long timestamp;
+
+    /**
+     * Point this view at a new payload
+     *
+     * @param data Frame payload
+     * @param seconds Report time, seconds since 1970-01-01, 0 if the device did not send one
+     * @param mseconds Milliseconds part
+     * @return This frame
+     */
+    public VitalFrame wrap(ByteString data, int seconds, int mseconds) {
+        this.data = data;
+        // Fall back to the receive time so rollups still bucket frames without a report time
+        this.timestamp = seconds != 0 ? (seconds & 0xFFFFFFFFL) * 1000L + mseconds : System.currentTimeMillis();
+        return this;
+    }
+
+    /**
+     * Whether the payload is long enough to be decoded
+     */
+    public boolean isValid() {
+        return data.size() >= FRAME_SIZE;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int identifier() {
+        return unsigned(0);
+    }
+
+    public boolean isSleepStatistics() {
+        return identifier() == IDENTIFIER_SLEEP_STATISTICS;
+    }
+
+    /**
+     * Breath rate per minute, 0 when no reading
+     */
+    public int breathRate() {
+        return unsigned(1);
+    }
+
+    /**
+     * Heart rate per minute, 0 when no reading
+     */
+    public int heartRate() {
+        return unsigned(2);
+    }
+
+    /**
+     * Sleep state of a real-time frame, one of the SLEEP_ constants
+     */
+    public int sleepState() {
+        return unsigned(13) >>> 6;
+    }
+
+    /**
+     * Minute-average breath rate, sleep statistics frames only
+     */
+    public int minuteBreathRate() {
+        return unsigned(5);
+    }
+
+    /**
+     * Minute-average heart rate, sleep statistics frames only
+     */
+    public int minuteHeartRate() {
+        return unsigned(6);
+    }
+
+    /**
+     * Breath event state (byte 13 bits 0-1), sleep statistics frames only
+     */
+    public int breathEvent() {
+        return unsigned(13) & 0x03;
+    }
+
+    /**
+     * Heart event state (byte 13 bits 2-3), sleep statistics frames only
+     */
+    public int heartEvent() {
+        return (unsigned(13) >>> 2) & 0x03;
+    }
+
+    /**
+     * Vital event state (byte 13 bits 4-5), sleep statistics frames only
+     */
+    public int vitalEvent() {
+        return (unsigned(13) >>> 4) & 0x03;
+    }
+
+    private int unsigned(int offset) {
+        return data.byteAt(offset) & 0xFF;
+    }
+
+    /**
+     * Display name of a sleep state
+     */
+    public static String sleepStateName(int state) {
+        switch (state) {
+            case SLEEP_LIGHT: return "light";
+            case SLEEP_DEEP: return "deep";
+            case SLEEP_AWAKE: return "awake";
+            default: return "undefined";
+        }
+    }
+
+    /**
+     * Human readable frame content, for debug logging only
+     */
+    @Override
+    public String toString() {
+        if (!isValid()) {
+            return "VitalFrame{invalid, " + data.size() + " bytes}";
+        }
+        if (isSleepStatistics()) {
+            return "VitalFrame{ts=" + timestamp + ", sleep-stats, breath=" + breathRate() + ", heart=" + heartRate()
+                + ", minuteBreath=" + minuteBreathRate() + ", minuteHeart=" + minuteHeartRate()
+                + ", events=" + breathEvent() + "/" + heartEvent() + "/" + vitalEvent() + "}";
+        }
+        return "VitalFrame{ts=" + timestamp + ", breath=" + breathRate() + ", heart=" + heartRate()
+            + ", sleep=" + sleepStateName(sleepState()) + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Consumer of decoded breath / heart rate frames
+ * Called on the Netty event loop; the frame is only valid for the duration of the call
+ */
+public interface VitalFrameListener {
+
+    void onFrame(String deviceId, VitalFrame frame);
+}
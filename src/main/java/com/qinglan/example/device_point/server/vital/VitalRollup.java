@@ -0,0 +1,129 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Closed, immutable aggregate of one device's vital signs over a bucket
+ */
+public final class VitalRollup {
+
+    // Bucket lengths
+    public enum Resolution {
+        MINUTE(60_000L),
+        HOUR(3_600_000L);
+
+        private final long millis;
+
+        Resolution(long millis) {
+            this.millis = millis;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long bucketStart(long timestamp) {
+            return timestamp - Math.floorMod(timestamp, millis);
+        }
+    }
+
+    private final String deviceId;
+    private final Resolution resolution;
+    private final long bucketStart;
+    private final int frameCount;
+    private final int breathMin;
+    private final int breathMax;
+    private final double breathAvg;
+    private final int heartMin;
+    private final int heartMax;
+    private final double heartAvg;
+    private final int[] sleepStateCounts;
+
+    VitalRollup(String deviceId, Resolution resolution, long bucketStart, int frameCount,
+                int breathMin, int breathMax, double breathAvg,
+                int heartMin, int heartMax, double heartAvg, int[] sleepStateCounts) {
+        this.deviceId = deviceId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.frameCount = frameCount;
+        this.breathMin = breathMin;
+        this.breathMax = breathMax;
+        this.breathAvg = breathAvg;
+        this.heartMin = heartMin;
+        this.heartMax = heartMax;
+        this.heartAvg = heartAvg;
+        this.sleepStateCounts = sleepStateCounts;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getBucketEnd() {
+        return bucketStart + resolution.getMillis();
+    }
+
+    /**
+     * Real-time frames aggregated into the bucket
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Minimum breath rate, 0 if the bucket had no breath reading
+     */
+    public int getBreathMin() {
+        return breathMin;
+    }
+
+    public int getBreathMax() {
+        return breathMax;
+    }
+
+    public double getBreathAvg() {
+        return breathAvg;
+    }
+
+    /**
+     * Minimum heart rate, 0 if the bucket had no heart reading
+     */
+    public int getHeartMin() {
+        return heartMin;
+    }
+
+    public int getHeartMax() {
+        return heartMax;
+    }
+
+    public double getHeartAvg() {
+        return heartAvg;
+    }
+
+    /**
+     * Frames per sleep state, indexed by the VitalFrame.SLEEP_ constants
+     */
+    public int getSleepStateCount(int state) {
+        return sleepStateCounts[state];
+    }
+
+    /**
+     * Share of frames in a sleep state, 0-1
+     */
+    public double getSleepStateRatio(int state) {
+        return frameCount > 0 ? (double) sleepStateCounts[state] / frameCount : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "VitalRollup{" + deviceId + " " + resolution + "@" + bucketStart + ", frames=" + frameCount
+            + ", breath=" + breathMin + "/" + String.format("%.1f", breathAvg) + "/" + breathMax
+            + ", heart=" + heartMin + "/" + String.format("%.1f", heartAvg) + "/" + heartMax + "}";
+    }
+}
@@ -0,0 +1,145 @@
+package com.qinglan.example.device_point.server.vital;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental per-minute and per-hour rollups of breath rate, heart rate and sleep state
+ * - Fed by BreathDateHandler with real-time frames (identifier 0), sleep statistics frames are ignored
+ * - Every device owns one open accumulator per resolution, updated in O(1) without allocation
+ * - A bucket closes when a frame falls past its end or when the device goes quiet for its length;
+ *   closed buckets are appended to the VitalSeriesStore
+ * - Open buckets survive disconnects, so a reconnect within the bucket does not split it
+ * Buckets follow the device report time, frames arriving out of order count towards the open bucket
+ */
+@Slf4j
+public class VitalRollupEngine implements VitalFrameListener {
+
+    private static final long IDLE_CHECK_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static VitalRollupEngine instance;
+
+    private static final class DeviceRollup {
+        final VitalAccumulator minute = new VitalAccumulator(VitalRollup.Resolution.MINUTE);
+        final VitalAccumulator hour = new VitalAccumulator(VitalRollup.Resolution.HOUR);
+        // Server time of the last frame, used to close buckets of devices that went quiet
+        volatile long lastReceived;
+    }
+
+    private final Map<String, DeviceRollup> devices = new ConcurrentHashMap<>();
+
+    private final VitalSeriesStore seriesStore = new VitalSeriesStore();
+
+    private ScheduledExecutorService executor;
+
+    private VitalRollupEngine() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized VitalRollupEngine getInstance() {
+        if (instance == null) {
+            instance = new VitalRollupEngine();
+        }
+        return instance;
+    }
+
+    public VitalSeriesStore getSeriesStore() {
+        return seriesStore;
+    }
+
+    /**
+     * Start closing the buckets of devices that stopped reporting, has no effect if already running
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "VitalRollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::closeIdle, IDLE_CHECK_MILLIS, IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the idle check and close every open bucket
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        for (String deviceId : devices.keySet()) {
+            flush(deviceId);
+        }
+    }
+
+    @Override
+    public void onFrame(String deviceId, VitalFrame frame) {
+        if (!frame.isValid() || frame.identifier() != VitalFrame.IDENTIFIER_REALTIME) {
+            return;
+        }
+        DeviceRollup rollup = devices.computeIfAbsent(deviceId, k -> new DeviceRollup());
+        long timestamp = frame.getTimestamp();
+        synchronized (rollup) {
+            rollup.lastReceived = System.currentTimeMillis();
+            if (rollup.minute.isPastEnd(timestamp)) {
+                seriesStore.add(rollup.minute.close(deviceId));
+            }
+            if (rollup.hour.isPastEnd(timestamp)) {
+                seriesStore.add(rollup.hour.close(deviceId));
+            }
+            int breathRate = frame.breathRate();
+            int heartRate = frame.heartRate();
+            int sleepState = frame.sleepState();
+            rollup.minute.add(timestamp, breathRate, heartRate, sleepState);
+            rollup.hour.add(timestamp, breathRate, heartRate, sleepState);
+        }
+    }
+
+    // Close the open buckets of a device and forget it
+    private void flush(String deviceId) {
+        DeviceRollup rollup = devices.remove(deviceId);
+        if (rollup == null) {
+            return;
+        }
+        synchronized (rollup) {
+            if (rollup.minute.isOpen()) {
+                seriesStore.add(rollup.minute.close(deviceId));
+            }
+            if (rollup.hour.isOpen()) {
+                seriesStore.add(rollup.hour.close(deviceId));
+            }
+        }
+    }
+
+    private void closeIdle() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, DeviceRollup> entry : devices.entrySet()) {
+                DeviceRollup rollup = entry.getValue();
+                long idle = now - rollup.lastReceived;
+                synchronized (rollup) {
+                    if (idle >= VitalRollup.Resolution.MINUTE.getMillis() && rollup.minute.isOpen()) {
+                        seriesStore.add(rollup.minute.close(entry.getKey()));
+                    }
+                    if (idle >= VitalRollup.Resolution.HOUR.getMillis() && rollup.hour.isOpen()) {
+                        seriesStore.add(rollup.hour.close(entry.getKey()));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Vital rollup idle check failed", e);
+        }
+    }
+}
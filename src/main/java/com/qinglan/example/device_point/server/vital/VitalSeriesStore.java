@@ -0,0 +1,107 @@
+package com.qinglan.example.device_point.server.vital;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time series of closed vital-sign rollups
+ * Every device keeps a bounded series per resolution, oldest buckets are dropped first:
+ * one day of minute buckets and one month of hour buckets
+ */
+public class VitalSeriesStore {
+
+    public static final int MINUTE_RETENTION = 24 * 60;
+    public static final int HOUR_RETENTION = 30 * 24;
+
+    private static final class Series {
+        final ArrayDeque<VitalRollup> minutes = new ArrayDeque<>();
+        final ArrayDeque<VitalRollup> hours = new ArrayDeque<>();
+
+        ArrayDeque<VitalRollup> of(VitalRollup.Resolution resolution) {
+            return resolution == VitalRollup.Resolution.MINUTE ? minutes : hours;
+        }
+    }
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Append a closed bucket to the device series
+     */
+    public void add(VitalRollup rollup) {
+        Series deviceSeries = series.computeIfAbsent(rollup.getDeviceId(), k -> new Series());
+        int retention = rollup.getResolution() == VitalRollup.Resolution.MINUTE ? MINUTE_RETENTION : HOUR_RETENTION;
+        synchronized (deviceSeries) {
+            ArrayDeque<VitalRollup> buckets = deviceSeries.of(rollup.getResolution());
+            buckets.addLast(rollup);
+            while (buckets.size() > retention) {
+                buckets.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Get the closed buckets of a device starting within a time window
+     *
+     * @param deviceId The device ID
+     * @param resolution Bucket length
+     * @param fromMillis Window start, inclusive
+     * @param toMillis Window end, inclusive
+     * @return Buckets in time order, empty if none
+     */
+    public List<VitalRollup> query(String deviceId, VitalRollup.Resolution resolution, long fromMillis, long toMillis) {
+        Series deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return Collections.emptyList();
+        }
+        List<VitalRollup> result = new ArrayList<>();
+        synchronized (deviceSeries) {
+            // Buckets are appended in time order, walk back from the newest
+            Iterator<VitalRollup> iterator = deviceSeries.of(resolution).descendingIterator();
+            while (iterator.hasNext()) {
+                VitalRollup rollup = iterator.next();
+                if (rollup.getBucketStart() < fromMillis) {
+                    break;
+                }
+                if (rollup.getBucketStart() <= toMillis) {
+                    result.add(rollup);
+                }
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Get the most recent closed bucket of a device
+     *
+     * @return The bucket, or null if none
+     */
+    public VitalRollup latest(String deviceId, VitalRollup.Resolution resolution) {
+        Series deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return null;
+        }
+        synchronized (deviceSeries) {
+            return deviceSeries.of(resolution).peekLast();
+        }
+    }
+
+    /**
+     * Drop the series of a device
+     */
+    public void remove(String deviceId) {
+        series.remove(deviceId);
+    }
+
+    /**
+     * Number of devices with a series
+     */
+    public int size() {
+        return series.size();
+    }
+}
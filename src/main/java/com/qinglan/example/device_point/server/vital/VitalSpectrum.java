@@ -0,0 +1,50 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Spectral analysis of one device's breath and heart rate over the latest window
+ */
+public final class VitalSpectrum {
+
+    private final String deviceId;
+    private final long timestamp;
+    private final int windowSeconds;
+    private final SpectralMetrics breath;
+    private final SpectralMetrics heart;
+
+    VitalSpectrum(String deviceId, long timestamp, int windowSeconds, SpectralMetrics breath, SpectralMetrics heart) {
+        this.deviceId = deviceId;
+        this.timestamp = timestamp;
+        this.windowSeconds = windowSeconds;
+        this.breath = breath;
+        this.heart = heart;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Report time of the newest sample in the window
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public SpectralMetrics getBreath() {
+        return breath;
+    }
+
+    public SpectralMetrics getHeart() {
+        return heart;
+    }
+
+    @Override
+    public String toString() {
+        return "VitalSpectrum{" + deviceId + ", ts=" + timestamp + ", " + windowSeconds + "s, breath=" + breath
+            + ", heart=" + heart + "}";
+    }
+}
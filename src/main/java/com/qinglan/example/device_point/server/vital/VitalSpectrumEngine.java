@@ -0,0 +1,183 @@
+package com.qinglan.example.device_point.server.vital;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FFT based periodicity and variability analysis of breath and heart rate
+ * - Fed by BreathDateHandler with real-time frames (identifier 0); the event loop only writes
+ *   the device's VitalWindow, in O(1) without allocation
+ * - Every ANALYSIS_INTERVAL_MILLIS a scheduler thread collects the devices whose full window moved on
+ *   and hands them to a worker pool in batches; a round is skipped while the previous one is still running
+ * - Each worker reuses its own SpectralAnalyzer (JTransforms plan and buffers), so the FFT never
+ *   runs on an event loop and never allocates per device beyond the result
+ */
+@Slf4j
+public class VitalSpectrumEngine implements VitalFrameListener {
+
+    // 256 seconds at 1 Hz, a power of two for the FFT and long enough for several breathing-rate cycles
+    public static final int WINDOW_SECONDS = 256;
+
+    private static final long ANALYSIS_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    // A device is analyzed again once this many new seconds entered its window
+    private static final int MIN_FRESH_SAMPLES = 10;
+    private static final int BATCH_SIZE = 64;
+
+    private static final FastThreadLocal<SpectralAnalyzer> ANALYZER = new FastThreadLocal<SpectralAnalyzer>() {
+        @Override
+        protected SpectralAnalyzer initialValue() {
+            return new SpectralAnalyzer(WINDOW_SECONDS);
+        }
+    };
+
+    private static VitalSpectrumEngine instance;
+
+    private final Map<String, VitalWindow> windows = new ConcurrentHashMap<>();
+
+    private final Map<String, VitalSpectrum> spectra = new ConcurrentHashMap<>();
+
+    // Batches of the current round still queued or running
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+
+    private VitalSpectrumEngine() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized VitalSpectrumEngine getInstance() {
+        if (instance == null) {
+            instance = new VitalSpectrumEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Start periodic analysis, has no effect if already running
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // Netty's factory creates FastThreadLocalThreads, the analyzer lookup is then an array access
+        workers = Executors.newFixedThreadPool(threads, new DefaultThreadFactory("VitalSpectrumWorker", true));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "VitalSpectrum");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::analyzeDue, ANALYSIS_INTERVAL_MILLIS, ANALYSIS_INTERVAL_MILLIS,
+                                         TimeUnit.MILLISECONDS);
+        log.info("Vital spectrum analysis started: window={}s, workers={}", WINDOW_SECONDS, threads);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        scheduler = null;
+        workers = null;
+        pendingBatches.set(0);
+    }
+
+    @Override
+    public void onFrame(String deviceId, VitalFrame frame) {
+        if (!frame.isValid() || frame.identifier() != VitalFrame.IDENTIFIER_REALTIME) {
+            return;
+        }
+        VitalWindow window = windows.get(deviceId);
+        if (window == null) {
+            window = windows.computeIfAbsent(deviceId, k -> new VitalWindow(WINDOW_SECONDS));
+        }
+        window.add(frame.getTimestamp(), frame.breathRate(), frame.heartRate());
+    }
+
+    /**
+     * Get the latest analysis of a device
+     *
+     * @param deviceId The device ID
+     * @return The spectrum, or null if no full window was analyzed yet
+     */
+    public VitalSpectrum getSpectrum(String deviceId) {
+        return spectra.get(deviceId);
+    }
+
+    /**
+     * Drop the window of a device, e.g. when it disconnects; the latest analysis is kept
+     *
+     * @param deviceId The device ID
+     */
+    public void remove(String deviceId) {
+        windows.remove(deviceId);
+    }
+
+    private void analyzeDue() {
+        try {
+            if (pendingBatches.get() > 0) {
+                log.warn("Vital spectrum analysis falling behind, skipping a round");
+                return;
+            }
+            List<String> due = new ArrayList<>();
+            for (Map.Entry<String, VitalWindow> entry : windows.entrySet()) {
+                if (entry.getValue().isDue(MIN_FRESH_SAMPLES)) {
+                    due.add(entry.getKey());
+                }
+            }
+            ExecutorService pool = workers;
+            for (int from = 0; from < due.size() && pool != null; from += BATCH_SIZE) {
+                List<String> batch = due.subList(from, Math.min(due.size(), from + BATCH_SIZE));
+                pendingBatches.incrementAndGet();
+                try {
+                    pool.execute(() -> analyzeBatch(batch));
+                } catch (RejectedExecutionException e) {
+                    // Stopping
+                    pendingBatches.decrementAndGet();
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Vital spectrum scheduling failed", e);
+        }
+    }
+
+    private void analyzeBatch(List<String> deviceIds) {
+        try {
+            SpectralAnalyzer analyzer = ANALYZER.get();
+            for (String deviceId : deviceIds) {
+                VitalWindow window = windows.get(deviceId);
+                if (window == null) {
+                    continue;
+                }
+                long timestamp = window.copyTo(analyzer.breath, analyzer.heart);
+                VitalSpectrum spectrum = new VitalSpectrum(deviceId, timestamp, WINDOW_SECONDS,
+                    analyzer.analyze(analyzer.breath), analyzer.analyze(analyzer.heart));
+                spectra.put(deviceId, spectrum);
+                if (log.isDebugEnabled()) {
+                    log.debug("{}", spectrum);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Vital spectrum analysis failed", e);
+        } finally {
+            pendingBatches.decrementAndGet();
+        }
+    }
+}
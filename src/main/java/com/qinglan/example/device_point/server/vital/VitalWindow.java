@@ -0,0 +1,101 @@
+package com.qinglan.example.device_point.server.vital;
+
+/**
+ * Sliding window of one device's breath and heart rate, resampled to one sample per second
+ * - Frames are placed by report second; seconds missing before a frame hold the previous reading,
+ *   a zero reading holds the last non-zero one
+ * - A gap longer than MAX_GAP_SECONDS starts the window over, holding across it would fake a flat signal
+ * - Written in O(1) without allocation; all access is synchronized on the window
+ */
+final class VitalWindow {
+
+    static final int MAX_GAP_SECONDS = 10;
+
+    private final int size;
+    private final float[] breath;
+    private final float[] heart;
+    // Ring position of the next sample
+    private int next;
+    private int count;
+    private long lastSecond = Long.MIN_VALUE;
+    private float lastBreath;
+    private float lastHeart;
+    private long lastTimestamp;
+    // Samples written since the last analysis
+    private int fresh;
+
+    VitalWindow(int size) {
+        this.size = size;
+        this.breath = new float[size];
+        this.heart = new float[size];
+    }
+
+    synchronized void add(long timestamp, int breathRate, int heartRate) {
+        float previousBreath = lastBreath;
+        float previousHeart = lastHeart;
+        if (breathRate > 0) {
+            lastBreath = breathRate;
+        }
+        if (heartRate > 0) {
+            lastHeart = heartRate;
+        }
+        // Nothing to hold until both rates have been seen once
+        if (lastBreath == 0 || lastHeart == 0) {
+            return;
+        }
+        long second = Math.floorDiv(timestamp, 1000L);
+        long gap = second - lastSecond;
+        if (lastSecond == Long.MIN_VALUE || gap > MAX_GAP_SECONDS) {
+            count = 0;
+            fresh = 0;
+            gap = 1;
+        } else if (gap < 0) {
+            // Reordered frame, the second is already covered
+            return;
+        } else if (gap == 0) {
+            // Same second again, the latest reading wins
+            int last = (next - 1 + size) % size;
+            breath[last] = lastBreath;
+            heart[last] = lastHeart;
+            lastTimestamp = timestamp;
+            return;
+        }
+        // The rate changed at this frame, not in the seconds before it
+        for (long i = 1; i < gap; i++) {
+            breath[next] = previousBreath;
+            heart[next] = previousHeart;
+            next = (next + 1) % size;
+        }
+        breath[next] = lastBreath;
+        heart[next] = lastHeart;
+        next = (next + 1) % size;
+        count = (int) Math.min(size, count + gap);
+        fresh = (int) Math.min(size, fresh + gap);
+        lastSecond = second;
+        lastTimestamp = timestamp;
+    }
+
+    /**
+     * Whether the window is full and has moved on by at least minFresh samples since the last copy
+     */
+    synchronized boolean isDue(int minFresh) {
+        return count == size && fresh >= minFresh;
+    }
+
+    /**
+     * Copy the window in time order and mark it analyzed
+     *
+     * @param breathOut Receives the breath rates, at least size long
+     * @param heartOut Receives the heart rates, at least size long
+     * @return Report time of the newest sample
+     */
+    synchronized long copyTo(double[] breathOut, double[] heartOut) {
+        for (int i = 0; i < size; i++) {
+            int slot = (next + i) % size;
+            breathOut[i] = breath[slot];
+            heartOut[i] = heart[slot];
+        }
+        fresh = 0;
+        return lastTimestamp;
+    }
+}
@@ -1,6 +1,5 @@
 package com.qinglan.example.device_point.ui;
 
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import com.qinglan.example.device_point.server.handle.SetPropHandler;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
@@ -9,8 +8,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -89,12 +90,16 @@ public class ConfigurationManager {
     // 当前加载的配置
     private JSONObject currentConfiguration;
     
+    // 分层配置模板
+    private final ConfigurationTemplates templates;
+    
     /**
      * 构造函数
      */
     public ConfigurationManager() {
         this.deviceSession = new DeviceRegSession();
         this.currentConfiguration = null;
+        this.templates = new ConfigurationTemplates(this);
     }
     
     /**
@@ -104,35 +109,27 @@ public class ConfigurationManager {
      * @return 如果加载成功返回true，否则返回false
      */
     public boolean loadConfiguration(File file) {
-        try {
-            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        // 流式单遍解析，解析过程中直接容忍尾随逗号
+        try (ConfigurationStreamReader reader = new ConfigurationStreamReader(
+                Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            Object value = reader.readValue();
+            reader.endDocument();
             
-            // 移除JSON中的尾随逗号
-            content = removeTrailingCommas(content);
+            if (!(value instanceof JSONObject)) {
+                logger.warning("配置文件顶层必须是JSON对象: " + file.getName());
+                return false;
+            }
+            JSONObject config = (JSONObject) value;
             
-            try {
-                JSONObject config = JSON.parseObject(content);
-                
-                // 基本验证
-                if (!validateConfiguration(config)) {
-                    logger.warning("配置格式无效");
-                    return false;
-                }
-                
-                this.currentConfiguration = config;
-                logger.info("配置加载成功: " + file.getName());
-                return true;
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "JSON解析错误: " + e.getMessage(), e);
-                // 尝试输出有问题的JSON内容的一部分（防止太长）
-                if (content.length() > 500) {
-                    logger.info("JSON内容摘要: " + content.substring(0, 500) + "...");
-                } else {
-                    logger.info("JSON内容: " + content);
-                }
+            // 基本验证
+            if (!validateConfiguration(config)) {
+                logger.warning("配置格式无效");
                 return false;
             }
             
+            this.currentConfiguration = config;
+            logger.info("配置加载成功: " + file.getName());
+            return true;
         } catch (IOException e) {
             logger.log(Level.SEVERE, "读取配置文件错误: " + e.getMessage(), e);
             return false;
@@ -143,19 +140,223 @@ public class ConfigurationManager {
     }
     
     /**
-     * 移除JSON字符串中的尾随逗号
+     * 设备配置段回调
+     */
+    public interface DeviceSectionHandler {
+        
+        /**
+         * 每读完并校验通过一个设备配置段时调用
+         * 
+         * @param deviceId 设备UID
+         * @param templateId 设备段中"template"指定的模板ID，未指定时为null
+         * @param properties 该设备的属性，调用返回后不再被加载器引用
+         */
+        void onDeviceSection(String deviceId, String templateId, Map<String, String> properties);
+    }
+    
+    /**
+     * 流式加载多设备配置包
+     * 格式: {"templates": {"ID": {"parent": "父ID", "properties": {...}}},
+     *        "devices": {"UID": {"template": "ID", "properties": {...}}, "UID2": {"key": "value", ...}}}
+     * templates段会注册到分层模板中；devices段每次只在内存中保留一个设备段，
+     * 区域定义在读取时逐条校验，校验失败的设备段会被跳过，不影响其他设备
+     * 
+     * @param file 配置包文件
+     * @param handler 设备配置段回调
+     * @return 加载成功的设备段数量，文件无法读取或结构错误时返回-1
+     */
+    public int loadConfigurationBundle(File file, DeviceSectionHandler handler) {
+        int loaded = 0;
+        int skipped = 0;
+        
+        try (ConfigurationStreamReader reader = new ConfigurationStreamReader(
+                Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("templates".equals(name) && reader.peekObject()) {
+                    readTemplates(reader);
+                    continue;
+                }
+                if (!"devices".equals(name) || !reader.peekObject()) {
+                    reader.skipValue();
+                    continue;
+                }
+                
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String deviceId = reader.nextName();
+                    String[] templateId = new String[1];
+                    Map<String, String> properties = readDeviceSection(reader, deviceId, templateId);
+                    if (properties == null) {
+                        skipped++;
+                        continue;
+                    }
+                    handler.onDeviceSection(deviceId, templateId[0], properties);
+                    loaded++;
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+            reader.endDocument();
+            
+            logger.info("配置包加载完成: " + file.getName() + ", 成功=" + loaded + ", 跳过=" + skipped);
+            return loaded;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "读取配置包错误: " + e.getMessage() + ", 已加载=" + loaded, e);
+            return -1;
+        }
+    }
+    
+    /**
+     * 读取单个设备配置段并逐条校验区域定义
      * 
-     * @param json 原始JSON字符串
-     * @return 处理后的JSON字符串
+     * @param reader 流式读取器，位于设备段的值之前
+     * @param deviceId 设备UID
+     * @param templateId 输出参数，设备段中的"template"值
+     * @return 设备属性，校验失败时返回null（设备段已被完整消费）
      */
-    private String removeTrailingCommas(String json) {
-        // 移除对象内的尾随逗号
-        json = json.replaceAll(",\\s*}", "}");
+    private Map<String, String> readDeviceSection(ConfigurationStreamReader reader, String deviceId,
+                                                  String[] templateId) throws IOException {
+        if (!reader.peekObject()) {
+            logger.warning("设备配置段不是JSON对象: " + deviceId);
+            reader.skipValue();
+            return null;
+        }
         
-        // 移除数组内的尾随逗号
-        json = json.replaceAll(",\\s*]", "]");
+        Map<String, String> properties = new HashMap<>();
+        Set<Integer> areaIds = new HashSet<>();
+        boolean valid = true;
         
-        return json;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if ("properties".equals(key) && reader.peekObject()) {
+                // 兼容单设备配置文件的 {"properties": {...}} 结构
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String propKey = reader.nextName();
+                    String value = reader.nextString();
+                    valid = valid && acceptDeviceProperty(propKey, value, properties, areaIds);
+                }
+                reader.endObject();
+            } else if ("template".equals(key)) {
+                templateId[0] = reader.nextString();
+            } else {
+                String value = reader.nextString();
+                valid = valid && acceptDeviceProperty(key, value, properties, areaIds);
+            }
+        }
+        reader.endObject();
+        
+        if (!valid) {
+            logger.warning("设备配置段区域定义无效，跳过设备: " + deviceId);
+            return null;
+        }
+        if (properties.isEmpty() && templateId[0] == null) {
+            logger.warning("设备配置段为空: " + deviceId);
+            return null;
+        }
+        return properties;
+    }
+    
+    /**
+     * 校验并保存设备段中的单个属性
+     * 
+     * @return 属性有效则为true
+     */
+    private boolean acceptDeviceProperty(String key, String value, Map<String, String> properties, Set<Integer> areaIds) {
+        if (!validateAreaEntry(key, value, areaIds)) {
+            return false;
+        }
+        properties.put(key, value);
+        return true;
+    }
+    
+    /**
+     * 读取templates段并注册到分层模板
+     * 
+     * @param reader 流式读取器，位于templates对象之前
+     */
+    private void readTemplates(ConfigurationStreamReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String templateId = reader.nextName();
+            if (!reader.peekObject()) {
+                logger.warning("模板不是JSON对象: " + templateId);
+                reader.skipValue();
+                continue;
+            }
+            
+            String parentId = null;
+            Map<String, String> properties = new LinkedHashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if ("parent".equals(key)) {
+                    parentId = reader.nextString();
+                } else if ("properties".equals(key) && reader.peekObject()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String propKey = reader.nextName();
+                        properties.put(propKey, reader.nextString());
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            
+            templates.putTemplate(templateId, parentId, properties);
+        }
+        reader.endObject();
+    }
+    
+    /**
+     * 加载分层模板配置包：注册templates段，并把每个设备段绑定到其模板
+     * 设备段中的属性作为设备级覆盖保存
+     * 
+     * @param file 配置包文件
+     * @return 绑定成功的设备数量，失败时返回-1
+     */
+    public int loadTemplateBundle(File file) {
+        int[] assigned = {0};
+        int loaded = loadConfigurationBundle(file, (deviceId, templateId, properties) -> {
+            if (templateId == null) {
+                logger.warning("设备段未指定模板: " + deviceId);
+                return;
+            }
+            if (templates.assignDevice(deviceId, templateId, properties)) {
+                assigned[0]++;
+            }
+        });
+        return loaded < 0 ? -1 : assigned[0];
+    }
+    
+    /**
+     * 获取分层配置模板
+     * 
+     * @return 模板注册表
+     */
+    public ConfigurationTemplates getTemplates() {
+        return templates;
+    }
+    
+    /**
+     * 验证一组属性中的区域定义
+     * 
+     * @param properties 属性
+     * @return 如果有效则为true，否则为false
+     */
+    boolean validateAreas(Map<String, String> properties) {
+        Set<Integer> areaIds = new HashSet<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            if (!validateAreaEntry(entry.getKey(), entry.getValue(), areaIds)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -186,64 +387,77 @@ public class ConfigurationManager {
         // 验证declare_area属性格式
         Set<Integer> areaIds = new HashSet<>();
         for (String key : properties.keySet()) {
-            if (key.equals("declare_area") || key.startsWith(AREA_PREFIX)) {
-                String value = properties.getString(key);
-                
-                // 检查JSON格式是否正确（没有尾随逗号）
-                if (value == null) {
-                    logger.warning("属性值为null: " + key);
-                    return false;
-                }
-                
-                if (!validateAreaFormat(value)) {
-                    logger.warning("区域定义格式错误: " + key + "=" + value);
-                    return false;
-                }
-                
-                // 提取区域ID并检查是否重复
+            if (!validateAreaEntry(key, properties.getString(key), areaIds)) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * 验证单个属性中的区域定义，非区域属性直接通过
+     * 
+     * @param key 属性键
+     * @param value 属性值
+     * @param areaIds 已出现的区域ID，用于检查重复，校验通过时会加入当前ID
+     * @return 如果有效则为true，否则为false
+     */
+    private boolean validateAreaEntry(String key, String value, Set<Integer> areaIds) {
+        if (!key.equals("declare_area") && !key.startsWith(AREA_PREFIX)) {
+            return true;
+        }
+        
+        // 检查JSON格式是否正确（没有尾随逗号）
+        if (value == null) {
+            logger.warning("属性值为null: " + key);
+            return false;
+        }
+        
+        if (!validateAreaFormat(value)) {
+            logger.warning("区域定义格式错误: " + key + "=" + value);
+            return false;
+        }
+        
+        // 提取区域ID并检查是否重复
+        try {
+            // 根据格式选择合适的正则
+            Matcher matcher;
+            if (value.startsWith("{")) {
+                matcher = AREA_BRACE_PATTERN.matcher(value);
+            } else {
+                matcher = AREA_FORMAT_PATTERN.matcher(value);
+            }
+            
+            if (!matcher.find()) {
+                logger.warning("无法提取区域ID: " + value);
+                return false;
+            }
+            int areaId = Integer.parseInt(matcher.group(1));
+            
+            // 检查区域ID与键名是否一致（如果是命名的区域）
+            if (key.startsWith(AREA_PREFIX)) {
                 try {
-                    // 根据格式选择合适的正则
-                    Matcher matcher;
-                    if (value.startsWith("{")) {
-                        matcher = AREA_BRACE_PATTERN.matcher(value);
-                    } else {
-                        matcher = AREA_FORMAT_PATTERN.matcher(value);
-                    }
-                    
-                    if (matcher.find()) {
-                        int areaId = Integer.parseInt(matcher.group(1));
-                        
-                        // 检查区域ID与键名是否一致（如果是命名的区域）
-                        if (key.startsWith(AREA_PREFIX)) {
-                            try {
-                                int keyId = Integer.parseInt(key.substring(AREA_PREFIX.length()));
-                                if (areaId != keyId) {
-                                    logger.warning("区域ID与键名不匹配: 键=" + key + ", ID=" + areaId);
-                                    // 仅警告，不返回false
-                                }
-                            } catch (NumberFormatException e) {
-                                logger.warning("键名后缀不是有效数字: " + key);
-                                // 仅警告，不返回false
-                            }
-                        }
-                        
-                        if (areaIds.contains(areaId)) {
-                            logger.warning("区域ID重复: " + areaId);
-                            return false;
-                        }
-                        areaIds.add(areaId);
-                    } else {
-                        logger.warning("无法提取区域ID: " + value);
-                        return false;
+                    int keyId = Integer.parseInt(key.substring(AREA_PREFIX.length()));
+                    if (areaId != keyId) {
+                        logger.warning("区域ID与键名不匹配: 键=" + key + ", ID=" + areaId);
+                        // 仅警告，不返回false
                     }
                 } catch (NumberFormatException e) {
-                    logger.warning("区域ID格式错误: " + value);
-                    return false;
+                    logger.warning("键名后缀不是有效数字: " + key);
+                    // 仅警告，不返回false
                 }
             }
+            
+            if (!areaIds.add(areaId)) {
+                logger.warning("区域ID重复: " + areaId);
+                return false;
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            logger.warning("区域ID格式错误: " + value);
+            return false;
         }
-        
-        return true;
     }
     
     /**
@@ -335,135 +549,176 @@ public class ConfigurationManager {
     
     /**
      * 向设备发送配置
+     * 设备已绑定配置模板时下发模板解析出的计划，否则下发当前加载的配置文件
      * 
      * @param deviceId 要发送到的设备ID
      * @return 如果成功则为true，否则为false
      */
     public boolean sendConfigurationToDevice(String deviceId) {
-        if (currentConfiguration == null) {
-            logger.warning("未加载配置");
+        return sendConfigurationToDevice(deviceId, null);
+    }
+    
+    /**
+     * 下发进度回调
+     */
+    public interface ProgressListener {
+        
+        /**
+         * 每完成一个下发步骤时调用
+         * 
+         * @param completed 已完成步骤数
+         * @param total 总步骤数
+         * @param step 刚完成的步骤描述
+         */
+        void onProgress(int completed, int total, String step);
+    }
+    
+    /**
+     * 向设备发送配置并报告进度
+     * 下发线程被中断时立即停止并返回false
+     * 
+     * @param deviceId 要发送到的设备ID
+     * @param listener 进度回调，可为null
+     * @return 如果成功则为true，否则为false
+     */
+    public boolean sendConfigurationToDevice(String deviceId, ProgressListener listener) {
+        ConfigurationPlan plan;
+        try {
+            plan = templates.resolve(deviceId);
+        } catch (IllegalStateException e) {
+            // 设备已绑定模板但无法解析，不能退回到界面加载的配置
+            logger.warning("模板解析失败，取消下发: " + e.getMessage());
+            if (listener != null) {
+                listener.onProgress(0, 0, "模板解析失败: " + e.getMessage());
+            }
             return false;
         }
+        if (plan == null) {
+            if (currentConfiguration == null) {
+                logger.warning("未加载配置");
+                return false;
+            }
+            plan = compilePlan(getAllProperties());
+        }
         
-        try {
-            // 获取所有属性
-            Map<String, String> allProperties = getAllProperties();
-            
-            // 收集区域定义（以declare_area或declare_area_X格式）
-            List<String> areaDefinitions = new ArrayList<>();
-            List<String> keysToRemove = new ArrayList<>();
-            
-            // 处理主区域属性
-            if (allProperties.containsKey("declare_area")) {
-                String areaValue = allProperties.get("declare_area");
+        return sendPlanToDevice(deviceId, plan, listener);
+    }
+    
+    /**
+     * 将属性集合编译为下发计划
+     * 
+     * @param allProperties 完整属性（含区域定义）
+     * @return 下发计划
+     */
+    ConfigurationPlan compilePlan(Map<String, String> allProperties) {
+        // 收集区域定义（以declare_area或declare_area_X格式）
+        List<String> areaDefinitions = new ArrayList<>();
+        Map<String, String> remaining = new LinkedHashMap<>();
+        
+        for (Map.Entry<String, String> entry : allProperties.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals("declare_area") || key.startsWith(AREA_PREFIX)) {
+                String areaValue = entry.getValue();
                 if (areaValue != null && !areaValue.trim().isEmpty()) {
                     areaDefinitions.add(areaValue);
-                    logger.info("添加主区域定义: " + areaValue);
                 }
-                keysToRemove.add("declare_area");
+            } else {
+                remaining.put(key, entry.getValue());
             }
-            
-            // 处理带索引的区域属性
-            for (Map.Entry<String, String> entry : allProperties.entrySet()) {
-                String key = entry.getKey();
-                if (key.startsWith(AREA_PREFIX)) {
-                    String areaValue = entry.getValue();
-                    if (areaValue != null && !areaValue.trim().isEmpty()) {
-                        areaDefinitions.add(areaValue);
-                        logger.info("添加索引区域定义: " + key + "=" + areaValue);
-                    }
-                    keysToRemove.add(key);
+        }
+        
+        List<Map.Entry<String, String>> orderedProperties = new ArrayList<>();
+        boolean needsRestart = false;
+        
+        // 按优先级顺序排列属性
+        for (String key : PROPERTY_ORDER) {
+            String value = remaining.remove(key);
+            if (value != null) {
+                orderedProperties.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+                // 检查是否需要最终重启
+                if (RESTART_REQUIRED_PROPS.contains(key)) {
+                    needsRestart = true;
                 }
             }
-            
-            // 从原始属性中移除区域定义
-            for (String key : keysToRemove) {
-                allProperties.remove(key);
+        }
+        
+        // 未在优先级列表中的属性（区域定义除外）排在其后
+        for (Map.Entry<String, String> entry : remaining.entrySet()) {
+            orderedProperties.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        }
+        
+        // 按区域ID排序区域定义
+        areaDefinitions.sort((a, b) -> {
+            try {
+                // 根据格式提取区域ID进行比较
+                int idA = extractAreaId(a);
+                int idB = extractAreaId(b);
+                return Integer.compare(idA, idB);
+            } catch (NumberFormatException e) {
+                logger.warning("排序区域定义时出错: " + e.getMessage());
             }
-            
-            boolean needsRestart = false;
+            return a.compareTo(b);
+        });
+        
+        // 标准化区域值（移除花括号等）
+        List<String> areas = new ArrayList<>(areaDefinitions.size());
+        for (String areaValue : areaDefinitions) {
+            areas.add(normalizeAreaValue(areaValue));
+        }
+        
+        return new ConfigurationPlan(orderedProperties, areas, needsRestart);
+    }
+    
+    /**
+     * 按计划向设备逐项下发配置
+     * 
+     * @param deviceId 设备ID
+     * @param plan 下发计划
+     * @param listener 进度回调，可为null
+     * @return 如果全部成功则为true，否则为false
+     */
+    private boolean sendPlanToDevice(String deviceId, ConfigurationPlan plan, ProgressListener listener) {
+        int total = plan.getProperties().size() + plan.getAreas().size() + (plan.isRestartRequired() ? 1 : 0);
+        int completed = 0;
+        
+        try {
             boolean allSuccess = true;
             
             // 按优先级顺序设置属性
-            for (String key : PROPERTY_ORDER) {
-                // 跳过区域设置，稍后单独处理
-                if (key.equals("declare_area")) {
-                    continue;
-                }
-                
-                if (allProperties.containsKey(key)) {
-                    String value = allProperties.get(key);
-                    logger.info("按顺序设置属性: " + key + "=" + value);
-                    
-                    boolean success = sendPropertyToDevice(deviceId, key, value);
-                    if (!success) {
-                        logger.warning("设置属性失败: " + key + "=" + value);
-                        allSuccess = false;
-                    }
-                    
-                    // 检查是否需要最终重启
-                    if (RESTART_REQUIRED_PROPS.contains(key)) {
-                        needsRestart = true;
-                    }
-                    
-                    // 每设置一项，等待300ms
-                    Thread.sleep(300);
-                }
-            }
-            
-            // 设置未在优先级列表中的属性（区域定义除外）
-            for (Map.Entry<String, String> entry : allProperties.entrySet()) {
+            for (Map.Entry<String, String> entry : plan.getProperties()) {
                 String key = entry.getKey();
-                // 跳过已经设置过的属性
-                if (Arrays.asList(PROPERTY_ORDER).contains(key)) {
-                    continue;
-                }
-                
                 String value = entry.getValue();
-                logger.info("设置额外属性: " + key + "=" + value);
+                logger.info("按顺序设置属性: " + key + "=" + value);
                 
                 boolean success = sendPropertyToDevice(deviceId, key, value);
                 if (!success) {
-                    logger.warning("设置额外属性失败: " + key + "=" + value);
+                    logger.warning("设置属性失败: " + key + "=" + value);
                     allSuccess = false;
                 }
                 
                 // 每设置一项，等待300ms
                 Thread.sleep(300);
+                reportProgress(listener, ++completed, total, key + "=" + value);
             }
             
-            // 按区域ID排序区域定义
-            areaDefinitions.sort((a, b) -> {
-                try {
-                    // 根据格式提取区域ID进行比较
-                    int idA = extractAreaId(a);
-                    int idB = extractAreaId(b);
-                    return Integer.compare(idA, idB);
-                } catch (NumberFormatException e) {
-                    logger.warning("排序区域定义时出错: " + e.getMessage());
-                }
-                return a.compareTo(b);
-            });
-            
             // 逐个设置区域定义
-            for (String areaValue : areaDefinitions) {
-                // 标准化区域值（移除花括号等）
-                String normalizedValue = normalizeAreaValue(areaValue);
-                logger.info("设置区域: declare_area=" + normalizedValue);
+            for (String areaValue : plan.getAreas()) {
+                logger.info("设置区域: declare_area=" + areaValue);
                 
                 // 使用基础键名"declare_area"发送
-                boolean success = sendPropertyToDevice(deviceId, "declare_area", normalizedValue);
+                boolean success = sendPropertyToDevice(deviceId, "declare_area", areaValue);
                 if (!success) {
-                    logger.warning("设置区域失败: declare_area=" + normalizedValue);
+                    logger.warning("设置区域失败: declare_area=" + areaValue);
                     allSuccess = false;
                 }
                 
                 // 区域设置之间等待更长时间，确保每个区域设置都能完成
                 Thread.sleep(1000);
+                reportProgress(listener, ++completed, total, "declare_area=" + areaValue);
             }
             
             // 如果需要重启且有高度或边界设置，等待5秒然后重启设备
-            if (needsRestart) {
+            if (plan.isRestartRequired()) {
                 logger.info("配置需要设备重启，等待5秒后重启设备: " + deviceId);
                 
                 Thread.sleep(5000);
@@ -474,17 +729,28 @@ public class ConfigurationManager {
                     logger.warning("重启设备失败: " + deviceId);
                     allSuccess = false;
                 }
+                reportProgress(listener, ++completed, total, "restart");
             }
             
             logger.info("配置" + (allSuccess ? "完全" : "部分") + "发送到设备: " + deviceId);
             return allSuccess;
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("配置下发已取消: " + deviceId + ", 已完成 " + completed + "/" + total);
+            return false;
         } catch (Exception e) {
             logger.log(Level.SEVERE, "发送配置错误", e);
             return false;
         }
     }
     
+    private void reportProgress(ProgressListener listener, int completed, int total, String step) {
+        if (listener != null) {
+            listener.onProgress(completed, total, step);
+        }
+    }
+    
     /**
      * 向设备发送单个属性
      * 
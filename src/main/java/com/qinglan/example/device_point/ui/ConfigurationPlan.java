@@ -0,0 +1,52 @@
+package com.qinglan.example.device_point.ui;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的设备配置下发计划（不可变）
+ * - 属性已按下发优先级排好顺序
+ * - 区域定义已标准化并按区域ID排序
+ * - 多个设备可共享同一个计划实例
+ */
+public final class ConfigurationPlan {
+
+    private final List<Map.Entry<String, String>> properties;
+    private final List<String> areas;
+    private final boolean restartRequired;
+
+    ConfigurationPlan(List<Map.Entry<String, String>> properties, List<String> areas, boolean restartRequired) {
+        this.properties = Collections.unmodifiableList(properties);
+        this.areas = Collections.unmodifiableList(areas);
+        this.restartRequired = restartRequired;
+    }
+
+    /**
+     * 按下发顺序排列的非区域属性
+     */
+    public List<Map.Entry<String, String>> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 按区域ID排序、已去除花括号的declare_area值
+     */
+    public List<String> getAreas() {
+        return areas;
+    }
+
+    /**
+     * 下发完成后是否需要重启雷达
+     */
+    public boolean isRestartRequired() {
+        return restartRequired;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationPlan{properties=" + properties.size()
+            + ", areas=" + areas.size()
+            + ", restartRequired=" + restartRequired + "}";
+    }
+}
@@ -0,0 +1,387 @@
+package com.qinglan.example.device_point.ui;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 配置文件流式读取器
+ * - 单遍扫描字符流，不把整个文件读入内存
+ * - 元素之间必须有逗号；容忍对象和数组中的尾随逗号，无需预先用正则处理，但不接受开头或连续的逗号
+ * - 解析错误以IOException抛出，消息中带行号
+ */
+class ConfigurationStreamReader implements Closeable {
+
+    private static final int NONE = -2;
+
+    // 错误消息中附带的最近内容长度
+    private static final int EXCERPT_LENGTH = 80;
+
+    private final Reader reader;
+
+    // 预读的字符，NONE表示尚未预读
+    private int peeked = NONE;
+
+    // 当前行号，用于错误定位
+    private int line = 1;
+
+    // 字符串/字面量复用的缓冲区
+    private final StringBuilder buffer = new StringBuilder(64);
+
+    // 每层对象/数组是否已读过元素，决定下一个元素前是否需要逗号
+    private boolean[] started = new boolean[16];
+    private int depth;
+
+    // 最近读过的字符，出错时附在消息中便于定位
+    private final char[] excerpt = new char[EXCERPT_LENGTH];
+    private long position;
+
+    /**
+     * 构造函数
+     *
+     * @param reader 字符流，调用方应传入带缓冲的Reader
+     */
+    ConfigurationStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取对象开始符 {
+     */
+    void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    /**
+     * 读取对象结束符 }
+     */
+    void endObject() throws IOException {
+        expect('}');
+        pop();
+    }
+
+    /**
+     * 读取数组开始符 [
+     */
+    void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    /**
+     * 读取数组结束符 ]
+     */
+    void endArray() throws IOException {
+        expect(']');
+        pop();
+    }
+
+    /**
+     * 当前对象或数组中是否还有元素
+     * 元素之间的逗号在这里消费，逗号后紧跟 } 或 ] 时视为尾随逗号
+     *
+     * @return 有下一个元素则为true
+     */
+    boolean hasNext() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == -1) {
+            throw error("文件意外结束");
+        }
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        boolean first = !started[depth - 1];
+        if (c == ',') {
+            if (first) {
+                throw error("第一个元素前不能有逗号");
+            }
+            read();
+            c = peekNonWhitespace();
+            if (c == -1) {
+                throw error("文件意外结束");
+            }
+            if (c == '}' || c == ']') {
+                return false;
+            }
+            if (c == ',') {
+                throw error("连续的逗号");
+            }
+        } else if (!first) {
+            throw error("元素之间缺少逗号，实际为 " + describe(c));
+        }
+        started[depth - 1] = true;
+        return true;
+    }
+
+    /**
+     * 读取属性名以及其后的冒号
+     *
+     * @return 属性名
+     */
+    String nextName() throws IOException {
+        if (peekNonWhitespace() != '"') {
+            throw error("期望属性名");
+        }
+        String name = readQuoted();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * 下一个值是否为对象
+     */
+    boolean peekObject() throws IOException {
+        return peekNonWhitespace() == '{';
+    }
+
+    /**
+     * 读取标量值的文本形式
+     * 字符串返回内容，数字和布尔值返回字面量，null返回null
+     * 值为对象或数组时返回其JSON文本
+     *
+     * @return 值的字符串形式
+     */
+    String nextString() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            return readQuoted();
+        }
+        if (c == '{' || c == '[') {
+            Object value = readValue();
+            return value.toString();
+        }
+        String literal = readLiteral();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    /**
+     * 跳过下一个值（包括嵌套的对象和数组）
+     */
+    void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else if (c == '"') {
+            readQuoted();
+        } else {
+            readLiteral();
+        }
+    }
+
+    /**
+     * 读取完整的值
+     *
+     * @return JSONObject、JSONArray、String、Number、Boolean或null
+     */
+    Object readValue() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '{') {
+            JSONObject object = new JSONObject();
+            beginObject();
+            while (hasNext()) {
+                String name = nextName();
+                object.put(name, readValue());
+            }
+            endObject();
+            return object;
+        }
+        if (c == '[') {
+            JSONArray array = new JSONArray();
+            beginArray();
+            while (hasNext()) {
+                array.add(readValue());
+            }
+            endArray();
+            return array;
+        }
+        if (c == '"') {
+            return readQuoted();
+        }
+        return toLiteralValue(readLiteral());
+    }
+
+    /**
+     * 确认已到达文件末尾（允许尾部空白）
+     */
+    void endDocument() throws IOException {
+        if (peekNonWhitespace() != -1) {
+            throw error("文档结束后存在多余内容");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Object toLiteralValue(String literal) throws IOException {
+        switch (literal) {
+            case "null":
+                return null;
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            default:
+                try {
+                    BigDecimal number = new BigDecimal(literal);
+                    if (number.scale() <= 0) {
+                        long longValue = number.longValueExact();
+                        if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                            return (int) longValue;
+                        }
+                        return longValue;
+                    }
+                    return number;
+                } catch (ArithmeticException e) {
+                    return new BigDecimal(literal);
+                } catch (NumberFormatException e) {
+                    throw error("无法识别的值: " + literal);
+                }
+        }
+    }
+
+    private String readQuoted() throws IOException {
+        expect('"');
+        buffer.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("字符串未结束");
+            }
+            if (c == '"') {
+                return buffer.toString();
+            }
+            if (c == '\\') {
+                buffer.append(readEscape());
+            } else {
+                buffer.append((char) c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("无效的unicode转义");
+                    }
+                    code = (code << 4) | digit;
+                }
+                return (char) code;
+            default:
+                throw error("无效的转义字符");
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        buffer.setLength(0);
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            buffer.append((char) read());
+        }
+        if (buffer.length() == 0) {
+            throw error("期望值");
+        }
+        return buffer.toString();
+    }
+
+    private void push() {
+        if (depth == started.length) {
+            started = Arrays.copyOf(started, depth * 2);
+        }
+        started[depth++] = false;
+    }
+
+    private void pop() {
+        depth--;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if (c != expected) {
+            throw error("期望 '" + expected + "'，实际为 " + describe(c));
+        }
+        read();
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        int c = peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = NONE;
+        if (c == '\n') {
+            line++;
+        }
+        if (c != -1) {
+            excerpt[(int) (position++ % EXCERPT_LENGTH)] = (char) c;
+        }
+        return c;
+    }
+
+    private String describe(int c) {
+        return c == -1 ? "文件结尾" : "'" + (char) c + "'";
+    }
+
+    private IOException error(String message) {
+        return new IOException("JSON解析错误(第" + line + "行): " + message + "，出错位置之前的内容: " + excerpt());
+    }
+
+    private String excerpt() {
+        int length = (int) Math.min(position, EXCERPT_LENGTH);
+        StringBuilder text = new StringBuilder(length + 3);
+        if (position > EXCERPT_LENGTH) {
+            text.append("...");
+        }
+        for (long i = position - length; i < position; i++) {
+            text.append(excerpt[(int) (i % EXCERPT_LENGTH)]);
+        }
+        return text.toString();
+    }
+}
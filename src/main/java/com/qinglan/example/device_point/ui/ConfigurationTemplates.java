@@ -0,0 +1,317 @@
+package com.qinglan.example.device_point.ui;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 分层配置模板（fleet → site → room → device）
+ * - 模板通过parent逐级继承属性，子级覆盖父级
+ * - 设备只保存所属模板ID和少量覆盖属性
+ * - 解析结果按模板缓存，只有祖先模板变更时才失效；无覆盖属性的设备直接共享模板计划
+ * - 区域定义按合并后的完整属性校验，继承来的区域与本级区域ID冲突时解析失败
+ */
+public class ConfigurationTemplates {
+
+    private static final Logger logger = Logger.getLogger(ConfigurationTemplates.class.getName());
+
+    /**
+     * 模板的解析结果，generation与模板当前代数一致时有效
+     */
+    private static final class Resolved {
+        final long generation;
+        final Map<String, String> properties;
+        final ConfigurationPlan plan;
+
+        Resolved(long generation, Map<String, String> properties, ConfigurationPlan plan) {
+            this.generation = generation;
+            this.properties = properties;
+            this.plan = plan;
+        }
+    }
+
+    private static final class Template {
+        final String id;
+        final String parentId;
+        final Map<String, String> properties;
+        volatile long generation;
+        volatile Resolved resolved;
+
+        Template(String id, String parentId, Map<String, String> properties, long generation) {
+            this.id = id;
+            this.parentId = parentId;
+            this.properties = properties;
+            this.generation = generation;
+        }
+    }
+
+    private static final class DeviceBinding {
+        final String templateId;
+        final Map<String, String> overrides;
+        volatile Resolved resolved;
+
+        DeviceBinding(String templateId, Map<String, String> overrides) {
+            this.templateId = templateId;
+            this.overrides = overrides;
+        }
+    }
+
+    // 用于编译计划和校验区域定义
+    private final ConfigurationManager manager;
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> children = new ConcurrentHashMap<>();
+    private final Map<String, DeviceBinding> devices = new ConcurrentHashMap<>();
+
+    // 全局代数，每次模板变更都会为受影响的模板分配新值
+    private final AtomicLong generations = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param manager 所属的配置管理器
+     */
+    ConfigurationTemplates(ConfigurationManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * 新增或替换模板，该模板及其所有后代的缓存随之失效
+     *
+     * @param templateId 模板ID
+     * @param parentId 父模板ID，顶层（fleet）模板为null
+     * @param properties 本级属性
+     * @return 如果模板有效则为true
+     */
+    public synchronized boolean putTemplate(String templateId, String parentId, Map<String, String> properties) {
+        if (templateId == null || templateId.equals(parentId)) {
+            logger.warning("模板ID无效: " + templateId);
+            return false;
+        }
+        if (parentId != null && createsCycle(templateId, parentId)) {
+            logger.warning("模板继承存在循环: " + templateId + " -> " + parentId);
+            return false;
+        }
+        // 父模板可能尚未加载，此时只能先校验本级属性，解析时再校验完整属性
+        if (!manager.validateAreas(mergeWithTemplate(parentId, properties))) {
+            logger.warning("模板区域定义无效: " + templateId);
+            return false;
+        }
+
+        Template previous = templates.get(templateId);
+        if (previous != null && previous.parentId != null) {
+            Set<String> siblings = children.get(previous.parentId);
+            if (siblings != null) {
+                siblings.remove(templateId);
+            }
+        }
+        if (parentId != null) {
+            children.computeIfAbsent(parentId, k -> ConcurrentHashMap.newKeySet()).add(templateId);
+        }
+
+        Map<String, String> copy = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+        templates.put(templateId, new Template(templateId, parentId, copy, generations.incrementAndGet()));
+        invalidateDescendants(templateId);
+        logger.info("模板已更新: " + templateId + (parentId != null ? " (parent=" + parentId + ")" : ""));
+        return true;
+    }
+
+    /**
+     * 删除模板，引用它的子模板和设备在解析时将失败
+     *
+     * @param templateId 模板ID
+     */
+    public synchronized void removeTemplate(String templateId) {
+        Template removed = templates.remove(templateId);
+        if (removed == null) {
+            return;
+        }
+        if (removed.parentId != null) {
+            Set<String> siblings = children.get(removed.parentId);
+            if (siblings != null) {
+                siblings.remove(templateId);
+            }
+        }
+        invalidateDescendants(templateId);
+    }
+
+    /**
+     * 将设备绑定到模板
+     *
+     * @param deviceId 设备UID
+     * @param templateId 所属模板（通常是room级）
+     * @param overrides 设备级覆盖属性，可为空
+     * @return 如果覆盖属性有效则为true
+     */
+    public boolean assignDevice(String deviceId, String templateId, Map<String, String> overrides) {
+        Map<String, String> copy = overrides == null || overrides.isEmpty()
+            ? Collections.<String, String>emptyMap()
+            : Collections.unmodifiableMap(new LinkedHashMap<>(overrides));
+        if (!manager.validateAreas(mergeWithTemplate(templateId, copy))) {
+            logger.warning("设备覆盖属性区域定义无效: " + deviceId);
+            return false;
+        }
+        devices.put(deviceId, new DeviceBinding(templateId, copy));
+        return true;
+    }
+
+    /**
+     * 解除设备与模板的绑定
+     *
+     * @param deviceId 设备UID
+     */
+    public void unassignDevice(String deviceId) {
+        devices.remove(deviceId);
+    }
+
+    /**
+     * 设备是否已绑定模板
+     */
+    public boolean isAssigned(String deviceId) {
+        return devices.containsKey(deviceId);
+    }
+
+    /**
+     * 解析设备的下发计划
+     *
+     * @param deviceId 设备UID
+     * @return 下发计划，设备未绑定模板时返回null
+     * @throws IllegalStateException 模板链不完整、存在循环或合并后的区域定义无效
+     */
+    public ConfigurationPlan resolve(String deviceId) {
+        DeviceBinding binding = devices.get(deviceId);
+        if (binding == null) {
+            return null;
+        }
+        Template template = templates.get(binding.templateId);
+        if (template == null) {
+            throw new IllegalStateException("设备引用的模板不存在: " + deviceId + " -> " + binding.templateId);
+        }
+
+        Resolved resolved = resolveTemplate(template, 0);
+        if (binding.overrides.isEmpty()) {
+            return resolved.plan;
+        }
+
+        Resolved cached = binding.resolved;
+        if (cached != null && cached.generation == resolved.generation) {
+            return cached.plan;
+        }
+        Map<String, String> merged = new LinkedHashMap<>(resolved.properties);
+        merged.putAll(binding.overrides);
+        if (!manager.validateAreas(merged)) {
+            throw new IllegalStateException("设备合并后的区域定义无效: " + deviceId + " -> " + binding.templateId);
+        }
+        ConfigurationPlan plan = manager.compilePlan(merged);
+        binding.resolved = new Resolved(resolved.generation, null, plan);
+        return plan;
+    }
+
+    /**
+     * 解析模板的完整属性（含所有祖先）
+     *
+     * @param templateId 模板ID
+     * @return 合并后的属性，模板链不完整时返回null
+     */
+    public Map<String, String> resolveProperties(String templateId) {
+        Template template = templates.get(templateId);
+        if (template == null) {
+            return null;
+        }
+        try {
+            return resolveTemplate(template, 0).properties;
+        } catch (IllegalStateException e) {
+            logger.warning(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 把属性合并到模板的完整属性之上，模板不存在或无法解析时原样返回
+     */
+    private Map<String, String> mergeWithTemplate(String templateId, Map<String, String> properties) {
+        Map<String, String> base = templateId != null ? resolveProperties(templateId) : null;
+        if (base == null) {
+            return properties;
+        }
+        Map<String, String> merged = new LinkedHashMap<>(base);
+        merged.putAll(properties);
+        return merged;
+    }
+
+    private Resolved resolveTemplate(Template template, int depth) {
+        // 继承深度不可能超过模板数量，超过即说明存在循环
+        if (depth > templates.size()) {
+            throw new IllegalStateException("模板继承存在循环: " + template.id);
+        }
+        long generation = template.generation;
+        Resolved resolved = template.resolved;
+        if (resolved != null && resolved.generation == generation) {
+            return resolved;
+        }
+
+        Map<String, String> merged = new LinkedHashMap<>();
+        if (template.parentId != null) {
+            Template parent = templates.get(template.parentId);
+            if (parent == null) {
+                throw new IllegalStateException("父模板不存在: " + template.id + " -> " + template.parentId);
+            }
+            merged.putAll(resolveTemplate(parent, depth + 1).properties);
+        }
+        merged.putAll(template.properties);
+        if (!manager.validateAreas(merged)) {
+            throw new IllegalStateException("模板合并后的区域定义无效: " + template.id);
+        }
+
+        Map<String, String> properties = Collections.unmodifiableMap(merged);
+        resolved = new Resolved(generation, properties, manager.compilePlan(properties));
+        template.resolved = resolved;
+        return resolved;
+    }
+
+    private boolean createsCycle(String templateId, String parentId) {
+        Set<String> visited = new HashSet<>();
+        String current = parentId;
+        while (current != null && visited.add(current)) {
+            if (current.equals(templateId)) {
+                return true;
+            }
+            Template template = templates.get(current);
+            current = template != null ? template.parentId : null;
+        }
+        return false;
+    }
+
+    private void invalidateDescendants(String templateId) {
+        Set<String> childIds = children.get(templateId);
+        if (childIds == null) {
+            return;
+        }
+        for (String childId : childIds) {
+            Template child = templates.get(childId);
+            if (child != null) {
+                child.generation = generations.incrementAndGet();
+            }
+            invalidateDescendants(childId);
+        }
+    }
+
+    /**
+     * 模板数量
+     */
+    public int getTemplateCount() {
+        return templates.size();
+    }
+
+    /**
+     * 已绑定模板的设备数量
+     */
+    public int getDeviceCount() {
+        return devices.size();
+    }
+}
@@ -0,0 +1,156 @@
+package com.qinglan.example.device_point.ui;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A UI-initiated device operation tracked by the DeviceJobExecutor
+ */
+public class DeviceJob {
+
+    // Operation types
+    public enum Type {
+        CONFIG_PUSH("Config Push"),
+        PROPERTY_QUERY("Property Query"),
+        RESTART("Restart"),
+        OTA("OTA");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // Job lifecycle states
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
+
+    private final int id;
+    private final Type type;
+    private final String deviceId;
+    private final long createdAt;
+    private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+    private final CompletableFuture<DeviceJob> completion = new CompletableFuture<>();
+    private volatile int progress;
+    private volatile String message;
+    private volatile Future<?> future;
+
+    DeviceJob(Type type, String deviceId, String message) {
+        this.id = idCounter.getAndIncrement();
+        this.type = type;
+        this.deviceId = deviceId;
+        this.message = message;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Report progress from inside a running job
+     *
+     * @param percent Progress in percent (0-100)
+     * @param message Current step description
+     */
+    public void reportProgress(int percent, String message) {
+        if (state.get() != State.RUNNING) {
+            return;
+        }
+        this.progress = Math.max(0, Math.min(100, percent));
+        this.message = message;
+        EventBus.getInstance().postJobUpdated(this);
+    }
+
+    /**
+     * Whether cancellation was requested for this job
+     */
+    public boolean isCancelled() {
+        return state.get() == State.CANCELLED;
+    }
+
+    boolean markRunning() {
+        return state.compareAndSet(State.QUEUED, State.RUNNING);
+    }
+
+    boolean finish(State finalState, String message) {
+        while (true) {
+            State current = state.get();
+            if (current.isFinished()) {
+                return false;
+            }
+            if (state.compareAndSet(current, finalState)) {
+                break;
+            }
+        }
+        if (finalState == State.SUCCEEDED) {
+            this.progress = 100;
+        }
+        this.message = message;
+        completion.complete(this);
+        return true;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Future completed once the job reaches a final state
+     * Callbacks run on a worker thread; use SwingUtilities.invokeLater for UI updates
+     */
+    public CompletableFuture<DeviceJob> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public String toString() {
+        return "Job#" + id + " " + type.getLabel() + " " + deviceId + " " + state.get();
+    }
+}
@@ -0,0 +1,185 @@
+package com.qinglan.example.device_point.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs UI-initiated device operations (config push, property query, restart, OTA)
+ * on a bounded worker pool so the Swing EDT never blocks
+ */
+public class DeviceJobExecutor {
+
+    private static final Logger logger = Logger.getLogger(DeviceJobExecutor.class.getName());
+
+    // Worker pool size
+    private static final int WORKER_COUNT = 4;
+
+    // Maximum number of jobs waiting for a worker
+    private static final int QUEUE_CAPACITY = 32;
+
+    // Singleton instance
+    private static DeviceJobExecutor instance;
+
+    /**
+     * Body of a job, executed on a worker thread
+     */
+    public interface JobTask {
+
+        /**
+         * @param job The job being executed, used for progress reporting and cancellation checks
+         * @return True if the operation succeeded
+         */
+        boolean run(DeviceJob job) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    // Jobs that are queued or running
+    private final Map<Integer, DeviceJob> activeJobs = new ConcurrentHashMap<>();
+
+    private DeviceJobExecutor() {
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        executor = new ThreadPoolExecutor(
+            WORKER_COUNT, WORKER_COUNT,
+            30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "device-job-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized DeviceJobExecutor getInstance() {
+        if (instance == null) {
+            instance = new DeviceJobExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Submit a job
+     *
+     * @param type Operation type
+     * @param deviceId Target device
+     * @param description Initial status message
+     * @param task Job body
+     * @return The job; it is already FAILED if the queue was full
+     */
+    public DeviceJob submit(DeviceJob.Type type, String deviceId, String description, JobTask task) {
+        DeviceJob job = new DeviceJob(type, deviceId, description);
+        activeJobs.put(job.getId(), job);
+        EventBus.getInstance().postJobUpdated(job);
+
+        try {
+            job.setFuture(executor.submit(() -> runJob(job, task)));
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                logger.warning("Job executor shut down, rejecting " + job);
+                complete(job, DeviceJob.State.FAILED, "Job executor shut down");
+            } else {
+                logger.warning("Job queue full, rejecting " + job);
+                complete(job, DeviceJob.State.FAILED, "Job queue full, try again later");
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Cancel a queued or running job; running jobs are interrupted
+     *
+     * @param jobId The job ID
+     * @return True if the job was cancelled
+     */
+    public boolean cancel(int jobId) {
+        DeviceJob job = activeJobs.get(jobId);
+        if (job == null || !complete(job, DeviceJob.State.CANCELLED, "Cancelled")) {
+            return false;
+        }
+
+        Future<?> future = job.getFuture();
+        if (future != null) {
+            future.cancel(true);
+        }
+        // Drop cancelled tasks from the queue so they do not hold capacity
+        executor.purge();
+        logger.info("Cancelled " + job);
+        return true;
+    }
+
+    /**
+     * Get the jobs that are queued or running
+     */
+    public List<DeviceJob> getActiveJobs() {
+        return new ArrayList<>(activeJobs.values());
+    }
+
+    /**
+     * Cancel every queued or running job, e.g. when the UI that submitted them closes
+     * The executor stays usable; idle workers time out on their own
+     */
+    public void cancelAll() {
+        for (DeviceJob job : getActiveJobs()) {
+            cancel(job.getId());
+        }
+    }
+
+    /**
+     * Stop all workers, interrupting running jobs
+     * This is permanent for the process, later submissions fail; only call it on process exit
+     */
+    public void shutdown() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    private void runJob(DeviceJob job, JobTask task) {
+        if (!job.markRunning()) {
+            // Cancelled while waiting in the queue
+            return;
+        }
+        EventBus.getInstance().postJobUpdated(job);
+
+        try {
+            boolean success = task.run(job);
+            if (Thread.currentThread().isInterrupted()) {
+                complete(job, DeviceJob.State.CANCELLED, "Cancelled");
+            } else if (success) {
+                complete(job, DeviceJob.State.SUCCEEDED, "Completed");
+            } else {
+                complete(job, DeviceJob.State.FAILED, "Operation failed");
+            }
+        } catch (InterruptedException e) {
+            complete(job, DeviceJob.State.CANCELLED, "Cancelled");
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Job failed: " + job, e);
+            complete(job, DeviceJob.State.FAILED, "Error: " + e.getMessage());
+        } finally {
+            // Do not leak the interrupt flag into the next job on this worker
+            Thread.interrupted();
+        }
+    }
+
+    private boolean complete(DeviceJob job, DeviceJob.State state, String message) {
+        if (!job.finish(state, message)) {
+            return false;
+        }
+        activeJobs.remove(job.getId());
+        EventBus.getInstance().postJobUpdated(job);
+        return true;
+    }
+}
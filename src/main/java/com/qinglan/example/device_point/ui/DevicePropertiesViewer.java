@@ -1,16 +1,20 @@
 package com.qinglan.example.device_point.ui;
 
+import com.qinglan.example.device_point.server.area.GeofenceEngine;
 import com.qinglan.example.device_point.server.handle.ProItemsHandler;
 import com.qinglan.example.device_point.server.handle.SetPropHandler;
+import com.qinglan.example.device_point.server.property.PropertyChange;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,7 +37,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
     // 记录当前正在处理的属性编辑请求
     private String pendingPropertyKey;
     private String pendingPropertyValue;
-    private int pendingPropertyRow = -1;
     
     /**
      * Constructor
@@ -80,6 +83,7 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
         
         // 注册监听事件总线
         EventBus.getInstance().register(EventBus.EventType.MESSAGE_RECEIVED, this);
+        EventBus.getInstance().register(EventBus.EventType.PROPERTY_CHANGED, this);
     }
     
     /**
@@ -87,6 +91,12 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
      */
     @Override
     public void onEvent(EventBus.Event event) {
+        // 属性变化只更新变化的行
+        if (event.getType() == EventBus.EventType.PROPERTY_CHANGED) {
+            handlePropertiesChanged(event);
+            return;
+        }
+        
         // 只处理消息接收事件
         if (event.getType() != EventBus.EventType.MESSAGE_RECEIVED) {
             return;
@@ -100,15 +110,15 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
         if (deviceId != null && deviceId.equals(currentDeviceId) && 
             "RECV".equals(messageType) && message != null && 
             message.contains("Property Setting") && 
-            pendingPropertyKey != null && pendingPropertyRow >= 0) {
+            pendingPropertyKey != null) {
             
             SwingUtilities.invokeLater(() -> {
                 // 检查消息是否表示成功
                 boolean success = message.contains("Successful");
                 
                 if (success) {
-                    // 更新表格中的值
-                    propertiesTableModel.setValueAt(pendingPropertyValue, pendingPropertyRow, 1);
+                    // 请求期间表格可能已插入或删除行，按属性名重新定位
+                    putPropertyRow(pendingPropertyKey, pendingPropertyValue);
                     statusLabel.setText("Property " + pendingPropertyKey + " updated successfully");
                 } else {
                     statusLabel.setText("Failed to update property " + pendingPropertyKey);
@@ -117,7 +127,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
                 // 清除待处理状态
                 pendingPropertyKey = null;
                 pendingPropertyValue = null;
-                pendingPropertyRow = -1;
                 
                 // 重新启用按钮
                 refreshButton.setEnabled(true);
@@ -126,6 +135,66 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
         }
     }
     
+    /**
+     * Apply a property delta to the table if it belongs to the current device
+     */
+    @SuppressWarnings("unchecked")
+    private void handlePropertiesChanged(EventBus.Event event) {
+        String deviceId = event.getStringData("deviceId");
+        Object changes = event.getData("changes");
+        if (deviceId == null || !(changes instanceof List)) {
+            return;
+        }
+        
+        SwingUtilities.invokeLater(() -> {
+            if (!deviceId.equals(currentDeviceId)) {
+                return;
+            }
+            for (PropertyChange change : (List<PropertyChange>) changes) {
+                applyPropertyChange(change);
+            }
+        });
+    }
+    
+    /**
+     * Update, insert or remove the table row of a single property, keeping rows sorted by key
+     */
+    private void applyPropertyChange(PropertyChange change) {
+        String key = change.getKey();
+        if (change.getKind() != PropertyChange.Kind.REMOVED) {
+            putPropertyRow(key, change.getNewValue());
+            return;
+        }
+        int row = findPropertyRow(key);
+        if (row < propertiesTableModel.getRowCount() && key.equals(propertiesTableModel.getValueAt(row, 0))) {
+            propertiesTableModel.removeRow(row);
+        }
+    }
+    
+    /**
+     * Update the row of a property, inserting it at its sorted position if missing
+     */
+    private void putPropertyRow(String key, String value) {
+        int row = findPropertyRow(key);
+        if (row < propertiesTableModel.getRowCount() && key.equals(propertiesTableModel.getValueAt(row, 0))) {
+            propertiesTableModel.setValueAt(value, row, 1);
+        } else {
+            propertiesTableModel.insertRow(row, new Object[]{key, value, getPropertyDescription(key)});
+        }
+    }
+    
+    /**
+     * Row of the property, or the row it would be inserted at to keep rows sorted by key
+     */
+    private int findPropertyRow(String key) {
+        int row = 0;
+        while (row < propertiesTableModel.getRowCount()
+               && ((String) propertiesTableModel.getValueAt(row, 0)).compareTo(key) < 0) {
+            row++;
+        }
+        return row;
+    }
+    
     /**
      * Set the current device to view
      * 
@@ -175,37 +244,34 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
         refreshButton.setEnabled(false);
         editButton.setEnabled(false);
         
-        // Run query in background
-        CompletableFuture.runAsync(() -> {
-            try {
-                Map<String, String> properties = ProItemsHandler.queryDeviceProperties(currentDeviceId);
-                
-                // Update UI on EDT
-                SwingUtilities.invokeLater(() -> {
-                    if (properties != null) {
-                        updatePropertiesTable(properties);
-                        statusLabel.setText("Properties loaded for: " + currentDeviceId);
-                    } else {
-                        statusLabel.setText("Failed to query properties for: " + currentDeviceId);
-                    }
-                    
-                    // Re-enable buttons
-                    refreshButton.setEnabled(true);
-                    editButton.setEnabled(true);
-                });
-            } catch (Exception ex) {
-                logger.log(Level.SEVERE, "Error querying properties", ex);
-                
-                // Update UI on EDT
-                SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Error: " + ex.getMessage());
-                    
-                    // Re-enable buttons
-                    refreshButton.setEnabled(true);
-                    editButton.setEnabled(true);
-                });
+        // Run query on the job executor
+        String deviceId = currentDeviceId;
+        AtomicReference<Map<String, String>> result = new AtomicReference<>();
+        DeviceJob job = DeviceJobExecutor.getInstance().submit(
+            DeviceJob.Type.PROPERTY_QUERY, deviceId, "Querying properties",
+            j -> {
+                result.set(ProItemsHandler.queryDeviceProperties(deviceId));
+                return result.get() != null;
+            });
+        
+        job.getCompletion().thenAccept(finished -> SwingUtilities.invokeLater(() -> {
+            // Ignore results for a device that is no longer selected
+            if (deviceId.equals(currentDeviceId)) {
+                Map<String, String> properties = result.get();
+                if (properties != null) {
+                    updatePropertiesTable(properties);
+                    statusLabel.setText("Properties loaded for: " + deviceId);
+                } else if (finished.getState() == DeviceJob.State.CANCELLED) {
+                    statusLabel.setText("Property query cancelled for: " + deviceId);
+                } else {
+                    statusLabel.setText("Failed to query properties for: " + deviceId);
+                }
             }
-        });
+            
+            // Re-enable buttons
+            refreshButton.setEnabled(currentDeviceId != null);
+            editButton.setEnabled(currentDeviceId != null);
+        }));
     }
     
     /**
@@ -278,7 +344,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
             // 保存当前的编辑请求
             pendingPropertyKey = key;
             pendingPropertyValue = newValue;
-            pendingPropertyRow = selectedRow;
             
             // Update status
             statusLabel.setText("Setting property " + key + " on " + currentDeviceId + "...");
@@ -291,7 +356,9 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
             CompletableFuture.runAsync(() -> {
                 try {
                     // 使用修改后的SetPropHandler发送属性设置请求
-                    boolean sent = SetPropHandler.setProperty(currentDeviceId, key, newValue);
+                    // 每个区域单独成行(declare_area_<区域ID>)，设备端统一使用declare_area
+                    String deviceKey = key.startsWith(GeofenceEngine.AREA_KEY_PREFIX) ? GeofenceEngine.AREA_KEY : key;
+                    boolean sent = SetPropHandler.setProperty(currentDeviceId, deviceKey, newValue);
                     
                     if (!sent) {
                         // 如果发送失败，更新UI
@@ -301,7 +368,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
                             // 清除待处理状态
                             pendingPropertyKey = null;
                             pendingPropertyValue = null;
-                            pendingPropertyRow = -1;
                             
                             // 重新启用按钮
                             refreshButton.setEnabled(true);
@@ -322,7 +388,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
                         // 清除待处理状态
                         pendingPropertyKey = null;
                         pendingPropertyValue = null;
-                        pendingPropertyRow = -1;
                         
                         // 重新启用按钮
                         refreshButton.setEnabled(true);
@@ -349,7 +414,6 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
                     // 清除待处理状态
                     pendingPropertyKey = null;
                     pendingPropertyValue = null;
-                    pendingPropertyRow = -1;
                     
                     // 重新启用按钮
                     refreshButton.setEnabled(true);
@@ -509,6 +573,9 @@ public class DevicePropertiesViewer extends JPanel implements EventBus.EventList
      * @return The description
      */
     private String getPropertyDescription(String key) {
+        if (key.startsWith(GeofenceEngine.AREA_KEY_PREFIX)) {
+            key = GeofenceEngine.AREA_KEY;
+        }
         switch (key) {
             case "radar_func_ctrl":
                 return "Work Mode (3: Tracking, 7: Fall Detection, 11: Breathing/Sleep, 15: Full Features)";
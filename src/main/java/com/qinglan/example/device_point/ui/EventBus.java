@@ -1,5 +1,7 @@
 package com.qinglan.example.device_point.ui;
 
+import com.qinglan.example.device_point.server.property.PropertyChange;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,7 +21,9 @@ public class EventBus {
         DEVICE_DISCONNECTED,
         MESSAGE_RECEIVED,
         MESSAGE_SENT,
-        HEARTBEAT
+        HEARTBEAT,
+        JOB_UPDATED,
+        PROPERTY_CHANGED
     }
     
     // Event class
@@ -170,4 +174,23 @@ public class EventBus {
             .addData("deviceId", deviceId)
             .addData("message", "Heartbeat"));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Convenience method to post a job state or progress change
+     */
+    public void postJobUpdated(DeviceJob job) {
+        post(new Event(EventType.JOB_UPDATED)
+            .addData("deviceId", job.getDeviceId())
+            .addData("job", job));
+    }
+    
+    /**
+     * Convenience method to post the property keys that changed on a device
+     */
+    public void postPropertiesChanged(String deviceId, long version, List<PropertyChange> changes) {
+        post(new Event(EventType.PROPERTY_CHANGED)
+            .addData("deviceId", deviceId)
+            .addData("version", version)
+            .addData("changes", changes));
+    }
+}
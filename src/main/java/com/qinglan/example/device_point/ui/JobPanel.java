@@ -0,0 +1,152 @@
+package com.qinglan.example.device_point.ui;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * UI component listing background device jobs with progress and cancellation
+ */
+public class JobPanel extends JPanel implements EventBus.EventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    // Finished jobs beyond this count are dropped from the table, oldest first
+    private static final int MAX_ROWS = 100;
+
+    private final DefaultTableModel jobTableModel;
+    private final JTable jobTable;
+    private final JButton cancelButton;
+
+    /**
+     * Constructor
+     */
+    public JobPanel() {
+        setLayout(new BorderLayout());
+        setBorder(BorderFactory.createTitledBorder("Jobs"));
+
+        String[] columns = {"ID", "Device ID", "Operation", "Status", "Progress", "Message", "Created"};
+        jobTableModel = new DefaultTableModel(columns, 0) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        jobTable = new JTable(jobTableModel);
+        jobTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        jobTable.getTableHeader().setReorderingAllowed(false);
+        add(new JScrollPane(jobTable), BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        cancelButton = new JButton("Cancel Job");
+        cancelButton.addActionListener(this::handleCancelJob);
+        JButton clearButton = new JButton("Clear Finished");
+        clearButton.addActionListener(e -> clearFinishedJobs());
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(clearButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        EventBus.getInstance().register(EventBus.EventType.JOB_UPDATED, this);
+    }
+
+    /**
+     * Handle job events from the EventBus
+     */
+    @Override
+    public void onEvent(EventBus.Event event) {
+        Object data = event.getData("job");
+        if (!(data instanceof DeviceJob)) {
+            return;
+        }
+        DeviceJob job = (DeviceJob) data;
+        // Snapshot the job fields on the posting thread
+        Object[] row = toRow(job);
+        SwingUtilities.invokeLater(() -> updateRow(job.getId(), row));
+    }
+
+    private Object[] toRow(DeviceJob job) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
+        return new Object[]{
+            job.getId(),
+            job.getDeviceId(),
+            job.getType().getLabel(),
+            job.getState().name(),
+            job.getProgress() + "%",
+            job.getMessage(),
+            dateFormat.format(new Date(job.getCreatedAt()))
+        };
+    }
+
+    private void updateRow(int jobId, Object[] row) {
+        for (int i = 0; i < jobTableModel.getRowCount(); i++) {
+            if (jobTableModel.getValueAt(i, 0).equals(jobId)) {
+                // Progress events can race with the final state event; never reopen a finished job
+                if (isFinished(i) && !DeviceJob.State.valueOf((String) row[3]).isFinished()) {
+                    return;
+                }
+                for (int column = 1; column < row.length; column++) {
+                    jobTableModel.setValueAt(row[column], i, column);
+                }
+                return;
+            }
+        }
+
+        jobTableModel.addRow(row);
+        trimFinishedRows();
+    }
+
+    private void trimFinishedRows() {
+        for (int i = 0; i < jobTableModel.getRowCount() && jobTableModel.getRowCount() > MAX_ROWS; ) {
+            if (isFinished(i)) {
+                jobTableModel.removeRow(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void clearFinishedJobs() {
+        for (int i = jobTableModel.getRowCount() - 1; i >= 0; i--) {
+            if (isFinished(i)) {
+                jobTableModel.removeRow(i);
+            }
+        }
+    }
+
+    private boolean isFinished(int row) {
+        return DeviceJob.State.valueOf((String) jobTableModel.getValueAt(row, 3)).isFinished();
+    }
+
+    /**
+     * Handle cancel button click
+     */
+    private void handleCancelJob(ActionEvent e) {
+        int selectedRow = jobTable.getSelectedRow();
+        if (selectedRow < 0) {
+            JOptionPane.showMessageDialog(this,
+                "Please select a job to cancel",
+                "No Job Selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int jobId = (Integer) jobTableModel.getValueAt(selectedRow, 0);
+        if (!DeviceJobExecutor.getInstance().cancel(jobId)) {
+            JOptionPane.showMessageDialog(this,
+                "Job " + jobId + " has already finished",
+                "Cannot Cancel", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    /**
+     * Clean up resources before the component is removed
+     */
+    public void cleanup() {
+        EventBus.getInstance().unregister(this);
+    }
+}
@@ -43,6 +43,9 @@ public class RadarDebugUI extends JFrame {
     
     // Properties viewer component
     private DevicePropertiesViewer propertiesViewer;
+    
+    // Background job list
+    private JobPanel jobPanel;
 
     // Controller
     private RadarUIController controller;
@@ -179,14 +182,17 @@ public class RadarDebugUI extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         acceptButton = new JButton("Accept New");
         disconnectButton = new JButton("Disconnect");
+        JButton restartButton = new JButton("Restart Device");
         JButton refreshPropsButton = new JButton("Refresh Properties");
 
         acceptButton.addActionListener(this::handleAcceptDevice);
         disconnectButton.addActionListener(this::handleDisconnectDevice);
+        restartButton.addActionListener(this::handleRestartDevice);
         refreshPropsButton.addActionListener(e -> updateSelectedDeviceProperties());
 
         buttonPanel.add(acceptButton);
         buttonPanel.add(disconnectButton);
+        buttonPanel.add(restartButton);
         buttonPanel.add(refreshPropsButton);
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -272,7 +278,13 @@ public class RadarDebugUI extends JFrame {
 
         inputPanel.add(new JLabel("Config File: "), BorderLayout.WEST);
         inputPanel.add(configFileField, BorderLayout.CENTER);
-        inputPanel.add(loadConfigButton, BorderLayout.EAST);
+        JButton loadTemplatesButton = new JButton("Load Templates");
+        loadTemplatesButton.addActionListener(this::handleLoadTemplates);
+        
+        JPanel loadButtons = new JPanel(new GridLayout(1, 2, 5, 0));
+        loadButtons.add(loadConfigButton);
+        loadButtons.add(loadTemplatesButton);
+        inputPanel.add(loadButtons, BorderLayout.EAST);
 
         sendConfigButton = new JButton("Send Configuration");
         sendConfigButton.setEnabled(false);
@@ -284,7 +296,9 @@ public class RadarDebugUI extends JFrame {
         JPanel configOptionsPanel = new JPanel(new BorderLayout());
         configOptionsPanel.add(sendConfigButton, BorderLayout.NORTH);
         
-        // Here we could add more configuration options if needed
+        // Background jobs started from this window
+        jobPanel = new JobPanel();
+        configOptionsPanel.add(jobPanel, BorderLayout.CENTER);
         
         panel.add(configOptionsPanel, BorderLayout.CENTER);
 
@@ -528,6 +542,35 @@ public class RadarDebugUI extends JFrame {
         }
     }
 
+    /**
+     * Handle loading a template bundle, devices in it are sent their resolved templates
+     */
+    private void handleLoadTemplates(ActionEvent e) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select Template Bundle");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        javax.swing.filechooser.FileFilter jsonFilter = new javax.swing.filechooser.FileNameExtensionFilter(
+            "JSON Files (*.json)", "json");
+        fileChooser.addChoosableFileFilter(jsonFilter);
+        fileChooser.setFileFilter(jsonFilter);
+
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File selectedFile = fileChooser.getSelectedFile();
+        int assigned = controller.loadTemplateBundle(selectedFile);
+        if (assigned < 0) {
+            JOptionPane.showMessageDialog(this,
+                "Failed to load template bundle",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (assigned > 0) {
+            sendConfigButton.setEnabled(true);
+        }
+        addMessage("INFO", "System", "Templates loaded: " + selectedFile.getName() + ", devices bound: " + assigned);
+    }
+
     /**
      * Handle sending configuration
      */
@@ -552,25 +595,57 @@ public class RadarDebugUI extends JFrame {
         // Add log message
         addMessage("INFO", "System", "Sending configuration to " + selectedDeviceId + "...");
         
-        boolean sent = controller.sendConfiguration(selectedDeviceId);
-        if (!sent) {
+        // Run on the job executor so the EDT stays responsive
+        DeviceJob job = controller.sendConfigurationAsync(selectedDeviceId);
+        if (job == null) {
             JOptionPane.showMessageDialog(this,
                 "Failed to send configuration to " + selectedDeviceId,
                 "Error", JOptionPane.ERROR_MESSAGE);
             addMessage("ERROR", "System", "Failed to send configuration to " + selectedDeviceId);
-        } else {
-            addMessage("INFO", "System", "Configuration sent successfully to " + selectedDeviceId);
+            return;
+        }
+        
+        job.getCompletion().thenAccept(finished -> SwingUtilities.invokeLater(() -> {
+            if (finished.getState() == DeviceJob.State.SUCCEEDED) {
+                addMessage("INFO", "System", "Configuration sent successfully to " + selectedDeviceId);
+                
+                // Give the device some time to process the configuration, then refresh properties
+                Timer refreshTimer = new Timer(500, evt -> updateSelectedDeviceProperties());
+                refreshTimer.setRepeats(false);
+                refreshTimer.start();
+            } else if (finished.getState() == DeviceJob.State.CANCELLED) {
+                addMessage("INFO", "System", "Configuration to " + selectedDeviceId + " cancelled");
+            } else {
+                JOptionPane.showMessageDialog(this,
+                    "Failed to send configuration to " + selectedDeviceId,
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                addMessage("ERROR", "System", "Failed to send configuration to " + selectedDeviceId);
+            }
+        }));
+    }
+
+    /**
+     * Handle restarting a device
+     */
+    private void handleRestartDevice(ActionEvent e) {
+        String selectedDeviceId = getSelectedDeviceId();
+        if (selectedDeviceId == null) {
+            JOptionPane.showMessageDialog(this,
+                "Please select a device to restart",
+                "No Device Selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Restart device " + selectedDeviceId + "?",
+            "Confirm Restart", JOptionPane.YES_NO_OPTION);
             
-            // Refresh properties after configuration is sent
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    // Give some time for the device to process the configuration
-                    Thread.sleep(500);
-                    updateSelectedDeviceProperties();
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-            });
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        if (controller.restartDeviceAsync(selectedDeviceId) == null) {
+            addMessage("ERROR", "System", "Failed to restart " + selectedDeviceId);
         }
     }
 
@@ -640,6 +715,10 @@ public class RadarDebugUI extends JFrame {
         if (response == JOptionPane.YES_OPTION) {
             // Unregister from event bus
             EventBus.getInstance().unregister(controller);
+            jobPanel.cleanup();
+            
+            // Cancel background device jobs, the shared executor stays usable
+            DeviceJobExecutor.getInstance().cancelAll();
 
             // Clean up any cached properties
             ProItemsHandler.clearCachedProperties(null); // Clear all
@@ -1,6 +1,7 @@
 package com.qinglan.example.device_point.ui;
 
 import com.qinglan.example.device_point.server.QlIotServer;
+import com.qinglan.example.device_point.server.handle.SetPropHandler;
 import com.qinglan.example.device_point.server.session.DeviceRegSession;
 import com.qinglan.example.device_point.ui.EventBus.Event;
 import com.qinglan.example.device_point.ui.EventBus.EventListener;
@@ -87,6 +88,16 @@ public class RadarUIController implements EventListener, DeviceSessionListener {
         return configManager.loadConfiguration(file);
     }
     
+    /**
+     * Load a template bundle and bind its devices to their templates
+     * 
+     * @param file The bundle file
+     * @return The number of devices bound, or -1 if the file could not be read
+     */
+    public int loadTemplateBundle(File file) {
+        return configManager.loadTemplateBundle(file);
+    }
+    
     /**
      * Send the loaded configuration to a device
      * 
@@ -102,6 +113,41 @@ public class RadarUIController implements EventListener, DeviceSessionListener {
         return configManager.sendConfigurationToDevice(deviceId);
     }
     
+    /**
+     * Send the loaded configuration to a device on the job executor
+     * 
+     * @param deviceId The device ID to send to
+     * @return The submitted job, or null if the device is not connected
+     */
+    public DeviceJob sendConfigurationAsync(String deviceId) {
+        if (!connectedDevices.containsKey(deviceId)) {
+            logger.warning("Device not connected: " + deviceId);
+            return null;
+        }
+        
+        return DeviceJobExecutor.getInstance().submit(
+            DeviceJob.Type.CONFIG_PUSH, deviceId, "Sending configuration",
+            job -> configManager.sendConfigurationToDevice(deviceId, (completed, total, step) ->
+                job.reportProgress(completed * 100 / Math.max(total, 1), step)));
+    }
+    
+    /**
+     * Restart a device on the job executor
+     * 
+     * @param deviceId The device ID to restart
+     * @return The submitted job, or null if the device is not connected
+     */
+    public DeviceJob restartDeviceAsync(String deviceId) {
+        if (!connectedDevices.containsKey(deviceId)) {
+            logger.warning("Device not connected: " + deviceId);
+            return null;
+        }
+        
+        return DeviceJobExecutor.getInstance().submit(
+            DeviceJob.Type.RESTART, deviceId, "Sending restart command",
+            job -> SetPropHandler.restartDevice(deviceId));
+    }
+    
     /**
      * Disconnect a device
      * 
@@ -170,6 +216,9 @@ public class RadarUIController implements EventListener, DeviceSessionListener {
                     event.getStringData("deviceId")
                 );
                 break;
+                
+            default:
+                break;
         }
     }
     
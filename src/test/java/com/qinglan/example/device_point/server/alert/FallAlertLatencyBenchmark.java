@@ -0,0 +1,131 @@
+package com.qinglan.example.device_point.server.alert;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+import com.qinglan.example.device_point.server.handle.FallDownHandler;
+import com.qinglan.example.device_point.server.handle.PositionDateHandler;
+import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+import com.qinglan.example.device_point.server.protocol.ProcotolFrameDecoder;
+import com.qinglan.example.device_point.server.protocol.ProtoBufCodecSharable;
+import com.qinglan.example.device_point.server.session.DeviceRegSession;
+import com.qinglan.example.device_point.server.telemetry.TelemetryJournal;
+import com.qinglan.example.device_point.server.telemetry.TrajectoryStore;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fall alert ingest-to-dispatch latency while every core is busy with trajectory telemetry
+ * Wire bytes go through the production pipeline (frame decoder, protobuf codec, fall and trajectory
+ * handlers) on EmbeddedChannels, one thread per core acting as an event loop; each read carries a burst
+ * of trajectory frames and, when one is due, a fall report behind them
+ * java -cp target/classes:target/test-classes:... FallAlertLatencyBenchmark [falls]
+ */
+public class FallAlertLatencyBenchmark {
+
+    private static final int DEVICES_PER_LOOP = 32;
+    private static final int TARGETS = 4;
+    // Trajectory frames read from the socket together, ahead of a fall report
+    private static final int FRAMES_PER_READ = 16;
+    private static final long FALL_INTERVAL_NANOS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int falls = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int loops = Runtime.getRuntime().availableProcessors();
+
+        // Measure the pipeline, not the disk
+        TelemetryJournal.getInstance().close();
+        PositionDateHandler.addFrameListener(TrajectoryStore.getInstance());
+
+        FallAlertDispatcher dispatcher = FallAlertDispatcher.getInstance();
+        AtomicInteger fallsLeft = new AtomicInteger(falls);
+        AtomicLong nextFallAt = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong frames = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(loops);
+        for (int t = 0; t < loops; t++) {
+            int loop = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    runLoop(loop, frames, fallsLeft, nextFallAt);
+                } finally {
+                    done.countDown();
+                }
+            }, "event-loop-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // Let the loops warm up, then start the measured falls
+        Thread.sleep(2000);
+        dispatcher.getLatencyHistogram().reset();
+        long start = System.nanoTime();
+        long framesAtStart = frames.get();
+        nextFallAt.set(start);
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long telemetryFrames = frames.get() - framesAtStart;
+        dispatcher.shutdown();
+
+        LatencyHistogram histogram = dispatcher.getLatencyHistogram();
+        System.out.printf("Telemetry load: %d event loops, %.0f frames/s%n", loops, telemetryFrames / seconds);
+        System.out.println("Fall dispatch latency: " + histogram);
+        System.out.printf("Over %d us SLO: %d of %d%n", FallAlertDispatcher.SLO_MICROS,
+                          histogram.getCountAbove(FallAlertDispatcher.SLO_MICROS), histogram.getCount());
+    }
+
+    private static void runLoop(int loop, AtomicLong frames, AtomicInteger fallsLeft, AtomicLong nextFallAt) {
+        ProtoBufCodecSharable codec = new ProtoBufCodecSharable();
+        FallDownHandler fallHandler = new FallDownHandler();
+        PositionDateHandler positionHandler = new PositionDateHandler();
+        EmbeddedChannel[] channels = new EmbeddedChannel[DEVICES_PER_LOOP];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance(),
+                new ProcotolFrameDecoder(), codec, fallHandler, positionHandler);
+            DeviceRegSession.connect(channels[i], "device-" + loop + "-" + i);
+        }
+
+        Random random = new Random(loop);
+        byte[] data = new byte[TARGETS * 16];
+        int seconds = (int) (System.currentTimeMillis() / 1000);
+        while (fallsLeft.get() > 0) {
+            EmbeddedChannel channel = channels[random.nextInt(channels.length)];
+            ByteBuf read = Unpooled.buffer();
+            for (int f = 0; f < FRAMES_PER_READ; f++) {
+                random.nextBytes(data);
+                for (int i = 0; i < TARGETS; i++) {
+                    data[i * 16] = (byte) i;
+                }
+                writeFrame(read, 13, ServerLBSInfo.PositionData.newBuilder()
+                    .setData(ByteString.copyFrom(data)).setSeconds(seconds).build());
+            }
+            long due = nextFallAt.get();
+            if (System.nanoTime() >= due && nextFallAt.compareAndSet(due, due + FALL_INTERVAL_NANOS)
+                && fallsLeft.getAndDecrement() > 0) {
+                byte[] fall = {(byte) random.nextInt(TARGETS), (byte) random.nextInt(5)};
+                writeFrame(read, 5, ServerLBSInfo.ObjectFallDown.newBuilder()
+                    .setFalls(ByteString.copyFrom(fall)).setSeconds((int) (System.currentTimeMillis() / 1000)).build());
+            }
+            channel.writeInbound(read);
+            frames.addAndGet(FRAMES_PER_READ);
+        }
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Frame layout on the wire: payload length (LE short), type, protobuf payload
+     */
+    private static void writeFrame(ByteBuf out, int type, MessageLite message) {
+        byte[] payload = message.toByteArray();
+        out.writeShortLE(payload.length);
+        out.writeByte(type);
+        out.writeBytes(payload);
+    }
+}
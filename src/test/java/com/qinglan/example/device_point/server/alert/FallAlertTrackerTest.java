@@ -0,0 +1,121 @@
+package com.qinglan.example.device_point.server.alert;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FallAlertTrackerTest {
+
+    private final FallAlertTracker tracker = FallAlertTracker.getInstance();
+
+    private final List<FallAlert> alerts = new CopyOnWriteArrayList<>();
+
+    private final FallIncidentListener listener = alerts::add;
+
+    // The tracker is a singleton, every test uses its own device
+    private final String deviceId = "test-" + UUID.randomUUID();
+
+    @BeforeEach
+    void addListener() {
+        tracker.addListener(listener);
+    }
+
+    @AfterEach
+    void removeListener() {
+        tracker.removeListener(listener);
+        tracker.expireDevice(deviceId);
+    }
+
+    @Test
+    void normalWithoutIncidentIsIgnored() {
+        report(0, FallStatus.NORMAL, 1000);
+
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void suspicionEscalatesAndResolves() {
+        report(0, FallStatus.SUSPECTED_FALL, 1000);
+        report(0, FallStatus.FALLDOWN, 2000);
+        report(0, FallStatus.NORMAL, 3000);
+
+        assertEquals(3, alerts.size());
+        assertAlert(alerts.get(0), FallAlert.Kind.RAISED, FallStatus.NORMAL, FallStatus.SUSPECTED_FALL);
+        assertAlert(alerts.get(1), FallAlert.Kind.ESCALATED, FallStatus.SUSPECTED_FALL, FallStatus.FALLDOWN);
+        assertAlert(alerts.get(2), FallAlert.Kind.RESOLVED, FallStatus.FALLDOWN, FallStatus.NORMAL);
+        // Every alert of the incident carries its start
+        for (FallAlert alert : alerts) {
+            assertEquals(1000, alert.getIncidentStart());
+        }
+    }
+
+    @Test
+    void repeatedReportsAreSuppressedAndCounted() {
+        report(0, FallStatus.SUSPECTED_LOW_SITTING, 1000);
+        report(0, FallStatus.SUSPECTED_LOW_SITTING, 1100);
+        report(0, FallStatus.SUSPECTED_LOW_SITTING, 1200);
+        report(0, FallStatus.LOW_SITTING, 1300);
+
+        assertEquals(2, alerts.size());
+        assertAlert(alerts.get(1), FallAlert.Kind.ESCALATED, FallStatus.SUSPECTED_LOW_SITTING, FallStatus.LOW_SITTING);
+        assertEquals(2, alerts.get(1).getSuppressedReports());
+    }
+
+    @Test
+    void changeBetweenConfirmedStatusesIsAnUpdate() {
+        report(0, FallStatus.FALLDOWN, 1000);
+        report(0, FallStatus.LOW_SITTING, 2000);
+        report(0, FallStatus.SUSPECTED_FALL, 3000);
+
+        assertAlert(alerts.get(0), FallAlert.Kind.RAISED, FallStatus.NORMAL, FallStatus.FALLDOWN);
+        assertAlert(alerts.get(1), FallAlert.Kind.UPDATED, FallStatus.FALLDOWN, FallStatus.LOW_SITTING);
+        assertAlert(alerts.get(2), FallAlert.Kind.UPDATED, FallStatus.LOW_SITTING, FallStatus.SUSPECTED_FALL);
+    }
+
+    @Test
+    void targetsHaveSeparateIncidents() {
+        report(0, FallStatus.SUSPECTED_FALL, 1000);
+        report(1, FallStatus.SUSPECTED_FALL, 1000);
+        report(0, FallStatus.NORMAL, 2000);
+
+        assertEquals(3, alerts.size());
+        assertEquals(1, alerts.get(1).getTargetId());
+        assertAlert(alerts.get(2), FallAlert.Kind.RESOLVED, FallStatus.SUSPECTED_FALL, FallStatus.NORMAL);
+        assertEquals(0, alerts.get(2).getTargetId());
+    }
+
+    @Test
+    void expireDeviceClosesOpenIncidents() {
+        report(0, FallStatus.FALLDOWN, 1000);
+        report(2, FallStatus.SUSPECTED_FALL, 1000);
+        alerts.clear();
+
+        tracker.expireDevice(deviceId);
+
+        assertEquals(2, alerts.size());
+        for (FallAlert alert : alerts) {
+            assertEquals(FallAlert.Kind.EXPIRED, alert.getKind());
+        }
+        // The next report starts a new incident
+        report(0, FallStatus.FALLDOWN, 5000);
+        assertAlert(alerts.get(2), FallAlert.Kind.RAISED, FallStatus.NORMAL, FallStatus.FALLDOWN);
+        assertEquals(5000, alerts.get(2).getIncidentStart());
+    }
+
+    private void report(int targetId, FallStatus status, long timestamp) {
+        tracker.onFallEvent(new FallEvent(deviceId, targetId, status, timestamp, System.nanoTime()));
+    }
+
+    private static void assertAlert(FallAlert alert, FallAlert.Kind kind, FallStatus previous, FallStatus status) {
+        assertEquals(kind, alert.getKind());
+        assertEquals(previous, alert.getPreviousStatus());
+        assertEquals(status, alert.getStatus());
+    }
+}
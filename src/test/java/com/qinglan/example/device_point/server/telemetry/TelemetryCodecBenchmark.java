@@ -0,0 +1,239 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.qinglan.example.device_point.server.msg.ServerLBSInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compression ratio and throughput of TelemetryCodec
+ * Run with a telemetry journal directory to measure recorded radar data,
+ * without arguments a synthetic fleet recording is generated:
+ * java -cp target/classes:target/test-classes:... TelemetryCodecBenchmark [journalDir]
+ */
+public class TelemetryCodecBenchmark {
+
+    // Size of a raw type-13 target record or type-14 frame
+    private static final int RAW_RECORD_SIZE = 16;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        List<TrajectoryWindow> trajectories = new ArrayList<>();
+        List<VitalSamples> vitals = new ArrayList<>();
+        if (args.length > 0) {
+            loadJournal(new File(args[0]), trajectories, vitals);
+            System.out.println("Recorded data from " + args[0]);
+        }
+        if (trajectories.isEmpty() && vitals.isEmpty()) {
+            synthesize(trajectories, vitals);
+            System.out.println("Synthetic data: 8 devices, 30 minutes at 20 frames/s");
+        }
+
+        if (!trajectories.isEmpty()) {
+            measureTrajectories(trajectories);
+        }
+        if (!vitals.isEmpty()) {
+            measureVitals(vitals);
+        }
+    }
+
+    private static void measureTrajectories(List<TrajectoryWindow> windows) {
+        long points = 0;
+        long encoded = 0;
+        List<byte[]> encodings = new ArrayList<>();
+        for (TrajectoryWindow window : windows) {
+            byte[] data = TelemetryCodec.encodeTrajectory(window);
+            verify(window, TelemetryCodec.decodeTrajectory(data));
+            encodings.add(data);
+            points += window.size;
+            encoded += data.length;
+        }
+
+        double encodeRate = rate(points, () -> {
+            for (TrajectoryWindow window : windows) {
+                TelemetryCodec.encodeTrajectory(window);
+            }
+        });
+        double decodeRate = rate(points, () -> {
+            for (byte[] data : encodings) {
+                TelemetryCodec.decodeTrajectory(data);
+            }
+        });
+        report("trajectory", points, encoded, encodeRate, decodeRate);
+    }
+
+    private static void measureVitals(List<VitalSamples> series) {
+        long samples = 0;
+        long encoded = 0;
+        List<byte[]> encodings = new ArrayList<>();
+        for (VitalSamples vital : series) {
+            byte[] data = TelemetryCodec.encodeVitals(vital);
+            VitalSamples decoded = TelemetryCodec.decodeVitals(data);
+            for (int i = 0; i < vital.size; i++) {
+                if (decoded.timestamps[i] != vital.timestamps[i] || decoded.heartRates[i] != vital.heartRates[i]
+                    || decoded.breathRates[i] != vital.breathRates[i] || decoded.states[i] != vital.states[i]) {
+                    throw new IllegalStateException("Vitals round trip mismatch at " + i);
+                }
+            }
+            encodings.add(data);
+            samples += vital.size;
+            encoded += data.length;
+        }
+
+        double encodeRate = rate(samples, () -> {
+            for (VitalSamples vital : series) {
+                TelemetryCodec.encodeVitals(vital);
+            }
+        });
+        double decodeRate = rate(samples, () -> {
+            for (byte[] data : encodings) {
+                TelemetryCodec.decodeVitals(data);
+            }
+        });
+        report("vitals", samples, encoded, encodeRate, decodeRate);
+    }
+
+    private static void report(String name, long points, long encoded, double encodeRate, double decodeRate) {
+        long raw = points * RAW_RECORD_SIZE;
+        System.out.printf("%-10s points=%d raw=%d B encoded=%d B (%.2f B/point) ratio=%.1fx%n",
+            name, points, raw, encoded, (double) encoded / points, (double) raw / encoded);
+        System.out.printf("%-10s encode %.1f M points/s (%.0f MB/s raw), decode %.1f M points/s (%.0f MB/s raw)%n",
+            name, encodeRate / 1e6, encodeRate * RAW_RECORD_SIZE / 1e6,
+            decodeRate / 1e6, decodeRate * RAW_RECORD_SIZE / 1e6);
+    }
+
+    /**
+     * Points per second of a pass over all data, after a warmup of the same length
+     */
+    private static double rate(long pointsPerPass, Runnable pass) {
+        for (long end = System.nanoTime() + MEASURE_NANOS / 2; System.nanoTime() < end; ) {
+            pass.run();
+        }
+        long passes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            pass.run();
+            passes++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return passes * pointsPerPass * 1e9 / elapsed;
+    }
+
+    private static void verify(TrajectoryWindow expected, TrajectoryWindow actual) {
+        for (int i = 0; i < expected.size; i++) {
+            if (expected.timestamps[i] != actual.timestamps[i] || expected.targetIds[i] != actual.targetIds[i]
+                || expected.xs[i] != actual.xs[i] || expected.ys[i] != actual.ys[i]
+                || expected.zs[i] != actual.zs[i] || expected.postures[i] != actual.postures[i]) {
+                throw new IllegalStateException("Trajectory round trip mismatch at " + i);
+            }
+        }
+    }
+
+    private static void loadJournal(File directory, List<TrajectoryWindow> trajectories,
+                                    List<VitalSamples> vitals) throws IOException {
+        Map<String, TrajectoryRingBuffer> buffers = new HashMap<>();
+        Map<String, List<long[]>> vitalRows = new HashMap<>();
+        TrajectoryFrame frame = new TrajectoryFrame();
+
+        new TelemetryJournalReader(directory).replay(null, 0, Long.MAX_VALUE, record -> {
+            try {
+                if (record.getType() == 13) {
+                    ServerLBSInfo.PositionData msg = ServerLBSInfo.PositionData.parseFrom(record.getPayload());
+                    frame.wrap(msg.getData(), msg.getSeconds(), msg.getMseconds());
+                    buffers.computeIfAbsent(record.getDeviceId(), k -> new TrajectoryRingBuffer(1 << 20)).append(frame);
+                } else if (record.getType() == 14) {
+                    ServerLBSInfo.ObjectData msg = ServerLBSInfo.ObjectData.parseFrom(record.getPayload());
+                    ByteString data = msg.getData();
+                    if (data.size() >= RAW_RECORD_SIZE && data.byteAt(0) == 0) {
+                        long timestamp = (msg.getSeconds() & 0xFFFFFFFFL) * 1000L + msg.getMseconds();
+                        vitalRows.computeIfAbsent(record.getDeviceId(), k -> new ArrayList<>()).add(new long[]{
+                            timestamp, data.byteAt(1) & 0xFF, data.byteAt(2) & 0xFF, data.byteAt(13) & 0xFF});
+                    }
+                }
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalStateException("Corrupt journal record", e);
+            }
+            return true;
+        });
+
+        for (TrajectoryRingBuffer buffer : buffers.values()) {
+            trajectories.add(buffer.snapshot(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        for (List<long[]> rows : vitalRows.values()) {
+            VitalSamples samples = new VitalSamples(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                long[] row = rows.get(i);
+                samples.timestamps[i] = row[0];
+                samples.breathRates[i] = (int) row[1];
+                samples.heartRates[i] = (int) row[2];
+                samples.states[i] = (int) row[3];
+            }
+            vitals.add(samples);
+        }
+    }
+
+    /**
+     * Walking targets with slowly drifting vitals, shaped like a real recording
+     */
+    private static void synthesize(List<TrajectoryWindow> trajectories, List<VitalSamples> vitals) {
+        Random random = new Random(42);
+        int frames = 30 * 60 * 20;
+        TrajectoryFrame frame = new TrajectoryFrame();
+
+        for (int device = 0; device < 8; device++) {
+            TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(frames * 3);
+            VitalSamples samples = new VitalSamples(frames);
+            int targets = 1 + random.nextInt(3);
+            int[] x = new int[targets];
+            int[] y = new int[targets];
+            int[] posture = new int[targets];
+            int breath = 16;
+            int heart = 70;
+            int state = 0x40;
+            long timestamp = 1_700_000_000_000L;
+
+            for (int f = 0; f < frames; f++) {
+                timestamp += 50 + (random.nextInt(20) == 0 ? random.nextInt(5) - 2 : 0);
+                byte[] payload = new byte[targets * RAW_RECORD_SIZE];
+                for (int t = 0; t < targets; t++) {
+                    if (random.nextInt(4) == 0) {
+                        x[t] = Math.max(-40, Math.min(40, x[t] + random.nextInt(3) - 1));
+                        y[t] = Math.max(0, Math.min(60, y[t] + random.nextInt(3) - 1));
+                    }
+                    if (random.nextInt(400) == 0) {
+                        posture[t] = random.nextInt(7);
+                    }
+                    payload[t * RAW_RECORD_SIZE] = (byte) t;
+                    payload[t * RAW_RECORD_SIZE + 1] = (byte) x[t];
+                    payload[t * RAW_RECORD_SIZE + 2] = (byte) y[t];
+                    payload[t * RAW_RECORD_SIZE + 3] = (byte) (posture[t] == 6 ? 60 : 120);
+                    payload[t * RAW_RECORD_SIZE + 13] = (byte) posture[t];
+                }
+                frame.wrap(ByteString.copyFrom(payload), (int) (timestamp / 1000), (int) (timestamp % 1000));
+                buffer.append(frame);
+
+                if (random.nextInt(20) == 0) {
+                    breath = Math.max(8, Math.min(30, breath + random.nextInt(3) - 1));
+                    heart = Math.max(45, Math.min(120, heart + random.nextInt(3) - 1));
+                }
+                if (random.nextInt(3000) == 0) {
+                    state = random.nextInt(4) << 6;
+                }
+                samples.timestamps[f] = timestamp;
+                samples.breathRates[f] = breath;
+                samples.heartRates[f] = heart;
+                samples.states[f] = state;
+            }
+            trajectories.add(buffer.snapshot(Long.MIN_VALUE, Long.MAX_VALUE));
+            vitals.add(samples);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryCodecTest {
+
+    @Test
+    void trajectoryRoundTrip() {
+        // Two frames of three targets, a single-target frame with a clock step, then a target leaving
+        long[] timestamps = {1000, 1000, 1000, 1200, 1200, 1200, 1350, 1600, 1600};
+        int[] targetIds = {0, 1, 2, 0, 1, 2, 1, 0, 2};
+        int[] xs = {10, -20, 127, 11, -21, 126, 0, -128, 5};
+        int[] ys = {-3, 4, 0, -3, 5, 0, 9, 8, -7};
+        int[] zs = {100, 90, -5, 101, 90, -6, 30, 0, 1};
+        int[] postures = {1, 4, 6, 1, 4, 6, 2, 5, 6};
+        TrajectoryWindow window = new TrajectoryWindow(timestamps.length);
+        for (int i = 0; i < window.size; i++) {
+            window.timestamps[i] = timestamps[i];
+            window.targetIds[i] = targetIds[i];
+            window.xs[i] = xs[i];
+            window.ys[i] = ys[i];
+            window.zs[i] = zs[i];
+            window.postures[i] = postures[i];
+        }
+
+        TrajectoryWindow decoded = TelemetryCodec.decodeTrajectory(TelemetryCodec.encodeTrajectory(window));
+
+        assertEquals(window.size, decoded.size);
+        assertArrayEquals(timestamps, decoded.timestamps);
+        assertArrayEquals(targetIds, decoded.targetIds);
+        assertArrayEquals(xs, decoded.xs);
+        assertArrayEquals(ys, decoded.ys);
+        assertArrayEquals(zs, decoded.zs);
+        assertArrayEquals(postures, decoded.postures);
+    }
+
+    @Test
+    void vitalsRoundTrip() {
+        VitalSamples samples = new VitalSamples(5);
+        long[] timestamps = {1_700_000_000_000L, 1_700_000_001_000L, 1_700_000_002_000L, 1_700_000_002_500L, 1_699_999_999_000L};
+        int[] breathRates = {15, 15, 16, 0, 22};
+        int[] heartRates = {62, 63, 63, 0, 110};
+        int[] states = {0x40, 0x40, 0x40, 0x80, 0x41};
+        System.arraycopy(timestamps, 0, samples.timestamps, 0, 5);
+        System.arraycopy(breathRates, 0, samples.breathRates, 0, 5);
+        System.arraycopy(heartRates, 0, samples.heartRates, 0, 5);
+        System.arraycopy(states, 0, samples.states, 0, 5);
+
+        VitalSamples decoded = TelemetryCodec.decodeVitals(TelemetryCodec.encodeVitals(samples));
+
+        assertEquals(5, decoded.size);
+        assertArrayEquals(timestamps, decoded.timestamps);
+        assertArrayEquals(breathRates, decoded.breathRates);
+        assertArrayEquals(heartRates, decoded.heartRates);
+        assertArrayEquals(states, decoded.states);
+    }
+
+    @Test
+    void emptyRoundTrip() {
+        assertEquals(0, TelemetryCodec.decodeTrajectory(TelemetryCodec.encodeTrajectory(new TrajectoryWindow(0))).size);
+        assertEquals(0, TelemetryCodec.decodeVitals(TelemetryCodec.encodeVitals(new VitalSamples(0))).size);
+    }
+
+    @Test
+    void steadyStreamCostsOneBytePerColumn() {
+        // One sample per second with constant values: a zero delta-of-delta and zero value deltas per sample,
+        // the state column collapses to a single run; only the first timestamp and values take more
+        VitalSamples samples = new VitalSamples(1000);
+        for (int i = 0; i < samples.size; i++) {
+            samples.timestamps[i] = 1_700_000_000_000L + i * 1000L;
+            samples.breathRates[i] = 15;
+            samples.heartRates[i] = 60;
+            samples.states[i] = 0x40;
+        }
+
+        byte[] encoded = TelemetryCodec.encodeVitals(samples);
+
+        assertTrue(encoded.length <= samples.size * 3 + 32, "encoded " + encoded.length + " bytes");
+        assertArrayEquals(samples.timestamps, TelemetryCodec.decodeVitals(encoded).timestamps);
+    }
+
+    @Test
+    void rejectsRunLongerThanCount() {
+        // format 2, count 2, one group of 2 at t=10, breath 15 / 15, heart 60 / 60, then a state run of 3
+        byte[] data = {2, 2, 1, 4, 20, 30, 0, 120, 0, 3, 0};
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> TelemetryCodec.decodeVitals(data));
+        assertEquals("Corrupt run length 3 at index 0", e.getMessage());
+    }
+
+    @Test
+    void rejectsTimestampGroupsLongerThanCount() {
+        // One group of 3 points in a series of 2
+        byte[] data = {2, 2, 1, 6, 20, 30, 0, 120, 0, 2, 0};
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> TelemetryCodec.decodeVitals(data));
+        assertEquals("Corrupt timestamp groups", e.getMessage());
+    }
+
+    @Test
+    void rejectsCountBeyondData() {
+        // Claims 100 points with only a few bytes left, must fail before allocating the columns
+        byte[] data = {2, 100, 1, 4, 20};
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> TelemetryCodec.decodeVitals(data));
+        assertEquals("Invalid point count 100", e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] encoded = TelemetryCodec.encodeVitals(sampleSeries());
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> TelemetryCodec.decodeVitals(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+
+    @Test
+    void rejectsOtherFormat() {
+        byte[] encoded = TelemetryCodec.encodeVitals(sampleSeries());
+
+        assertThrows(IllegalArgumentException.class, () -> TelemetryCodec.decodeTrajectory(encoded));
+    }
+
+    private static VitalSamples sampleSeries() {
+        VitalSamples samples = new VitalSamples(3);
+        for (int i = 0; i < samples.size; i++) {
+            samples.timestamps[i] = 1000L * i;
+            samples.breathRates[i] = 14 + i;
+            samples.heartRates[i] = 70 - i;
+        }
+        return samples;
+    }
+}
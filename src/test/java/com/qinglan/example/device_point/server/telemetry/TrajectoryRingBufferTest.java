@@ -0,0 +1,142 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrajectoryRingBufferTest {
+
+    private final TrajectoryFrame frame = new TrajectoryFrame();
+
+    @Test
+    void snapshotReturnsPointsInWindow() {
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(16);
+        buffer.append(frame(1000, 0, 1));
+        buffer.append(frame(2000, 0, 1));
+        buffer.append(frame(3000, 0));
+
+        TrajectoryWindow window = buffer.snapshot(2000, 3000);
+
+        assertArrayEquals(new long[]{2000, 2000, 3000}, window.timestamps);
+        assertArrayEquals(new int[]{0, 1, 0}, window.targetIds);
+        assertEquals(5, buffer.size());
+    }
+
+    @Test
+    void skipsNobodyPresentMarker() {
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(4);
+        buffer.append(frame(1000, TrajectoryFrame.NO_TARGET_ID));
+
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.latest(10_000).size);
+    }
+
+    @Test
+    void overwritesOldestWhenFull() {
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(4);
+        for (int i = 1; i <= 6; i++) {
+            buffer.append(frame(i * 1000L, i));
+        }
+
+        TrajectoryWindow window = buffer.snapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertEquals(4, buffer.size());
+        assertArrayEquals(new long[]{3000, 4000, 5000, 6000}, window.timestamps);
+        assertArrayEquals(new int[]{3, 4, 5, 6}, window.targetIds);
+    }
+
+    @Test
+    void clampsTimestampsThatStepBack() {
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(8);
+        buffer.append(frame(5000, 0));
+        buffer.append(frame(4000, 1));
+        buffer.append(frame(6000, 2));
+
+        TrajectoryWindow all = buffer.snapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertArrayEquals(new long[]{5000, 5000, 6000}, all.timestamps);
+        // The binary search still finds the clamped point
+        assertArrayEquals(new int[]{0, 1}, buffer.snapshot(5000, 5000).targetIds);
+    }
+
+    @Test
+    void latestIsRelativeToNewestPoint() {
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(8);
+        buffer.append(frame(1000, 0));
+        buffer.append(frame(9000, 0));
+        buffer.append(frame(10_000, 0));
+
+        assertArrayEquals(new long[]{9000, 10_000}, buffer.latest(1000).timestamps);
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TrajectoryRingBuffer(0));
+    }
+
+    @Test
+    void readersNeverSeeTornWindows() throws InterruptedException {
+        // A small buffer wraps constantly; every frame stores its sequence number in all columns,
+        // so a slot mixed from two appends or an out-of-order window shows up in the snapshot
+        TrajectoryRingBuffer buffer = new TrajectoryRingBuffer(32);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            TrajectoryFrame writerFrame = new TrajectoryFrame();
+            for (int seq = 1; running.get(); seq++) {
+                int value = seq % 100;
+                writerFrame.wrap(payload(value, value, value), seq, 0);
+                buffer.append(writerFrame);
+            }
+        });
+        writer.start();
+        try {
+            for (int round = 0; round < 20_000 && failure.get() == null; round++) {
+                TrajectoryWindow window = buffer.snapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+                for (int i = 0; i < window.size; i++) {
+                    int value = (int) (window.timestamps[i] / 1000 % 100);
+                    if (window.targetIds[i] != value || window.xs[i] != value || window.postures[i] != value) {
+                        failure.set("torn point " + i + " at " + window.timestamps[i]);
+                    } else if (i > 0 && window.timestamps[i] < window.timestamps[i - 1]) {
+                        failure.set("out of order at " + i);
+                    }
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertNull(failure.get());
+    }
+
+    /**
+     * One frame with a record per target, coordinates and posture derived from the target ID
+     */
+    private TrajectoryFrame frame(long timestamp, int... targetIds) {
+        byte[] data = new byte[targetIds.length * TrajectoryFrame.RECORD_SIZE];
+        for (int i = 0; i < targetIds.length; i++) {
+            int offset = i * TrajectoryFrame.RECORD_SIZE;
+            data[offset] = (byte) targetIds[i];
+            data[offset + 1] = (byte) (targetIds[i] * 2);
+            data[offset + 2] = (byte) -targetIds[i];
+            data[offset + 13] = (byte) TrajectoryFrame.POSTURE_STAND;
+        }
+        return frame.wrap(ByteString.copyFrom(data), (int) (timestamp / 1000), (int) (timestamp % 1000));
+    }
+
+    private static ByteString payload(int targetId, int x, int posture) {
+        byte[] data = new byte[TrajectoryFrame.RECORD_SIZE];
+        data[0] = (byte) targetId;
+        data[1] = (byte) x;
+        data[13] = (byte) posture;
+        return ByteString.copyFrom(data);
+    }
+}
@@ -0,0 +1,87 @@
+package com.qinglan.example.device_point.server.telemetry;
+
+import com.google.protobuf.ByteString;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Throughput and heap allocation of smoothed trajectory ingest through TrajectoryStore
+ * Frames for the whole fleet are built up front, so the measured loop only runs the ingest path:
+ * java -cp target/classes:target/test-classes:... TrajectorySmootherBenchmark [devices] [seconds]
+ */
+public class TrajectorySmootherBenchmark {
+
+    private static final int TARGETS = 2;
+    private static final int FRAMES_PER_SECOND = 20;
+    // Distinct frames per device, replayed in a loop with advancing timestamps
+    private static final int FRAMES_PER_DEVICE = 200;
+
+    public static void main(String[] args) {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String[] deviceIds = new String[devices];
+        ByteString[][] payloads = new ByteString[devices][FRAMES_PER_DEVICE];
+        Random random = new Random(1);
+        for (int d = 0; d < devices; d++) {
+            deviceIds[d] = "device-" + d;
+            int[] x = new int[TARGETS];
+            int[] y = new int[TARGETS];
+            for (int f = 0; f < FRAMES_PER_DEVICE; f++) {
+                byte[] data = new byte[TARGETS * TrajectoryFrame.RECORD_SIZE];
+                for (int t = 0; t < TARGETS; t++) {
+                    // Random walk plus measurement noise
+                    x[t] = Math.max(-100, Math.min(100, x[t] + random.nextInt(3) - 1));
+                    y[t] = Math.max(0, Math.min(100, y[t] + random.nextInt(3) - 1));
+                    int offset = t * TrajectoryFrame.RECORD_SIZE;
+                    data[offset] = (byte) t;
+                    data[offset + 1] = (byte) (x[t] + random.nextInt(7) - 3);
+                    data[offset + 2] = (byte) (y[t] + random.nextInt(7) - 3);
+                    data[offset + 3] = (byte) (120 + random.nextInt(7) - 3);
+                    data[offset + 13] = (byte) TrajectoryFrame.POSTURE_WALK;
+                }
+                payloads[d][f] = ByteString.copyFrom(data);
+            }
+        }
+
+        TrajectoryStore store = TrajectoryStore.getInstance();
+        store.setSmoothing(true);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long start = System.currentTimeMillis() - (long) seconds * 1000;
+
+        // Warm up: fills every ring buffer and smoother and lets the JIT compile the path
+        int step = ingest(store, frame, deviceIds, payloads, start, 0, FRAMES_PER_DEVICE);
+
+        long frames = (long) devices * seconds * FRAMES_PER_SECOND;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        ingest(store, frame, deviceIds, payloads, start, step, seconds * FRAMES_PER_SECOND);
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long points = frames * TARGETS;
+        System.out.printf("Fleet: %d devices x %d targets at %d frames/s, %d s of data%n",
+                          devices, TARGETS, FRAMES_PER_SECOND, seconds);
+        System.out.printf("Ingest: %.0f frames/s, %.0f ns/point%n",
+                          frames / (elapsed / 1e9), (double) elapsed / points);
+        System.out.printf("Allocated: %d bytes, %.3f bytes/point%n", allocated, (double) allocated / points);
+    }
+
+    private static int ingest(TrajectoryStore store, TrajectoryFrame frame, String[] deviceIds,
+                              ByteString[][] payloads, long start, int firstStep, int steps) {
+        int step = firstStep;
+        for (int i = 0; i < steps; i++, step++) {
+            long timestamp = start + step * (1000L / FRAMES_PER_SECOND);
+            int seconds = (int) (timestamp / 1000);
+            int mseconds = (int) (timestamp % 1000);
+            for (int d = 0; d < deviceIds.length; d++) {
+                store.onFrame(deviceIds[d], frame.wrap(payloads[d][step % FRAMES_PER_DEVICE], seconds, mseconds));
+            }
+        }
+        return step;
+    }
+}
@@ -0,0 +1,136 @@
+package com.qinglan.example.device_point.server.vital;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyDetectorTest {
+
+    private AnomalyDetector detector;
+    private long timestamp;
+
+    @BeforeEach
+    void warmUp() {
+        // Baseline 15 with a standard deviation of about 1
+        detector = new AnomalyDetector(0.5);
+        timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < AnomalyDetector.WARMUP_SAMPLES; i++) {
+            assertEquals(AnomalyDetector.NONE, feed(i % 2 == 0 ? 14 : 16));
+        }
+        assertTrue(detector.isWarm());
+    }
+
+    @Test
+    void noAnomalyDuringWarmUp() {
+        AnomalyDetector cold = new AnomalyDetector(0.5);
+        for (int i = 0; i < AnomalyDetector.WARMUP_SAMPLES - 1; i++) {
+            assertEquals(AnomalyDetector.NONE, cold.update(i % 2 == 0 ? 5 : 40, i * 1000L));
+        }
+        assertFalse(cold.isWarm());
+    }
+
+    @Test
+    void startsAfterEnterSamplesBeyondEnterZ() {
+        int beyond = 0;
+        for (int i = 0; i < 100; i++) {
+            int result = feed(30);
+            beyond = detector.getZ() >= AnomalyDetector.ENTER_Z ? beyond + 1 : 0;
+            if (beyond < AnomalyDetector.ENTER_SAMPLES) {
+                assertEquals(AnomalyDetector.NONE, result, "sample " + i);
+            } else {
+                assertEquals(AnomalyDetector.STARTED, result, "sample " + i);
+                break;
+            }
+        }
+        assertTrue(detector.isActive());
+        assertEquals(1, detector.getDirection());
+        assertEquals(timestamp, detector.getSince());
+    }
+
+    @Test
+    void shortExcursionDoesNotStart() {
+        // A single outlier moves the fast level only briefly
+        feed(45);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(AnomalyDetector.NONE, feed(15));
+        }
+        assertFalse(detector.isActive());
+    }
+
+    @Test
+    void staysActiveBetweenExitZAndEnterZ() {
+        startHigh();
+
+        // Settles at z = 2: no longer entering, but not back within EXIT_Z either
+        for (int i = 0; i < 200; i++) {
+            assertEquals(AnomalyDetector.NONE, feed(17));
+        }
+        assertTrue(detector.isActive());
+    }
+
+    @Test
+    void endsAfterExitSamplesWithinExitZ() {
+        startHigh();
+        double mean = detector.getMean();
+
+        int within = 0;
+        int result = AnomalyDetector.NONE;
+        for (int i = 0; i < 200 && result == AnomalyDetector.NONE; i++) {
+            result = feed(15);
+            within = detector.getZ() < AnomalyDetector.EXIT_Z ? within + 1 : 0;
+            assertEquals(within >= AnomalyDetector.EXIT_SAMPLES ? AnomalyDetector.ENDED : AnomalyDetector.NONE,
+                         result, "sample " + i);
+        }
+        assertEquals(AnomalyDetector.ENDED, result);
+        assertFalse(detector.isActive());
+        assertEquals(timestamp, detector.getUntil());
+        // The baseline did not follow the anomaly
+        assertEquals(mean, detector.getMean(), 1e-9);
+    }
+
+    @Test
+    void detectsLowAnomaly() {
+        int result = AnomalyDetector.NONE;
+        for (int i = 0; i < 100 && result == AnomalyDetector.NONE; i++) {
+            result = feed(5);
+        }
+        assertEquals(AnomalyDetector.STARTED, result);
+        assertEquals(-1, detector.getDirection());
+    }
+
+    @Test
+    void gapEndsOpenAnomaly() {
+        startHigh();
+        long lastBeforeGap = timestamp;
+
+        timestamp += AnomalyDetector.MAX_GAP_MILLIS + 1000;
+        assertEquals(AnomalyDetector.ENDED, detector.update(30, timestamp));
+        assertFalse(detector.isActive());
+        assertEquals(lastBeforeGap, detector.getUntil());
+    }
+
+    @Test
+    void endWithoutSample() {
+        assertFalse(detector.end());
+        startHigh();
+
+        assertTrue(detector.end());
+        assertFalse(detector.isActive());
+    }
+
+    private void startHigh() {
+        int result = AnomalyDetector.NONE;
+        for (int i = 0; i < 100 && result == AnomalyDetector.NONE; i++) {
+            result = feed(30);
+        }
+        assertEquals(AnomalyDetector.STARTED, result);
+    }
+
+    private int feed(double value) {
+        timestamp += 1000;
+        return detector.update(value, timestamp);
+    }
+}
@@ -0,0 +1,71 @@
+package com.qinglan.example.device_point.server.vital;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Cost and heap allocation of the per-device work of a VitalSpectrumEngine worker: copying the window
+ * and analyzing the breath and heart series with one reused SpectralAnalyzer
+ * Windows for the whole fleet are filled up front, so the measured loop only runs the analysis path:
+ * java -cp target/classes:target/test-classes:... VitalSpectrumBenchmark [devices] [rounds]
+ */
+public class VitalSpectrumBenchmark {
+
+    private static final int SIZE = VitalSpectrumEngine.WINDOW_SECONDS;
+
+    public static void main(String[] args) {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        VitalWindow[] windows = new VitalWindow[devices];
+        Random random = new Random(1);
+        long start = System.currentTimeMillis() - SIZE * 1000L;
+        for (int d = 0; d < devices; d++) {
+            windows[d] = new VitalWindow(SIZE);
+            double breathPhase = random.nextDouble() * 2 * Math.PI;
+            double heartPhase = random.nextDouble() * 2 * Math.PI;
+            for (int s = 0; s < SIZE; s++) {
+                // Slow breathing drift plus low / high frequency heart rate variability and noise
+                int breath = (int) Math.round(15 + 2 * Math.sin(2 * Math.PI * 0.01 * s + breathPhase)
+                                              + random.nextGaussian());
+                int heart = (int) Math.round(65 + 3 * Math.sin(2 * Math.PI * 0.1 * s + heartPhase)
+                                             + 2 * Math.sin(2 * Math.PI * 0.25 * s) + random.nextGaussian());
+                windows[d].add(start + s * 1000L, breath, heart);
+            }
+        }
+
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(SIZE);
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up: lets the JIT compile the FFT and the metric loops
+        double checksum = analyze(analyzer, windows, Math.max(1, 20000 / devices));
+
+        long analyses = (long) devices * rounds;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        checksum += analyze(analyzer, windows, rounds);
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("Fleet: %d devices, %d s window, %d rounds%n", devices, SIZE, rounds);
+        System.out.printf("Analysis: %.2f us/device (breath + heart), %.0f devices/s per worker%n",
+                          elapsed / 1e3 / analyses, analyses / (elapsed / 1e9));
+        System.out.printf("Allocated: %d bytes, %.0f bytes/device%n", allocated, (double) allocated / analyses);
+        System.out.printf("Checksum: %.3f%n", checksum);
+    }
+
+    private static double analyze(SpectralAnalyzer analyzer, VitalWindow[] windows, int rounds) {
+        double checksum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (VitalWindow window : windows) {
+                window.copyTo(analyzer.breath, analyzer.heart);
+                SpectralMetrics breath = analyzer.analyze(analyzer.breath);
+                SpectralMetrics heart = analyzer.analyze(analyzer.heart);
+                checksum += breath.getDominantFrequency() + heart.getLfHfRatio();
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,111 @@
+package com.qinglan.example.device_point.ui;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigurationStreamReaderTest {
+
+    @Test
+    void readsNestedValues() throws IOException {
+        JSONObject object = (JSONObject) read("{\"a\": 1, \"b\": [true, null, \"x\\u0041\"], \"c\": {\"d\": 2.5}}");
+
+        assertEquals(1, object.get("a"));
+        JSONArray array = object.getJSONArray("b");
+        assertEquals(Boolean.TRUE, array.get(0));
+        assertNull(array.get(1));
+        assertEquals("xA", array.get(2));
+        assertEquals("2.5", object.getJSONObject("c").get("d").toString());
+    }
+
+    @Test
+    void acceptsTrailingCommas() throws IOException {
+        JSONObject object = (JSONObject) read("{\"a\": [1, 2,], \"b\": {\"c\": 3,},}");
+
+        assertEquals(2, object.getJSONArray("a").size());
+        assertEquals(3, object.getJSONObject("b").get("c"));
+    }
+
+    @Test
+    void acceptsEmptyContainers() throws IOException {
+        JSONObject object = (JSONObject) read("{\"a\": [], \"b\": {}}");
+
+        assertTrue(object.getJSONArray("a").isEmpty());
+        assertTrue(object.getJSONObject("b").isEmpty());
+    }
+
+    @Test
+    void rejectsLeadingComma() {
+        assertError("{\"a\": [, 1]}", "第一个元素前不能有逗号");
+        assertError("{, \"a\": 1}", "第一个元素前不能有逗号");
+    }
+
+    @Test
+    void rejectsConsecutiveCommas() {
+        assertError("{\"a\": [1,, 2]}", "连续的逗号");
+        assertError("{\"a\": 1,, \"b\": 2}", "连续的逗号");
+    }
+
+    @Test
+    void rejectsLoneCommaInEmptyContainer() {
+        assertError("[,]", "第一个元素前不能有逗号");
+    }
+
+    @Test
+    void rejectsMissingComma() {
+        assertError("{\"a\": 1 \"b\": 2}", "元素之间缺少逗号");
+        assertError("[1 2]", "元素之间缺少逗号");
+    }
+
+    @Test
+    void reportsLineOfError() {
+        IOException e = assertThrows(IOException.class, () -> read("{\n\"a\": 1,\n\"b\": [1,, 2]\n}"));
+
+        assertTrue(e.getMessage().contains("第3行"), e.getMessage());
+    }
+
+    @Test
+    void streamsNamesAndSkipsValues() throws IOException {
+        try (ConfigurationStreamReader reader =
+                 new ConfigurationStreamReader(new StringReader("{\"skip\": {\"x\": [1, {\"y\": 2}]}, \"keep\": 7,}"))) {
+            reader.beginObject();
+            assertTrue(reader.hasNext());
+            assertEquals("skip", reader.nextName());
+            assertTrue(reader.peekObject());
+            reader.skipValue();
+            assertTrue(reader.hasNext());
+            assertEquals("keep", reader.nextName());
+            assertEquals("7", reader.nextString());
+            assertFalse(reader.hasNext());
+            reader.endObject();
+            reader.endDocument();
+        }
+    }
+
+    @Test
+    void rejectsContentAfterDocument() {
+        assertError("{} {}", "文档结束后存在多余内容");
+    }
+
+    private static Object read(String json) throws IOException {
+        try (ConfigurationStreamReader reader = new ConfigurationStreamReader(new StringReader(json))) {
+            Object value = reader.readValue();
+            reader.endDocument();
+            return value;
+        }
+    }
+
+    private static void assertError(String json, String message) {
+        IOException e = assertThrows(IOException.class, () -> read(json));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}